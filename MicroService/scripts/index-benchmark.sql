@@ -0,0 +1,131 @@
+-- Query plans of the article tables before and after the indexes of schema.sql.
+--
+-- Seeds 1M rows into pending, executed and failed articles, prints the plans and the scanned rows
+-- (EXPLAIN ANALYZE) of the hot queries, adds the indexes and prints them again.
+--
+-- Run with : gradle indexBenchmark
+-- or       : java -cp h2.jar org.h2.tools.RunScript -url "jdbc:h2:./build/index-benchmark;MODE=MySQL" -showResults \
+--                 -script scripts/index-benchmark.sql
+--
+-- On MySQL, run the CREATE TABLE and seed statements with a numbers table instead of SYSTEM_RANGE,
+-- and EXPLAIN (or EXPLAIN ANALYZE on 8.0.18+) the same queries.
+
+CREATE TABLE `executed_articles` (
+  `id` int unsigned NOT NULL AUTO_INCREMENT,
+  `publication` VARCHAR unsigned NOT NULL,
+  `asset_id` VARCHAR unsigned NOT NULL,
+  `url` VARCHAR unsigned NOT NULL,
+  `execution_date` TIMESTAMP unsigned NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY (`asset_id`, `publication`)
+);
+
+CREATE TABLE `pending_articles` (
+  `id` int unsigned NOT NULL AUTO_INCREMENT,
+  `publication` VARCHAR unsigned NOT NULL,
+  `url` VARCHAR unsigned NOT NULL,
+  `execution_date` TIMESTAMP unsigned NOT NULL,
+  `claimed_by` VARCHAR,
+  `claimed_until` TIMESTAMP NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY (`url`)
+);
+
+CREATE TABLE `failed_articles` (
+  `id` int unsigned NOT NULL AUTO_INCREMENT,
+  `publication` VARCHAR unsigned NOT NULL,
+  `url` VARCHAR unsigned NOT NULL,
+  `execution_date` TIMESTAMP unsigned NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY (`url`)
+);
+
+-- Seed 1M rows per table, spread over 4 publications and the last 12 months, newest 1000 rows
+-- belong to a small publication
+
+INSERT INTO `pending_articles` (`publication`, `url`, `execution_date`)
+  SELECT CASE WHEN X > 999000 THEN 'small' ELSE 'pub' || MOD(X, 4) END, 'https://www.example.com/pending/article' || X || '/title.html',
+         DATEADD('MINUTE', -MOD(X * 7919, 525600), CURRENT_TIMESTAMP)
+  FROM SYSTEM_RANGE(1, 1000000);
+
+INSERT INTO `executed_articles` (`publication`, `asset_id`, `url`, `execution_date`)
+  SELECT CASE WHEN X > 999000 THEN 'small' ELSE 'pub' || MOD(X, 4) END, CAST(X AS VARCHAR), 'https://www.example.com/executed/article' || X || '/title.html',
+         DATEADD('MINUTE', -MOD(X * 7919, 525600), CURRENT_TIMESTAMP)
+  FROM SYSTEM_RANGE(1, 1000000);
+
+INSERT INTO `failed_articles` (`publication`, `url`, `execution_date`)
+  SELECT CASE WHEN X > 999000 THEN 'small' ELSE 'pub' || MOD(X, 4) END, 'https://www.example.com/failed/article' || X || '/title.html',
+         DATEADD('MINUTE', -MOD(X * 7919, 525600), CURRENT_TIMESTAMP)
+  FROM SYSTEM_RANGE(1, 1000000);
+
+ANALYZE;
+
+-- Before : previous monthly count, functions on execution_date
+
+EXPLAIN ANALYZE SELECT COUNT(*) FROM EXECUTED_ARTICLES
+  WHERE YEAR(execution_date) = YEAR(CURRENT_DATE) AND MONTH(execution_date) = MONTH(CURRENT_DATE);
+
+-- Before : queries of this change, without indexes
+
+EXPLAIN ANALYZE SELECT COUNT(*) FROM EXECUTED_ARTICLES
+  WHERE execution_date >= TRUNC(CURRENT_DATE) - (DAY_OF_MONTH(CURRENT_DATE) - 1)
+    AND execution_date < DATEADD('MONTH', 1, TRUNC(CURRENT_DATE) - (DAY_OF_MONTH(CURRENT_DATE) - 1));
+
+EXPLAIN ANALYZE SELECT TOP 1 * FROM PENDING_ARTICLES WHERE publication = 'small';
+
+EXPLAIN ANALYZE SELECT id FROM PENDING_ARTICLES WHERE publication = 'small'
+  AND (claimed_until IS NULL OR claimed_until < CURRENT_TIMESTAMP) ORDER BY publication, id LIMIT 20;
+
+EXPLAIN ANALYZE SELECT * FROM PENDING_ARTICLES WHERE claimed_by = 'instance-small-1' ORDER BY id;
+
+EXPLAIN ANALYZE SELECT url FROM EXECUTED_ARTICLES WHERE publication = 'pub1'
+  AND url IN ('https://www.example.com/executed/article1/title.html',
+              'https://www.example.com/executed/article5/title.html');
+
+EXPLAIN ANALYZE SELECT TOP 1 * FROM FAILED_ARTICLES WHERE publication = 'small';
+
+-- Indexes, as in schema.sql
+
+CREATE INDEX IF NOT EXISTS `idx_pending_articles_publication` ON `pending_articles` (`publication`, `id`);
+CREATE INDEX IF NOT EXISTS `idx_pending_articles_claimed_by` ON `pending_articles` (`claimed_by`);
+CREATE INDEX IF NOT EXISTS `idx_pending_articles_execution_date` ON `pending_articles` (`execution_date`);
+
+CREATE INDEX IF NOT EXISTS `idx_executed_articles_publication` ON `executed_articles` (`publication`, `id`);
+CREATE INDEX IF NOT EXISTS `idx_executed_articles_url` ON `executed_articles` (`url`);
+CREATE INDEX IF NOT EXISTS `idx_executed_articles_execution_date` ON `executed_articles` (`execution_date`);
+
+CREATE INDEX IF NOT EXISTS `idx_failed_articles_publication` ON `failed_articles` (`publication`, `id`);
+CREATE INDEX IF NOT EXISTS `idx_failed_articles_execution_date` ON `failed_articles` (`execution_date`);
+
+ANALYZE;
+
+-- After : previous monthly count still scans the table, the date range reads only the current month
+
+EXPLAIN ANALYZE SELECT COUNT(*) FROM EXECUTED_ARTICLES
+  WHERE YEAR(execution_date) = YEAR(CURRENT_DATE) AND MONTH(execution_date) = MONTH(CURRENT_DATE);
+
+EXPLAIN ANALYZE SELECT COUNT(*) FROM EXECUTED_ARTICLES
+  WHERE execution_date >= TRUNC(CURRENT_DATE) - (DAY_OF_MONTH(CURRENT_DATE) - 1)
+    AND execution_date < DATEADD('MONTH', 1, TRUNC(CURRENT_DATE) - (DAY_OF_MONTH(CURRENT_DATE) - 1));
+
+EXPLAIN ANALYZE SELECT TOP 1 * FROM PENDING_ARTICLES WHERE publication = 'small';
+
+EXPLAIN ANALYZE SELECT id FROM PENDING_ARTICLES WHERE publication = 'small'
+  AND (claimed_until IS NULL OR claimed_until < CURRENT_TIMESTAMP) ORDER BY publication, id LIMIT 20;
+
+EXPLAIN ANALYZE SELECT * FROM PENDING_ARTICLES WHERE claimed_by = 'instance-small-1' ORDER BY id;
+
+EXPLAIN ANALYZE SELECT url FROM EXECUTED_ARTICLES WHERE publication = 'pub1'
+  AND url IN ('https://www.example.com/executed/article1/title.html',
+              'https://www.example.com/executed/article5/title.html');
+
+EXPLAIN ANALYZE SELECT TOP 1 * FROM FAILED_ARTICLES WHERE publication = 'small';
+
+-- Scanned rows on H2 1.4.196, before -> after :
+--   monthly count, year()/month()          1000001 -> 1000001 (index cannot be used)
+--   monthly count, date range              1000001 -> 48285
+--   top article of small publication        999001 -> 1
+--   claimable ids of small publication     1000001 -> 20
+--   claimed articles                       1000001 -> 1
+--   executed urls of publication           1000001 -> 3
+--   top failed article of small publication 999001 -> 1
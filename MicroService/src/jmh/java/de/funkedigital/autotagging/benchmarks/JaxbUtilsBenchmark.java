@@ -0,0 +1,93 @@
+package de.funkedigital.autotagging.benchmarks;
+
+import de.funkedigital.autotagging.entities.xml.SitemapIndex;
+import de.funkedigital.autotagging.entities.xml.UrlSet;
+import de.funkedigital.autotagging.utils.JaxbUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing of {@link SitemapIndex} and {@link UrlSet} with a new {@link JAXBContext} per call
+ * (cold, previous behaviour of {@link JaxbUtils}) and with the cached context and pooled unmarshallers.
+ * <p>
+ * Run with : gradle jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JaxbUtilsBenchmark {
+
+    private static final String NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+
+    /**
+     * Number of entries in generated documents
+     */
+    @Param({"10", "1000"})
+    private int entries;
+
+    private byte[] sitemapIndex;
+
+    private byte[] urlSet;
+
+    @Setup
+    public void setup() {
+        StringBuilder index = new StringBuilder("<sitemapindex xmlns=\"" + NAMESPACE + "\">");
+        StringBuilder urls = new StringBuilder("<urlset xmlns=\"" + NAMESPACE + "\">");
+        for (int i = 0; i < entries; i++) {
+            index.append("<sitemap><loc>https://www.morgenpost.de/sitemaps/archive-").append(i)
+                    .append(".xml.gz</loc><lastmod>2019-11-01</lastmod></sitemap>");
+            urls.append("<url><loc>https://www.morgenpost.de/berlin/article").append(i)
+                    .append("/title.html</loc><lastmod>2019-11-01</lastmod></url>");
+        }
+        this.sitemapIndex = index.append("</sitemapindex>").toString().getBytes(StandardCharsets.UTF_8);
+        this.urlSet = urls.append("</urlset>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public SitemapIndex coldSitemapIndex() throws JAXBException {
+        return cold(this.sitemapIndex, SitemapIndex.class);
+    }
+
+    @Benchmark
+    public SitemapIndex cachedSitemapIndex() throws JAXBException {
+        return JaxbUtils.getXmlEntityFromStream(reader(this.sitemapIndex), SitemapIndex.class);
+    }
+
+    @Benchmark
+    public UrlSet coldUrlSet() throws JAXBException {
+        return cold(this.urlSet, UrlSet.class);
+    }
+
+    @Benchmark
+    public UrlSet cachedUrlSet() throws JAXBException {
+        return JaxbUtils.getXmlEntityFromStream(reader(this.urlSet), UrlSet.class);
+    }
+
+    private static <T> T cold(byte[] xml, Class<T> cls) throws JAXBException {
+        JAXBContext jaxbContext = JAXBContext.newInstance(cls);
+        return cls.cast(jaxbContext.createUnmarshaller().unmarshal(reader(xml)));
+    }
+
+    private static InputStreamReader reader(byte[] xml) {
+        return new InputStreamReader(new ByteArrayInputStream(xml), StandardCharsets.UTF_8);
+    }
+}
@@ -14,7 +14,10 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.Arrays;
+import java.util.UUID;
 
 @EnableAspectJAutoProxy
 @Configuration
@@ -55,4 +58,21 @@ public class AppConfig {
     public String resourcePath() {
         return this.getClass().getResource("/").getPath();
     }
+
+    /**
+     * Id of this running instance, used to claim pending articles, so that
+     * multiple instances can share them.
+     *
+     * @return host name and a random suffix
+     */
+    @Bean(name = "instanceId")
+    public String instanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
 }
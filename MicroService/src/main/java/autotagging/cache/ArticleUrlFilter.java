@@ -0,0 +1,280 @@
+package de.funkedigital.autotagging.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import de.funkedigital.autotagging.entities.repo.PublicationEntity;
+import de.funkedigital.autotagging.repositories.DeadArticleRepository;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.repositories.PublicationRepository;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per publication {@link BloomFilter} of article urls already present in pending, executed, failed or dead
+ * articles.
+ * <p>
+ * {@link #mightContain(String, String)} returning false means the url was <b>definitely not seen</b>
+ * and database lookup can be skipped. True means the url <b>might be seen</b> and the database
+ * has to be checked.
+ * <p>
+ * Filters are built from the article tables on start up and rebuilt every 24 hours (by default),
+ * in between they are updated with every saved url. Until the filter of a publication is built,
+ * every url is reported as might be seen, so the database is always checked.
+ * <p>
+ * Urls saved by other instances are not in the filter until the rebuild, so a url reported as definitely
+ * not seen is checked again by the insert of pending articles,
+ * {@link de.funkedigital.autotagging.services.ArticleEligibilityService#savePending(String, java.util.Collection)}.
+ *
+ * @author sraj
+ */
+@Component
+public class ArticleUrlFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleUrlFilter.class);
+
+    /**
+     * Disable to always check urls in the database.
+     */
+    @Value("${article.filter.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Expected number of urls per publication, filter is sized for it.
+     */
+    @Value("${article.filter.expected.insertions:1000000}")
+    private int expectedInsertions;
+
+    /**
+     * Expected false positive probability
+     */
+    @Value("${article.filter.fpp:0.01}")
+    private double fpp;
+
+    /**
+     * Number of urls read from database at once while building the filter.
+     */
+    @Value("${article.filter.page.size:10000}")
+    private int pageSize;
+
+    /**
+     * Autowired instance of {@link PublicationRepository}
+     */
+    @Autowired
+    private PublicationRepository publicationRepository;
+
+    /**
+     * Autowired instance of {@link PendingArticleRepository}
+     */
+    @Autowired
+    private PendingArticleRepository pendingArticleRepository;
+
+    /**
+     * Autowired instance of {@link ExecutedArticleRepository}
+     */
+    @Autowired
+    private ExecutedArticleRepository executedArticleRepository;
+
+    /**
+     * Autowired instance of {@link FailedArticleRepository}
+     */
+    @Autowired
+    private FailedArticleRepository failedArticleRepository;
+
+    /**
+     * Autowired instance of {@link DeadArticleRepository}
+     */
+    @Autowired
+    private DeadArticleRepository deadArticleRepository;
+
+    // Filters in use, per publication
+    private final ConcurrentMap<String, BloomFilter<CharSequence>> filters = new ConcurrentHashMap<>();
+
+    // Filters being rebuilt, they receive the urls saved while rebuilding.
+    private final ConcurrentMap<String, BloomFilter<CharSequence>> building = new ConcurrentHashMap<>();
+
+    // Urls reported as might be seen
+    private final AtomicLong possibleHits = new AtomicLong();
+
+    // Urls reported as might be seen and found in database
+    private final AtomicLong confirmedHits = new AtomicLong();
+
+    private volatile long rebuildTimeMillis;
+
+    private volatile Date lastRebuildDate;
+
+    /**
+     * Check whether url might be already seen for the publication.
+     *
+     * @param publication publication of url
+     * @param url         article url
+     * @return false if the url was definitely not seen, true if it might be seen.
+     */
+    public boolean mightContain(String publication, String url) {
+        BloomFilter<CharSequence> filter = this.enabled ? filters.get(publication) : null;
+        boolean mightContain = filter == null || filter.mightContain(url);
+        if (filter != null && mightContain) {
+            possibleHits.incrementAndGet();
+        }
+        return mightContain;
+    }
+
+    /**
+     * Whether the filter of publication is in use, {@link #mightContain(String, String)} answers from it.
+     * Once built, a filter is only replaced by its rebuild.
+     *
+     * @param publication publication of urls
+     * @return false if the filter is disabled or not built yet, every url is reported as might be seen then
+     */
+    public boolean isBuilt(String publication) {
+        return this.enabled && filters.containsKey(publication);
+    }
+
+    /**
+     * Record the number of possible hits confirmed by database, used for the observed
+     * false positive rate. Only hits of a built filter, {@link #isBuilt(String)}, are to be recorded.
+     *
+     * @param count urls found in database out of possible hits
+     */
+    public void confirmHits(int count) {
+        confirmedHits.addAndGet(count);
+    }
+
+    /**
+     * Add the url to the filter of the publication.
+     *
+     * @param publication publication of url
+     * @param url         article url
+     */
+    public void put(String publication, String url) {
+        if (publication == null || url == null) {
+            return;
+        }
+        BloomFilter<CharSequence> filter = filters.get(publication);
+        if (filter != null) {
+            filter.put(url);
+        }
+        BloomFilter<CharSequence> next = building.get(publication);
+        if (next != null) {
+            next.put(url);
+        }
+    }
+
+    /**
+     * Build the filters for all publications from {@link PendingArticleRepository},
+     * {@link ExecutedArticleRepository}, {@link FailedArticleRepository} and {@link DeadArticleRepository}.
+     * <p>
+     * Runs at start up and then every 24 hours, to resize the filters as tables grow.
+     */
+    @Scheduled(initialDelayString = "${article.filter.rebuild.initial.delay:10000}",
+            fixedDelayString = "${article.filter.rebuild.delay:86400000}")
+    public void rebuild() {
+        if (!this.enabled) {
+            return;
+        }
+        LOG.info("Rebuilding article url filters : {}", Thread.currentThread().getName());
+        long start = System.currentTimeMillis();
+        try {
+            for (PublicationEntity publicationEntity : publicationRepository.findAll()) {
+                rebuild(publicationEntity.getPublication());
+            }
+            this.lastRebuildDate = new Date();
+            this.rebuildTimeMillis = System.currentTimeMillis() - start;
+            LOG.info("Rebuilt article url filters in {} ms", this.rebuildTimeMillis);
+        } catch (Exception e) {
+            LOG.error("Error occurred while rebuilding article url filters : {}",
+                    ExceptionUtils.getRootCauseMessage(e), e);
+        }
+    }
+
+    private void rebuild(String publication) {
+        BloomFilter<CharSequence> current = filters.get(publication);
+        // Grow the filter, if the table has more urls than expected.
+        long size = current == null ? 0 : current.approximateElementCount();
+        BloomFilter<CharSequence> next = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                Math.max(this.expectedInsertions, size * 2), this.fpp);
+        building.put(publication, next);
+        try {
+            load(publication, next, pendingArticleRepository::findIdAndUrlByPublicationAfterId);
+            load(publication, next, executedArticleRepository::findIdAndUrlByPublicationAfterId);
+            load(publication, next, failedArticleRepository::findIdAndUrlByPublicationAfterId);
+            load(publication, next, deadArticleRepository::findIdAndUrlByPublicationAfterId);
+            filters.put(publication, next);
+        } finally {
+            building.remove(publication);
+        }
+        LOG.debug("Article url filter for {} has {} urls", publication, next.approximateElementCount());
+    }
+
+    /**
+     * Read all urls of publication page by page and put them to filter.
+     */
+    private void load(String publication, BloomFilter<CharSequence> filter, PageQuery query) {
+        Long lastId = 0L;
+        List<Object[]> page;
+        do {
+            page = query.apply(publication, lastId, new PageRequest(0, this.pageSize));
+            for (Object[] row : page) {
+                lastId = ((Number) row[0]).longValue();
+                if (row[1] != null) {
+                    filter.put((String) row[1]);
+                }
+            }
+        } while (page.size() == this.pageSize);
+    }
+
+    /**
+     * Details of filters, exposed by {@link de.funkedigital.autotagging.endpoints.ArticleFilterEndpoint}
+     *
+     * @return details of filters
+     */
+    public Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", this.enabled);
+        details.put("expectedInsertions", this.expectedInsertions);
+        details.put("configuredFpp", this.fpp);
+        details.put("rebuildTimeMillis", this.rebuildTimeMillis);
+        details.put("lastRebuildDate", this.lastRebuildDate);
+        long possible = possibleHits.get();
+        long confirmed = confirmedHits.get();
+        details.put("possibleHits", possible);
+        details.put("confirmedHits", confirmed);
+        details.put("observedFalsePositives", possible - confirmed);
+
+        Map<String, Object> publications = new LinkedHashMap<>();
+        filters.forEach((publication, filter) -> {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("approximateElementCount", filter.approximateElementCount());
+            detail.put("expectedFpp", filter.expectedFpp());
+            publications.put(publication, detail);
+        });
+        details.put("publications", publications);
+        return details;
+    }
+
+    /**
+     * Paged query of [id, url] from article repositories
+     */
+    @FunctionalInterface
+    private interface PageQuery {
+
+        List<Object[]> apply(String publication, Long lastId, Pageable pageable);
+    }
+}
@@ -0,0 +1,236 @@
+package de.funkedigital.autotagging.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import de.funkedigital.autotagging.semantic.entities.KeywordStore;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of results of {@link de.funkedigital.autotagging.semantic.services.UnicornService} (url to asset id)
+ * and {@link de.funkedigital.autotagging.semantic.services.SemanticService} (asset id to {@link KeywordStore}),
+ * so an article processed again (web service, failed articles) does not call the services again.
+ * <p>
+ * Entries expire semantic.cache.ttl.hours after they were loaded and the least recently used entries
+ * are evicted above semantic.cache.max.size. If semantic.cache.persist is true, the entries are written
+ * to a file in resource folder on shutdown and read on start up, with their original load time.
+ * <p>
+ * Hits, misses, evictions and size are shown on /actuator/metrics as semantic.cache.*
+ *
+ * @author sraj
+ */
+@Component
+public class SemanticResultCache implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SemanticResultCache.class);
+
+    private static final String CACHE_FILE = "semantic-cache.ser";
+
+    private static final String PREFIX = "semantic.cache.";
+
+    @Value("${semantic.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${semantic.cache.max.size:100000}")
+    private long maxSize;
+
+    @Value("${semantic.cache.ttl.hours:24}")
+    private long ttlHours;
+
+    @Value("${semantic.cache.persist:false}")
+    private boolean persist;
+
+    /**
+     * Path of resource folder
+     */
+    @Autowired
+    private String resourcePath;
+
+    // Url to asset id
+    private Cache<String, CachedValue<String>> assetIds;
+
+    // Asset id to keywords
+    private Cache<String, CachedValue<KeywordStore>> keywords;
+
+    @PostConstruct
+    public void init() {
+        this.assetIds = create();
+        this.keywords = create();
+        if (this.enabled && this.persist) {
+            load();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.enabled && this.persist) {
+            save();
+        }
+    }
+
+    /**
+     * @param url article url
+     * @return cached asset id or null
+     */
+    public String getAssetId(String url) {
+        return get(this.assetIds, url);
+    }
+
+    public void putAssetId(String url, String assetId) {
+        put(this.assetIds, url, assetId);
+    }
+
+    /**
+     * @param assetId asset id of article
+     * @return cached {@link KeywordStore} or null
+     */
+    public KeywordStore getKeywords(String assetId) {
+        return get(this.keywords, assetId);
+    }
+
+    public void putKeywords(String assetId, KeywordStore keywordStore) {
+        put(this.keywords, assetId, keywordStore);
+    }
+
+    private <V extends Serializable> Cache<String, CachedValue<V>> create() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(this.maxSize)
+                .expireAfterWrite(this.ttlHours, TimeUnit.HOURS)
+                .recordStats()
+                .build();
+    }
+
+    private <V extends Serializable> V get(Cache<String, CachedValue<V>> cache, String key) {
+        if (!this.enabled || key == null) {
+            return null;
+        }
+        CachedValue<V> cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        // Entries read from file keep their load time, they may be expired already.
+        if (cached.isExpired(TimeUnit.HOURS.toMillis(this.ttlHours))) {
+            cache.invalidate(key);
+            return null;
+        }
+        return cached.value;
+    }
+
+    private <V extends Serializable> void put(Cache<String, CachedValue<V>> cache, String key, V value) {
+        if (this.enabled && key != null && value != null) {
+            cache.put(key, new CachedValue<>(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Write both caches to file.
+     */
+    private void save() {
+        File file = new File(this.resourcePath + CACHE_FILE);
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(new HashMap<>(this.assetIds.asMap()));
+            out.writeObject(new HashMap<>(this.keywords.asMap()));
+            LOG.info("Saved semantic cache to {} : {} asset ids, {} keywords", file, this.assetIds.size(),
+                    this.keywords.size());
+        } catch (IOException e) {
+            LOG.error("Could not save semantic cache to {} : {}", file, ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * Read both caches from file, expired entries are skipped.
+     */
+    @SuppressWarnings("unchecked")
+    private void load() {
+        File file = new File(this.resourcePath + CACHE_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            putAll(this.assetIds, (Map<String, CachedValue<String>>) in.readObject());
+            putAll(this.keywords, (Map<String, CachedValue<KeywordStore>>) in.readObject());
+            LOG.info("Loaded semantic cache from {} : {} asset ids, {} keywords", file, this.assetIds.size(),
+                    this.keywords.size());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOG.error("Could not load semantic cache from {} : {}", file, ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            // File is written again on shutdown.
+            FileUtils.deleteQuietly(file);
+        }
+    }
+
+    private <V extends Serializable> void putAll(Cache<String, CachedValue<V>> cache, Map<String, CachedValue<V>> values) {
+        long ttl = TimeUnit.HOURS.toMillis(this.ttlHours);
+        values.forEach((key, value) -> {
+            if (!value.isExpired(ttl)) {
+                cache.put(key, value);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics(metrics, PREFIX + "assetid.", this.assetIds);
+        metrics(metrics, PREFIX + "keywords.", this.keywords);
+        return metrics;
+    }
+
+    private void metrics(List<Metric<?>> metrics, String prefix, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        metrics.add(new Metric<>(prefix + "hit", stats.hitCount()));
+        metrics.add(new Metric<>(prefix + "miss", stats.missCount()));
+        metrics.add(new Metric<>(prefix + "eviction", stats.evictionCount()));
+        metrics.add(new Metric<>(prefix + "size", cache.size()));
+    }
+
+    /**
+     * Cached value with its load time
+     */
+    private static class CachedValue<V extends Serializable> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final V value;
+
+        private final long created;
+
+        private CachedValue(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+
+        private boolean isExpired(long ttl) {
+            return System.currentTimeMillis() - this.created > ttl;
+        }
+    }
+}
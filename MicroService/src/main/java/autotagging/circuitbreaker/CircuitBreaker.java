@@ -0,0 +1,171 @@
+package de.funkedigital.autotagging.circuitbreaker;
+
+import de.funkedigital.autotagging.enums.CircuitStateEnum;
+import de.funkedigital.autotagging.enums.UpstreamEnum;
+import de.funkedigital.autotagging.exceptions.CircuitOpenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker of an {@link UpstreamEnum}.
+ * <p>
+ * ----> {@link CircuitStateEnum#Closed} : calls are permitted, after failureThreshold consecutive failures
+ * the circuit is opened
+ * ----> {@link CircuitStateEnum#Open} : calls are rejected with {@link CircuitOpenException} for openMillis
+ * ----> {@link CircuitStateEnum#HalfOpen} : once openMillis have elapsed, halfOpenProbes calls are permitted.
+ * A successful probe closes the circuit, a failed probe opens it again.
+ * <p>
+ * Every permitted call ({@link #acquire()}) has to end with {@link #onSuccess()} or {@link #onFailure()}.
+ *
+ * @author sraj
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final UpstreamEnum upstream;
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private final int halfOpenProbes;
+
+    private CircuitStateEnum state = CircuitStateEnum.Closed;
+
+    // Consecutive failures while closed
+    private int failures;
+
+    // Probes in progress while half open
+    private int probes;
+
+    private long openedAt;
+
+    private long opened;
+
+    private long rejected;
+
+    public CircuitBreaker(UpstreamEnum upstream, int failureThreshold, long openMillis, int halfOpenProbes) {
+        this.upstream = upstream;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    public UpstreamEnum getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * Permit a call to upstream, or reject it while the circuit is open.
+     *
+     * @throws CircuitOpenException if the circuit is open, or half open with all probes in progress
+     */
+    public synchronized void acquire() {
+        if (this.state == CircuitStateEnum.Open) {
+            long wait = this.openedAt + this.openMillis - System.currentTimeMillis();
+            if (wait > 0) {
+                this.rejected++;
+                throw new CircuitOpenException(this.upstream,
+                        String.format("Circuit of %s is open, retry in %d ms", this.upstream, wait));
+            }
+            LOG.info("Circuit of {} is half open, probing upstream", this.upstream);
+            this.state = CircuitStateEnum.HalfOpen;
+            this.probes = 0;
+        }
+        if (this.state == CircuitStateEnum.HalfOpen) {
+            if (this.probes >= this.halfOpenProbes) {
+                this.rejected++;
+                throw new CircuitOpenException(this.upstream,
+                        String.format("Circuit of %s is half open, probe in progress", this.upstream));
+            }
+            this.probes++;
+        }
+    }
+
+    /**
+     * The permitted call succeeded, or failed without upstream being down (eg. article not found).
+     */
+    public synchronized void onSuccess() {
+        this.failures = 0;
+        if (this.state == CircuitStateEnum.HalfOpen) {
+            LOG.info("Circuit of {} is closed", this.upstream);
+            this.state = CircuitStateEnum.Closed;
+            this.probes = 0;
+        }
+    }
+
+    /**
+     * The permitted call failed because upstream is down.
+     */
+    public synchronized void onFailure() {
+        if (this.state == CircuitStateEnum.HalfOpen) {
+            open();
+        } else if (this.state == CircuitStateEnum.Closed && ++this.failures >= this.failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        LOG.warn("Circuit of {} is open for {} ms, after {} failures", this.upstream, this.openMillis, this.failures);
+        this.state = CircuitStateEnum.Open;
+        this.openedAt = System.currentTimeMillis();
+        this.failures = 0;
+        this.probes = 0;
+        this.opened++;
+    }
+
+    /**
+     * Whether the circuit rejects calls right now, ie. it is open and openMillis have not elapsed yet.
+     *
+     * @return true, if calls are rejected
+     */
+    public synchronized boolean isOpen() {
+        return this.state == CircuitStateEnum.Open && System.currentTimeMillis() - this.openedAt < this.openMillis;
+    }
+
+    public synchronized CircuitStateEnum getState() {
+        return state;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    public synchronized long getOpened() {
+        return opened;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Time the circuit was opened last.
+     *
+     * @return time, null if it never opened
+     */
+    public synchronized Date getOpenedAt() {
+        return this.opened == 0 ? null : new Date(this.openedAt);
+    }
+
+    /**
+     * Details of circuit breaker
+     *
+     * @return state, failures, opened, rejected and openedAt
+     */
+    public synchronized Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", this.state);
+        details.put("failures", this.failures);
+        details.put("failureThreshold", this.failureThreshold);
+        details.put("opened", this.opened);
+        details.put("rejected", this.rejected);
+        details.put("openedAt", getOpenedAt());
+        return details;
+    }
+}
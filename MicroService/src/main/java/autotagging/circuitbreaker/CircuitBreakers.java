@@ -0,0 +1,173 @@
+package de.funkedigital.autotagging.circuitbreaker;
+
+import de.funkedigital.autotagging.enums.UpstreamEnum;
+import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link CircuitBreaker} of every {@link UpstreamEnum}, shared by all publications.
+ * <p>
+ * Requests to upstream services are guarded with {@link #call(UpstreamEnum, Supplier)}, results served
+ * from {@link de.funkedigital.autotagging.cache.SemanticResultCache} do not reach the circuit. Only
+ * failures with server error status, {@link #isFailure(Throwable)}, count, an article which can not be
+ * processed does not open the circuit.
+ * <p>
+ * Metrics, prefix is circuit.[name]
+ * ----> state : 0 closed, 1 open, 2 half open
+ * ----> failures : consecutive failures while closed
+ * ----> opened : times the circuit was opened
+ * ----> rejected : calls rejected while open
+ *
+ * @author sraj
+ */
+@Component
+public class CircuitBreakers implements PublicMetrics {
+
+    private static final String PREFIX = "circuit.";
+
+    /**
+     * Disable to call upstream services always
+     */
+    @Value("${circuit.breaker.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Consecutive failures which open the circuit
+     */
+    @Value("${circuit.breaker.failure.threshold:5}")
+    private int failureThreshold;
+
+    /**
+     * Time the circuit stays open before it is probed
+     */
+    @Value("${circuit.breaker.open.millis:30000}")
+    private long openMillis;
+
+    /**
+     * Calls permitted at once while half open
+     */
+    @Value("${circuit.breaker.half.open.probes:1}")
+    private int halfOpenProbes;
+
+    private final Map<UpstreamEnum, CircuitBreaker> breakers = new EnumMap<>(UpstreamEnum.class);
+
+    @PostConstruct
+    public void init() {
+        for (UpstreamEnum upstream : UpstreamEnum.values()) {
+            breakers.put(upstream, new CircuitBreaker(upstream, this.failureThreshold, this.openMillis,
+                    this.halfOpenProbes));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CircuitBreaker get(UpstreamEnum upstream) {
+        return breakers.get(upstream);
+    }
+
+    public Collection<CircuitBreaker> getBreakers() {
+        return breakers.values();
+    }
+
+    /**
+     * Send the request to upstream service through its circuit, the result of request closes the circuit
+     * or counts as failure.
+     *
+     * @param upstream upstream service the request is sent to
+     * @param request  request to upstream service
+     * @return result of request
+     * @throws de.funkedigital.autotagging.exceptions.CircuitOpenException if the circuit is open
+     */
+    public <T> T call(UpstreamEnum upstream, Supplier<T> request) {
+        if (!this.enabled) {
+            return request.get();
+        }
+        CircuitBreaker breaker = breakers.get(upstream);
+        breaker.acquire();
+        try {
+            T result = request.get();
+            breaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (isFailure(e)) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * First upstream whose circuit rejects calls right now, workers pause while there is one.
+     *
+     * @return {@link UpstreamEnum} with open circuit, null if all are permitted
+     */
+    public UpstreamEnum getOpenUpstream() {
+        if (!this.enabled) {
+            return null;
+        }
+        for (CircuitBreaker breaker : breakers.values()) {
+            if (breaker.isOpen()) {
+                return breaker.getUpstream();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the exception of call means the upstream is down, ie. server error status or no
+     * response at all, which the clients report as {@link org.springframework.http.HttpStatus#SERVICE_UNAVAILABLE}.
+     *
+     * @param th exception of call
+     * @return true, if it counts as failure of circuit
+     */
+    public static boolean isFailure(Throwable th) {
+        return th instanceof AutoTaggingException && ((AutoTaggingException) th).getStatus() != null
+                && ((AutoTaggingException) th).getStatus().is5xxServerError();
+    }
+
+    /**
+     * Details of all circuit breakers, for {@link de.funkedigital.autotagging.endpoints.CircuitBreakerEndpoint}
+     *
+     * @return details per upstream
+     */
+    public Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", this.enabled);
+        for (CircuitBreaker breaker : breakers.values()) {
+            details.put(breaker.getUpstream().name(), breaker.getDetails());
+        }
+        return details;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (CircuitBreaker breaker : breakers.values()) {
+            String circuit = PREFIX + breaker.getUpstream().name().toLowerCase() + ".";
+            metrics.add(new Metric<>(circuit + "state", breaker.getState().ordinal()));
+            metrics.add(new Metric<>(circuit + "failures", breaker.getFailures()));
+            metrics.add(new Metric<>(circuit + "opened", breaker.getOpened()));
+            metrics.add(new Metric<>(circuit + "rejected", breaker.getRejected()));
+        }
+        return metrics;
+    }
+}
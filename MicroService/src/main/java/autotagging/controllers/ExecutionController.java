@@ -1,5 +1,6 @@
 package de.funkedigital.autotagging.controllers;
 
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
 import de.funkedigital.autotagging.entities.web.Articles;
 import de.funkedigital.autotagging.entities.web.Detail;
 import de.funkedigital.autotagging.entities.web.DetailForm;
@@ -67,10 +68,10 @@ public class ExecutionController {
     private ExecutionService executionService;
 
     /**
-     * Path of resource folder
+     * Autowired Instance of {@link CircuitBreakers}
      */
     @Autowired
-    private String resourcePath;
+    private CircuitBreakers circuitBreakers;
 
 
     /**
@@ -109,10 +110,12 @@ public class ExecutionController {
     @RequestMapping("/details")
     public String details(Model model) {
         LOG.debug("Running details {}", Thread.currentThread().getName());
-        List<Detail> details = executionService.getDetails();
+        List<Detail> details = executionService.getDetails(articlesServices);
         // Preparing response body
         DetailForm detailForm = new DetailForm(details);
         model.addAttribute("detailForm", detailForm);
+        // State of upstream services
+        model.addAttribute("circuitBreakers", circuitBreakers.getBreakers());
         return "auto-tagging-details";
     }
 
@@ -196,7 +199,7 @@ public class ExecutionController {
             articles = executionService.getArticleDetails(requestedPub, requestedRepo, article);
             size = articles.size();
         } else {
-            articles = executionService.getFailSafeArticleDetails(requestedPub, requestedRepo, this.resourcePath);
+            articles = executionService.getFailSafeArticleDetails(requestedPub, requestedRepo);
             // We append some extra objects so for size we substract them
             if(requestedRepo == RepositoryEnum.Failed) {
                 size = articles.size() - 2;
@@ -3,6 +3,7 @@ package de.funkedigital.autotagging.controllers;
 import de.funkedigital.autotagging.entities.repo.PublicationEntity;
 import de.funkedigital.autotagging.entities.repo.ScheduleEntity;
 import de.funkedigital.autotagging.enums.ServiceEnum;
+import de.funkedigital.autotagging.enums.TriggerModeEnum;
 import de.funkedigital.autotagging.exceptions.AutoTaggingException;
 import de.funkedigital.autotagging.jobs.SchedulerJob;
 import de.funkedigital.autotagging.jobs.factory.SchedulerJobFactory;
@@ -12,10 +13,12 @@ import de.funkedigital.autotagging.services.FailedArticleService;
 import de.funkedigital.autotagging.services.LoadArticleService;
 import de.funkedigital.autotagging.services.PendingArticleService;
 import de.funkedigital.autotagging.services.factory.ServiceFactory;
+import de.funkedigital.autotagging.triggers.AdaptiveServiceTrigger;
 import de.funkedigital.autotagging.triggers.ServiceTrigger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -65,6 +68,30 @@ public class SchedulerController {
     @Autowired
     private PublicationRepository publicationRepository;
 
+    /**
+     * Trigger of {@link PendingArticleService}, {@link TriggerModeEnum}
+     */
+    @Value("${scheduler.trigger.mode:Fixed}")
+    private TriggerModeEnum triggerMode;
+
+    /**
+     * Shortest interval of {@link AdaptiveServiceTrigger} in milliseconds
+     */
+    @Value("${scheduler.trigger.floor.millis:250}")
+    private long triggerFloor;
+
+    /**
+     * Longest interval of {@link AdaptiveServiceTrigger} in milliseconds
+     */
+    @Value("${scheduler.trigger.ceiling.millis:60000}")
+    private long triggerCeiling;
+
+    /**
+     * Factor {@link AdaptiveServiceTrigger} shortens or backs off the interval with
+     */
+    @Value("${scheduler.trigger.factor:2}")
+    private int triggerFactor;
+
 
     /**
      * Get all the publications from {@link PublicationEntity}
@@ -158,7 +185,8 @@ public class SchedulerController {
         failedArticleService.setProperties(publication.getPublication());
         // Create SchedlureJob from factory
         SchedulerJob failedArticleJob = new SchedulerJobFactory(failedArticleService,
-                new ServiceTrigger(scheduleEntity.getDelay())).getObject();
+                new ServiceTrigger(scheduleEntity.getDelay()), ServiceEnum.FailedArticleService,
+                publication.getPublication()).getObject();
         // Star the execution of service.
         scheduleManager.start(failedArticleJob);
         // put in map
@@ -186,13 +214,28 @@ public class SchedulerController {
         pendingArticleService.setProperties(publication.getPublication());
         // Create Scheduler Job from factory
         SchedulerJob pendingArticleJob = new SchedulerJobFactory(pendingArticleService,
-                new ServiceTrigger(scheduleEntity.getDelay())).getObject();
+                pendingArticleTrigger(scheduleEntity.getDelay()), ServiceEnum.PendingArticleService,
+                publication.getPublication()).getObject();
         // Star the execution of service.
         scheduleManager.start(pendingArticleJob);
         services.put(key, pendingArticleJob);
     }
 
 
+    /**
+     * Trigger of {@link PendingArticleService}, as set with scheduler.trigger.mode
+     *
+     * @param delay interval of schedule in seconds
+     * @return {@link AdaptiveServiceTrigger} in {@link TriggerModeEnum#Adaptive} mode, else {@link ServiceTrigger}
+     */
+    private ServiceTrigger pendingArticleTrigger(int delay) {
+        if (this.triggerMode == TriggerModeEnum.Adaptive) {
+            return new AdaptiveServiceTrigger(delay, this.triggerFloor, this.triggerCeiling, this.triggerFactor);
+        }
+        return new ServiceTrigger(delay);
+    }
+
+
     /**
      * This method used to load Prototype instance of {@link LoadArticleService}
      * Given properties {@link SchedulerJob} and then start the service
@@ -213,7 +256,8 @@ public class SchedulerController {
         loadArticleService.setProperties(publication.getPropertyEntity().getSitemapFiles(), publication.getPublication());
         // Create SchedlureJob from factory
         SchedulerJob loadArticleJob = new SchedulerJobFactory(loadArticleService,
-                new ServiceTrigger(scheduleEntity.getDelay())).getObject();
+                new ServiceTrigger(scheduleEntity.getDelay()), ServiceEnum.LoadArticleService,
+                publication.getPublication()).getObject();
         // Star the execution of service.
         scheduleManager.start(loadArticleJob);
         services.put(key, loadArticleJob);
@@ -1,9 +1,13 @@
 package de.funkedigital.autotagging.controllers;
 
+import de.funkedigital.autotagging.entities.web.BulkRequest;
 import de.funkedigital.autotagging.entities.web.Request;
 import de.funkedigital.autotagging.entities.web.Response;
 import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import de.funkedigital.autotagging.exceptions.RejectedRequestException;
 import de.funkedigital.autotagging.semantic.services.SemanticService;
+import de.funkedigital.autotagging.services.AsyncWebService;
+import de.funkedigital.autotagging.services.BulkWebService;
 import de.funkedigital.autotagging.services.WebService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import java.util.Date;
 
@@ -45,6 +51,18 @@ public class WebController {
         this.service = service;
     }
 
+    /**
+     * Autowired instance of {@link AsyncWebService}
+     */
+    @Autowired
+    private AsyncWebService asyncService;
+
+    /**
+     * Autowired instance of {@link BulkWebService}
+     */
+    @Autowired
+    private BulkWebService bulkService;
+
 
     /**
      * This method gets keywords from Semantic service {@link WebService}
@@ -68,6 +86,53 @@ public class WebController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    /**
+     * Asynchronous version of {@link #getKeywords(Request)}, the servlet container thread is released
+     * while keywords are processed by {@link AsyncWebService}.
+     * <p>
+     * Responds with 429 (Too many requests) if the service is busy and with 504 (Gateway timeout) if the
+     * request is not completed in time.
+     *
+     * @param request Json request, same as {@link #getKeywords(Request)}
+     * @return Json Response {@link Response} with keyword populated
+     */
+    @RequestMapping("/async/")
+    public DeferredResult<ResponseEntity<Response>> getKeywordsAsync(@RequestBody Request request) {
+        LOG.debug("Running getKeywordsAsync {} : {}", request.toString(), Thread.currentThread().getName());
+        return this.asyncService.returnKeywords(request.getPublication(), request.getArticleUrl());
+    }
+
+    /**
+     * This method gets keywords of many articles of a publication, results are streamed back
+     * one {@link Response} per line (NDJSON) as they complete, url is in details.
+     *
+     * @param request Json request in form of
+     *                {
+     *                "publication": "bmo",
+     *                "articleUrls": ["https://www.morgenpost.de/.../article1.html", "..."]
+     *                }
+     * @return stream of {@link Response}
+     */
+    @RequestMapping("/bulk/")
+    public ResponseEntity<ResponseBodyEmitter> getKeywordsBulk(@RequestBody BulkRequest request) {
+        LOG.debug("Running getKeywordsBulk {} : {}", request.toString(), Thread.currentThread().getName());
+        return ResponseEntity.ok()
+                .contentType(BulkWebService.APPLICATION_NDJSON)
+                .body(this.bulkService.returnKeywords(request));
+    }
+
+    /**
+     * Exceptional handler for {@link RejectedRequestException}, status of exception is the response status
+     */
+    @ExceptionHandler(RejectedRequestException.class)
+    public final ResponseEntity<Response> handleRejectedException(RejectedRequestException ex, WebRequest request) {
+        LOG.warn("Request rejected : {} : {}", ex.getMessage(), Thread.currentThread().getName());
+        Response exceptionResponse = new Response(new Date(), ex.getMessage(),
+                request.getDescription(false), ex.getStatus()
+                , null);
+        return new ResponseEntity<>(exceptionResponse, ex.getStatus());
+    }
+
     /**
      * Exceptional handler for child exceptions of {@link AutoTaggingException}
      */
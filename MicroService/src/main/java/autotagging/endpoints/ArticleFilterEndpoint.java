@@ -0,0 +1,37 @@
+package de.funkedigital.autotagging.endpoints;
+
+import de.funkedigital.autotagging.cache.ArticleUrlFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint to show the size, false positive rate and rebuild time of {@link ArticleUrlFilter}
+ * <p>
+ * url : /actuator/articlefilter
+ *
+ * @author sraj
+ */
+@Component
+public class ArticleFilterEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    /**
+     * Autowired instance of {@link ArticleUrlFilter}
+     */
+    @Autowired
+    private ArticleUrlFilter articleUrlFilter;
+
+    public ArticleFilterEndpoint() {
+        super("articlefilter");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> invoke() {
+        return articleUrlFilter.getDetails();
+    }
+}
@@ -0,0 +1,37 @@
+package de.funkedigital.autotagging.endpoints;
+
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint to show the state, failures and rejected calls of {@link CircuitBreakers}
+ * <p>
+ * url : /actuator/circuitbreakers
+ *
+ * @author sraj
+ */
+@Component
+public class CircuitBreakerEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    /**
+     * Autowired instance of {@link CircuitBreakers}
+     */
+    @Autowired
+    private CircuitBreakers circuitBreakers;
+
+    public CircuitBreakerEndpoint() {
+        super("circuitbreakers");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> invoke() {
+        return circuitBreakers.getDetails();
+    }
+}
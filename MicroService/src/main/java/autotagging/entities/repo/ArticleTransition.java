@@ -0,0 +1,69 @@
+package de.funkedigital.autotagging.entities.repo;
+
+/**
+ * Move of an article from {@link PendingArticleEntity} to {@link ExecutedArticleEntity} or
+ * {@link FailedArticleEntity}.
+ * <p>
+ * Exactly one of executed and failed is set, pending is null if the article was not pending (eg. web request).
+ */
+public class ArticleTransition {
+
+    private final PendingArticleEntity pendingArticle;
+
+    private final ExecutedArticleEntity executedArticle;
+
+    private final FailedArticleEntity failedArticle;
+
+    // Record of quota is reserved for the article, released once the transition is written
+    private boolean quotaReserved;
+
+    private ArticleTransition(PendingArticleEntity pendingArticle, ExecutedArticleEntity executedArticle,
+                              FailedArticleEntity failedArticle) {
+        this.pendingArticle = pendingArticle;
+        this.executedArticle = executedArticle;
+        this.failedArticle = failedArticle;
+    }
+
+    public static ArticleTransition executed(PendingArticleEntity pendingArticle, String publication,
+                                             String assetId, String url) {
+        return new ArticleTransition(pendingArticle, new ExecutedArticleEntity(publication, assetId, url), null);
+    }
+
+    public static ArticleTransition failed(PendingArticleEntity pendingArticle, String publication, String url) {
+        return new ArticleTransition(pendingArticle, null, new FailedArticleEntity(publication, url));
+    }
+
+    public PendingArticleEntity getPendingArticle() {
+        return pendingArticle;
+    }
+
+    public ExecutedArticleEntity getExecutedArticle() {
+        return executedArticle;
+    }
+
+    public FailedArticleEntity getFailedArticle() {
+        return failedArticle;
+    }
+
+    public boolean isQuotaReserved() {
+        return quotaReserved;
+    }
+
+    public ArticleTransition setQuotaReserved(boolean quotaReserved) {
+        this.quotaReserved = quotaReserved;
+        return this;
+    }
+
+    public String getPublication() {
+        return executedArticle != null ? executedArticle.getPublication() : failedArticle.getPublication();
+    }
+
+    public String getUrl() {
+        return executedArticle != null ? executedArticle.getUrl() : failedArticle.getUrl();
+    }
+
+    @Override
+    public String toString() {
+        return (executedArticle != null ? "executed " + executedArticle : "failed " + failedArticle.toSaveString());
+    }
+}
@@ -0,0 +1,111 @@
+package de.funkedigital.autotagging.entities.repo;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Article of {@link FailedArticleEntity} which failed too often and is not retried anymore.
+ */
+@Entity
+@Table(name = "dead_articles")
+public class DeadArticleEntity {
+
+    private static final String separator = ",";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "publication")
+    private String publication;
+
+    @Column(name = "url")
+    private String url;
+
+    // Retries which failed
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "execution_date")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date executionDate;
+
+    public DeadArticleEntity() {
+    }
+
+    public DeadArticleEntity(String publication, String url, int attempts) {
+        this.publication = publication;
+        this.url = url;
+        this.attempts = attempts;
+        this.executionDate = Calendar.getInstance().getTime();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPublication() {
+        return publication;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Date getExecutionDate() {
+        return executionDate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return publication + separator + url + separator + attempts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+
+        if (!(o instanceof DeadArticleEntity)) return false;
+
+        DeadArticleEntity that = (DeadArticleEntity) o;
+
+        return new EqualsBuilder()
+                .append(id, that.id)
+                .append(publication, that.publication)
+                .append(url, that.url)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(id)
+                .append(publication)
+                .append(url)
+                .toHashCode();
+    }
+}
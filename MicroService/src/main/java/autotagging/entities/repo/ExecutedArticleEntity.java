@@ -82,6 +82,29 @@ public class ExecutedArticleEntity {
         return null;
     }
 
+    /**
+     * Fields of fail-safe journal record, urls may contain the separator
+     */
+    public String[] toRecord() {
+        return new String[]{publication, assetId, url};
+    }
+
+    /**
+     * Read the fail-safe journal record, records of one field are lines of previous fail-safe files.
+     */
+    public ExecutedArticleEntity fromRecord(String[] record) {
+        if (record.length == 1) {
+            return fromString(record[0]);
+        }
+        if (record.length == 3) {
+            this.publication = record[0];
+            this.assetId = record[1];
+            this.url = record[2];
+            return this;
+        }
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -35,6 +35,15 @@ public class FailedArticleEntity {
     @Temporal(TemporalType.TIMESTAMP)
     private java.util.Date executionDate;
 
+    // Retries which failed already
+    @Column(name = "attempts")
+    private int attempts;
+
+    // Article is not retried before, null to retry right away
+    @Column(name = "next_attempt_date")
+    @Temporal(TemporalType.TIMESTAMP)
+    private java.util.Date nextAttemptDate;
+
     public FailedArticleEntity() {
     }
 
@@ -60,6 +69,14 @@ public class FailedArticleEntity {
         return executionDate;
     }
 
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public java.util.Date getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
     public String toSaveString() {
         return publication + separator + url;
     }
@@ -91,6 +108,51 @@ public class FailedArticleEntity {
         return null;
     }
 
+    /**
+     * Fields of fail-safe journal record of save, urls may contain the separator
+     */
+    public String[] toSaveRecord() {
+        return new String[]{publication, url};
+    }
+
+    /**
+     * Fields of fail-safe journal record of delete, urls may contain the separator
+     */
+    public String[] toDeleteRecord() {
+        return new String[]{String.valueOf(id), publication, url};
+    }
+
+    /**
+     * Read the fail-safe journal record of save, records of one field are lines of previous fail-safe files.
+     */
+    public FailedArticleEntity fromSaveRecord(String[] record) {
+        if (record.length == 1) {
+            return fromSaveString(record[0]);
+        }
+        if (record.length == 2) {
+            this.publication = record[0];
+            this.url = record[1];
+            return this;
+        }
+        return null;
+    }
+
+    /**
+     * Read the fail-safe journal record of delete, records of one field are lines of previous fail-safe files.
+     */
+    public FailedArticleEntity fromDeleteRecord(String[] record) {
+        if (record.length == 1) {
+            return fromDeleteString(record[0]);
+        }
+        if (record.length == 3) {
+            this.id = Long.valueOf(record[0]);
+            this.publication = record[1];
+            this.url = record[2];
+            return this;
+        }
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -71,7 +71,30 @@ public class PendingArticleEntity {
         if (record.length == len) {
             this.id = Long.valueOf(record[0].trim());
             this.publication = record[1].trim();
-            this.url = record[3].trim();
+            this.url = record[2].trim();
+            return this;
+        }
+        return null;
+    }
+
+    /**
+     * Fields of fail-safe journal record, urls may contain the separator
+     */
+    public String[] toRecord() {
+        return new String[]{String.valueOf(id), publication, url};
+    }
+
+    /**
+     * Read the fail-safe journal record, records of one field are lines of previous fail-safe files.
+     */
+    public PendingArticleEntity fromRecord(String[] record) {
+        if (record.length == 1) {
+            return fromString(record[0]);
+        }
+        if (record.length == 3) {
+            this.id = Long.valueOf(record[0]);
+            this.publication = record[1];
+            this.url = record[2];
             return this;
         }
         return null;
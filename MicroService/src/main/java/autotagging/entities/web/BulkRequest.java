@@ -0,0 +1,52 @@
+package de.funkedigital.autotagging.entities.web;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request of bulk keyword endpoint, many article urls of one publication
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "publication",
+        "articleUrls"
+})
+public class BulkRequest {
+
+    @JsonProperty("publication")
+    private String publication;
+    @JsonProperty("articleUrls")
+    private List<String> articleUrls = new ArrayList<>();
+
+    @JsonProperty("publication")
+    public String getPublication() {
+        return publication;
+    }
+
+    @JsonProperty("publication")
+    public void setPublication(String publication) {
+        this.publication = publication;
+    }
+
+    @JsonProperty("articleUrls")
+    public List<String> getArticleUrls() {
+        return articleUrls;
+    }
+
+    @JsonProperty("articleUrls")
+    public void setArticleUrls(List<String> articleUrls) {
+        this.articleUrls = articleUrls;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("publication", publication)
+                .append("articleUrls", articleUrls == null ? 0 : articleUrls.size()).toString();
+    }
+}
@@ -10,6 +10,9 @@ public class ScheduleDetail {
 
     private boolean enable;
 
+    // Interval the next run is triggered with in milliseconds, null if the service is not running
+    private Long currentInterval;
+
     public ScheduleDetail(){
 
     }
@@ -43,4 +46,12 @@ public class ScheduleDetail {
     public boolean isEnable() {
         return enable;
     }
+
+    public Long getCurrentInterval() {
+        return currentInterval;
+    }
+
+    public void setCurrentInterval(Long currentInterval) {
+        this.currentInterval = currentInterval;
+    }
 }
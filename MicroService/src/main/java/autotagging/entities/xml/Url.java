@@ -19,4 +19,12 @@ public class Url {
     public void setLoc(String loc) {
         this.loc = loc;
     }
+
+    public String getLastmod() {
+        return lastmod;
+    }
+
+    public void setLastmod(String lastmod) {
+        this.lastmod = lastmod;
+    }
 }
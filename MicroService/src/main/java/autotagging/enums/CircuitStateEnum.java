@@ -0,0 +1,17 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the states of {@link de.funkedigital.autotagging.circuitbreaker.CircuitBreaker}
+ * of an {@link UpstreamEnum}.
+ */
+public enum CircuitStateEnum {
+
+    // Calls go to upstream, consecutive failures are counted
+    Closed,
+
+    // Calls are rejected with CircuitOpenException until circuit.breaker.open.millis have elapsed
+    Open,
+
+    // Open time elapsed, circuit.breaker.half.open.probes calls probe the upstream, the rest is rejected
+    HalfOpen
+}
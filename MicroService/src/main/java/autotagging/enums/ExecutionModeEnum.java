@@ -0,0 +1,22 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the modes {@link de.funkedigital.autotagging.services.PendingArticleService}
+ * processes pending articles with.
+ * <p>
+ * Set with pending.article.execution.mode in application.yaml
+ */
+public enum ExecutionModeEnum {
+
+    // One article per run, on the scheduler thread
+    Sequential,
+
+    // A batch of articles per run, processed concurrently with a bounded number of threads per publication
+    Parallel,
+
+    // Unicorn, Semantic and Escenic calls as stages of a pipeline, every stage with own threads
+    Pipeline,
+
+    // A batch of articles per run, every article on own virtual thread (JDK 21 and later), calls limited per upstream
+    Virtual
+}
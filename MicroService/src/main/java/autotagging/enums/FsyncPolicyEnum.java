@@ -0,0 +1,18 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the policies the fail-safe journal forces its records to disk with.
+ * <p>
+ * Set with failsafe.journal.fsync.policy in application.yaml
+ */
+public enum FsyncPolicyEnum {
+
+    // Force every group commit before the writers return, no record is lost on power failure
+    Always,
+
+    // Force every failsafe.journal.fsync.interval milliseconds, records of the last interval may be lost
+    Interval,
+
+    // Leave it to the operating system, records survive a crash of the application only
+    Never
+}
@@ -0,0 +1,20 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the results of a run of service, the
+ * {@link de.funkedigital.autotagging.triggers.AdaptiveServiceTrigger} adapts the interval to them.
+ */
+public enum RunResultEnum {
+
+    // Full batch was processed, more records are probably waiting
+    Backlog,
+
+    // Less than a full batch was processed, backlog is drained
+    Processed,
+
+    // Nothing to process, or nothing can be processed (eg. quota of month exceeded)
+    Empty,
+
+    // Processing failed, database or upstream services are down
+    Failed
+}
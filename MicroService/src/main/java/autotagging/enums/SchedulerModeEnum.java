@@ -0,0 +1,16 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the modes jobs of {@link ServiceEnum} are scheduled with, by
+ * {@link de.funkedigital.autotagging.scheduler.SchedulerPools}.
+ * <p>
+ * Set with scheduler.pool.mode in application.yaml
+ */
+public enum SchedulerModeEnum {
+
+    // Jobs of all services share the threads of scheduler.pool.size
+    Shared,
+
+    // Every service has a pool of own threads, a slow service does not delay the others
+    Service
+}
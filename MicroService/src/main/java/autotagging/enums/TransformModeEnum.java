@@ -0,0 +1,16 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the modes {@link de.funkedigital.autotagging.escenic.services.EscenicService}
+ * updates the Escenic entry with.
+ * <p>
+ * Set with escenic.transform.mode in application.yaml
+ */
+public enum TransformModeEnum {
+
+    // Parse the entry to Jsoup document, update and serialize it
+    Dom,
+
+    // Copy the entry with StAX and update only keywords and app:control, see EscenicEntryTransformer
+    Streaming
+}
@@ -0,0 +1,16 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the modes the next run of {@link ServiceEnum#PendingArticleService} is triggered with.
+ * <p>
+ * Set with scheduler.trigger.mode in application.yaml
+ */
+public enum TriggerModeEnum {
+
+    // Fixed interval of schedule, see de.funkedigital.autotagging.triggers.ServiceTrigger
+    Fixed,
+
+    // Interval shortened while there is backlog, backed off on empty queue or errors,
+    // see de.funkedigital.autotagging.triggers.AdaptiveServiceTrigger
+    Adaptive
+}
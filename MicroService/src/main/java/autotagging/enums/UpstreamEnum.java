@@ -0,0 +1,17 @@
+package de.funkedigital.autotagging.enums;
+
+/**
+ * This enum contains the upstream services an article is processed with, calls to them are limited
+ * per upstream by {@link de.funkedigital.autotagging.services.UpstreamLimiter}.
+ */
+public enum UpstreamEnum {
+
+    // POST of article url, {@link de.funkedigital.autotagging.semantic.services.UnicornService}
+    Unicorn,
+
+    // GET of keywords, {@link de.funkedigital.autotagging.semantic.services.SemanticService}
+    Semantic,
+
+    // GET and PUT of article, {@link de.funkedigital.autotagging.escenic.services.EscenicService}
+    Escenic
+}
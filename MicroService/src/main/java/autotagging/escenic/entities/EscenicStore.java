@@ -6,6 +6,9 @@ public class EscenicStore {
 
     private Document document;
 
+    // Raw entry, used instead of document in streaming mode
+    private byte[] content;
+
     private String eTag;
 
     public EscenicStore(Document document, String eTag) {
@@ -13,6 +16,11 @@ public class EscenicStore {
         this.eTag = eTag;
     }
 
+    public EscenicStore(byte[] content, String eTag) {
+        this.content = content;
+        this.eTag = eTag;
+    }
+
     public void setDocument(Document document) {
         this.document = document;
     }
@@ -21,6 +29,14 @@ public class EscenicStore {
         return document;
     }
 
+    public byte[] getContent() {
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
     public String geteTag() {
         return eTag;
     }
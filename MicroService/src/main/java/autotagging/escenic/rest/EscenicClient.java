@@ -1,30 +1,103 @@
 package de.funkedigital.autotagging.escenic.rest;
 
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.enums.UpstreamEnum;
 import de.funkedigital.autotagging.escenic.entities.EscenicStore;
 import de.funkedigital.autotagging.escenic.exceptions.EscenicClientException;
+import de.funkedigital.autotagging.http.LatencyHistogram;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.jsoup.Connection;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Entities;
 import org.jsoup.parser.Parser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.validation.constraints.NotNull;
-import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * {@link Jsoup} rest client to interact with Escenic web-service
+ * Rest client to interact with Escenic web-service.
+ * <p>
+ * Requests are sent with the pooled {@link CloseableHttpClient} of
+ * {@link de.funkedigital.autotagging.http.HttpClientConfig}, so the connection of GET is reused by PUT
+ * and by next articles. Response body is parsed with {@link Jsoup}.
+ * <p>
+ * Latency of GET and PUT requests is recorded in {@link LatencyHistogram} and shown on /actuator/metrics
+ * as escenic.client.get.latency.* and escenic.client.put.latency.*
  *
  * @author sraj
  */
 @Component
-public class EscenicClient {
+public class EscenicClient implements PublicMetrics {
 
+    /**
+     * Milliseconds to establish a connection to Escenic
+     */
+    @Value("${escenic.client.connect.timeout:5000}")
+    private int connectTimeout;
+
+    /**
+     * Milliseconds to wait for data from Escenic
+     */
+    @Value("${escenic.client.read.timeout:30000}")
+    private int readTimeout;
+
+    /**
+     * Milliseconds to wait for a connection from the pool
+     */
+    @Value("${escenic.client.pool.timeout:5000}")
+    private int poolTimeout;
+
+    /**
+     * Autowired instance of pooled {@link CloseableHttpClient}
+     */
+    @Autowired
+    private CloseableHttpClient httpClient;
+
+    /**
+     * Autowired instance of {@link CircuitBreakers}
+     */
+    @Autowired
+    private CircuitBreakers circuitBreakers;
+
+    private RequestConfig requestConfig;
+
+    private final LatencyHistogram getLatency = new LatencyHistogram();
+
+    private final LatencyHistogram putLatency = new LatencyHistogram();
+
+    @PostConstruct
+    public void init() {
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(this.connectTimeout)
+                .setSocketTimeout(this.readTimeout)
+                .setConnectionRequestTimeout(this.poolTimeout)
+                .build();
+    }
 
     /**
      * This method is to get the document from Escenic web service
@@ -35,24 +108,38 @@ public class EscenicClient {
      * @return XML document fro escenic web service
      */
     public EscenicStore get(String login, String password, String url) {
-        // Connect through Jsoup and GET the data.
-
-        Connection.Response response = execute(login, url, null,
-                getHeaders(login, password), Connection.Method.GET);
-        // Same value is used in header "if-match" while put/post operation.
-        String eTag = response.header("Etag");
-        Document doc = null;
-        try (BufferedInputStream content = response.bodyStream()) {
-            // OS is the output setting of for XML file.
-            doc = Jsoup.parse(content, "UTF-8", url, Parser.xmlParser())
-                    .outputSettings(setOutputSetting());
-        } catch (Exception e) {
-            if (doc == null) {
+        return execute(login, new HttpGet(url), getHeaders(login, password), this.getLatency, response -> {
+            // Same value is used in header "if-match" while put/post operation.
+            Header eTag = response.getFirstHeader("Etag");
+            Document doc;
+            try (InputStream content = response.getEntity().getContent()) {
+                // OS is the output setting of for XML file.
+                doc = Jsoup.parse(content, "UTF-8", url, Parser.xmlParser())
+                        .outputSettings(setOutputSetting());
+            } catch (Exception e) {
                 throw new EscenicClientException("URL : " + url + " : " + ExceptionUtils.getRootCauseMessage(e)
                         , e, HttpStatus.NO_CONTENT);
             }
-        }
-        return new EscenicStore(doc, eTag);
+            return new EscenicStore(doc, eTag == null ? null : eTag.getValue());
+        });
+    }
+
+    /**
+     * This method is to get the raw entry from Escenic web service, without parsing it.
+     *
+     * @param login    user name to access Escenic.
+     * @param password Password to access escenic
+     * @param url      url of escenic web service
+     * @return entry from escenic web service as {@link EscenicStore#getContent()}
+     */
+    public EscenicStore getContent(String login, String password, String url) {
+        return execute(login, new HttpGet(url), getHeaders(login, password), this.getLatency, response -> {
+            Header eTag = response.getFirstHeader("Etag");
+            if (response.getEntity() == null) {
+                throw new EscenicClientException("URL : " + url + " : empty response", HttpStatus.NO_CONTENT);
+            }
+            return new EscenicStore(EntityUtils.toByteArray(response.getEntity()), eTag == null ? null : eTag.getValue());
+        });
     }
 
     /**
@@ -61,49 +148,84 @@ public class EscenicClient {
      * @param login    user name to access Escenic.
      * @param password Password to access escenic
      * @param url      url of escenic web service
-     * @param store    {@link EscenicStore} to contain Document and header
+     * @param store    {@link EscenicStore} to contain Document or content and header
      */
     public void put(String login, String password, String url, EscenicStore store) {
-        if (store.getDocument() == null || store.getDocument().html().isEmpty()) {
+        HttpPut put = new HttpPut(url);
+        if (store.getContent() != null && store.getContent().length > 0) {
+            // Entry rewritten in streaming mode
+            put.setEntity(new ByteArrayEntity(store.getContent()));
+        } else if (store.getDocument() != null && !store.getDocument().html().isEmpty()) {
+            put.setEntity(new StringEntity(store.getDocument().toString(), StandardCharsets.UTF_8));
+        } else {
             throw new EscenicClientException("Document can not be null/empty for PUT, (URL) : " + url
                     , HttpStatus.BAD_REQUEST);
         }
-        // Connect through Jsoup and PUT the data.
-        execute(login, url, store.getDocument(), putHeaders(login, password, store.geteTag()), Connection.Method.PUT);
+        execute(login, put, putHeaders(login, password, store.geteTag()), this.putLatency, response -> {
+            EntityUtils.consume(response.getEntity());
+            return null;
+        });
     }
 
     /**
-     * This method is used to put/post data on the webservice after processing
+     * This method is used to get/put data on the webservice, through the circuit of Escenic in
+     * {@link CircuitBreakers}
      *
-     * @param url     url of the document.
-     * @param doc     processed Doc, need to be pushed
+     * @param request request with url and body
      * @param headers Headers needed for the Posting/Putting the data.
-     * @param method  Whether you are performing POST/PUT/GET/etc {@link Connection.Method}
-     * @return The response {@link Connection.Response}
-     */
-    private Connection.Response execute(String login, String url, Document doc, Map<String, String> headers,
-                                        Connection.Method method) {
-        try {
-            Connection conn = Jsoup.connect(url).method(method)
-                    //ignoreContentType Only Application-XML/APPLICATION
-                    // mimetype is supported, for any other mimetype mark this as TRUE.
-                    .ignoreContentType(Boolean.TRUE);
-            // Set header
-            if (headers != null && !headers.isEmpty()) {
-                conn.headers(headers);
-            }
-            // Set body
-            if (doc != null && !doc.html().isEmpty()) {
-                conn.requestBody(doc.toString());
+     * @param latency {@link LatencyHistogram} of the method
+     * @param handler reads the response, called only for successful response
+     * @return result of handler
+     */
+    private <R> R execute(String login, HttpRequestBase request, Map<String, String> headers,
+                          LatencyHistogram latency, ResponseHandler<R> handler) {
+        request.setConfig(this.requestConfig);
+        // Set header
+        if (headers != null && !headers.isEmpty()) {
+            headers.forEach(request::setHeader);
+        }
+        return circuitBreakers.call(UpstreamEnum.Escenic, () -> {
+            long start = System.currentTimeMillis();
+            try {
+                return httpClient.execute(request, response -> {
+                    checkStatus(response, request);
+                    return handler.handleResponse(response);
+                });
+            } catch (EscenicClientException e) {
+                throw e;
+            } catch (Exception ie) {
+                throw new EscenicClientException("Could not execute '" + request.getMethod() + "' request for user '"
+                        + login + "' and url " + request.getURI() + " :" + ExceptionUtils.getRootCauseMessage(ie),
+                        ie, HttpStatus.SERVICE_UNAVAILABLE);
+            } finally {
+                latency.record(System.currentTimeMillis() - start);
             }
-            return conn.execute();
-        } catch (Exception ie) {
-            throw new EscenicClientException("Could not execute '" + method + "' request for user '" + login
-                    + "' and url " + url + " :" + ExceptionUtils.getRootCauseMessage(ie),
-                    ie, HttpStatus.BAD_REQUEST);
+        });
+    }
+
+    /**
+     * Error status of Escenic fails the request, as with {@link Jsoup}
+     */
+    private void checkStatus(HttpResponse response, HttpRequestBase request) {
+        int status = response.getStatusLine().getStatusCode();
+        if (status < 200 || status >= 400) {
+            // Server errors are reported as such, they count for the circuit breaker of Escenic
+            throw new EscenicClientException("HTTP error " + status + " while executing '" + request.getMethod()
+                    + "' request for url " + request.getURI(),
+                    status >= 500 ? HttpStatus.BAD_GATEWAY : HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>(this.getLatency.metrics("escenic.client.get.latency"));
+        metrics.addAll(this.putLatency.metrics("escenic.client.put.latency"));
+        return metrics;
+    }
+
     /**
      * This output setting is specific to parse the document from escenic.
      */
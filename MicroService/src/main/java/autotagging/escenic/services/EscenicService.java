@@ -1,10 +1,12 @@
 package de.funkedigital.autotagging.escenic.services;
 
+import de.funkedigital.autotagging.enums.TransformModeEnum;
 import de.funkedigital.autotagging.escenic.entities.EscenicStore;
 import de.funkedigital.autotagging.escenic.exceptions.EscenicServiceException;
 import de.funkedigital.autotagging.escenic.rest.EscenicClient;
 import de.funkedigital.autotagging.semantic.entities.UnicornStore;
 import de.funkedigital.autotagging.semantic.entities.json.Keyword;
+import de.funkedigital.autotagging.utils.EscenicEntryTransformer;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -16,9 +18,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
 
 /**
  * This class interacts with Escenic web service
+ * <p>
+ * With escenic.transform.mode=Dom (default) the entry is parsed to a Jsoup {@link Document}, with Streaming
+ * it is rewritten with {@link EscenicEntryTransformer}.
  *
  * @author sraj
  */
@@ -47,6 +55,12 @@ public class EscenicService {
     @Value("${escenic.tools.url}")
     private String url;
 
+    /**
+     * Mode of updating the entry, {@link TransformModeEnum}
+     */
+    @Value("${escenic.transform.mode:Dom}")
+    private TransformModeEnum transformMode;
+
     /**
      * Autowired instance of {@link EscenicClient}
      */
@@ -73,6 +87,10 @@ public class EscenicService {
                 , Thread.currentThread().getName());
         // Append article Id to url
         String contentUrl = String.format("%s%s", this.url, articleId);
+        if (this.transformMode == TransformModeEnum.Streaming) {
+            pushKeywordsStreaming(keywords, contentUrl);
+            return;
+        }
         // Get document
         EscenicStore store = escenicClient.get(login, password, contentUrl);
         Document document = store.getDocument();
@@ -107,6 +125,31 @@ public class EscenicService {
         }
     }
 
+    /**
+     * Streaming version of {@link #pushKeywords(String, String)}, the entry is rewritten with
+     * {@link EscenicEntryTransformer} without building a document.
+     *
+     * @param keywords   Keyword to be pushed
+     * @param contentUrl url of the entry
+     */
+    private void pushKeywordsStreaming(String keywords, String contentUrl) {
+        EscenicStore store = escenicClient.getContent(login, password, contentUrl);
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(store.getContent().length + keywords.length() + 64);
+        EscenicEntryTransformer.Result result = EscenicEntryTransformer.transform(
+                new ByteArrayInputStream(store.getContent()), entry, keywords);
+        if (result.isKeywordsFound()) {
+            if (result.isControlFound()) {
+                store.setContent(entry.toByteArray());
+                // Put the entry back to escenic
+                escenicClient.put(login, password, contentUrl, store);
+            } else {
+                throw new EscenicServiceException("Error occurred while silently updating elements,  "
+                        + "could not found 'app:control' element in " + contentUrl,
+                        HttpStatus.NOT_ACCEPTABLE);
+            }
+        }
+    }
+
     /**
      * Fetch elements using tag name from document.
      *
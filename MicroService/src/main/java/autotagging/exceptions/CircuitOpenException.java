@@ -0,0 +1,26 @@
+package de.funkedigital.autotagging.exceptions;
+
+import de.funkedigital.autotagging.enums.UpstreamEnum;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Circuit breaker of upstream service is open, the call is not sent to the upstream service.
+ * <p>
+ * Article is left as it is, it is processed once the circuit is closed again.
+ */
+public class CircuitOpenException extends AutoTaggingException {
+
+    private final UpstreamEnum upstream;
+
+    /**
+     * {@inheritDoc}
+     */
+    public CircuitOpenException(UpstreamEnum upstream, String message) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE);
+        this.upstream = upstream;
+    }
+
+    public UpstreamEnum getUpstream() {
+        return upstream;
+    }
+}
@@ -0,0 +1,18 @@
+package de.funkedigital.autotagging.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Monthly quota of semantic records is used up, article is not sent to semantic service.
+ * <p>
+ * Article is left as it is, it is processed once the quota is available again.
+ */
+public class QuotaExceededException extends AutoTaggingException {
+
+    /**
+     * {@inheritDoc}
+     */
+    public QuotaExceededException(String message) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,26 @@
+package de.funkedigital.autotagging.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Request was not processed, because the service is busy or the deadline of request passed.
+ * <p>
+ * Unlike other {@link AutoTaggingException}, the status is sent as HTTP status of the response,
+ * {@link HttpStatus#TOO_MANY_REQUESTS} or {@link HttpStatus#GATEWAY_TIMEOUT}
+ */
+public class RejectedRequestException extends AutoTaggingException {
+
+    /**
+     * {@inheritDoc}
+     */
+    public RejectedRequestException(String message, HttpStatus status) {
+        super(message, status);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public RejectedRequestException(String message, Throwable cause, HttpStatus status) {
+        super(message, cause, status);
+    }
+}
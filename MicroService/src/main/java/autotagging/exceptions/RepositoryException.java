@@ -2,12 +2,12 @@ package de.funkedigital.autotagging.exceptions;
 
 public class RepositoryException extends RuntimeException {
 
-    private String objectToString;
+    private String[] record;
 
     private String fileName;
 
-    public Object getObjectToString() {
-        return objectToString;
+    public String[] getRecord() {
+        return record;
     }
 
     public String getFileName() {
@@ -26,11 +26,13 @@ public class RepositoryException extends RuntimeException {
      *                {@link #getCause()} method).  (A <tt>null</tt> value is
      *                permitted, and indicates that the cause is nonexistent or
      *                unknown.)
+     * @param fileName fail-safe file of the record, "publication/file.txt"
+     * @param record   fields of the record written to fail-safe journal
      * @since 1.4
      */
-    public RepositoryException(String message, Throwable cause, String fileName, String objectToString) {
+    public RepositoryException(String message, Throwable cause, String fileName, String... record) {
         super(message, cause);
         this.fileName = fileName;
-        this.objectToString = objectToString;
+        this.record = record;
     }
 }
@@ -0,0 +1,136 @@
+package de.funkedigital.autotagging.http;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class configures the shared, pooled {@link CloseableHttpClient} for rest clients.
+ * <p>
+ * Connections are kept alive and reused per route (host), so TLS handshake is not done for every request.
+ * Idle and expired connections are closed in the background.
+ * <p>
+ * Pool usage and connection reuse are exposed on /actuator/metrics by {@link HttpClientMetrics}
+ *
+ * @author sraj
+ */
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Maximum connections of the pool
+     */
+    @Value("${http.client.max.total:50}")
+    private int maxTotal;
+
+    /**
+     * Maximum connections per route (host)
+     */
+    @Value("${http.client.max.per.route:20}")
+    private int maxPerRoute;
+
+    /**
+     * Milliseconds to establish a connection
+     */
+    @Value("${http.client.connect.timeout:5000}")
+    private int connectTimeout;
+
+    /**
+     * Milliseconds to wait for data (socket timeout)
+     */
+    @Value("${http.client.read.timeout:30000}")
+    private int readTimeout;
+
+    /**
+     * Milliseconds to wait for a connection from the pool
+     */
+    @Value("${http.client.pool.timeout:5000}")
+    private int poolTimeout;
+
+    /**
+     * Milliseconds a connection can be idle, before it is closed
+     */
+    @Value("${http.client.idle.timeout:30000}")
+    private long idleTimeout;
+
+    /**
+     * Milliseconds of inactivity, after which a connection is validated before reuse
+     */
+    @Value("${http.client.validate.after.inactivity:2000}")
+    private int validateAfterInactivity;
+
+    /**
+     * Counts connections and requests, for connection reuse metrics
+     */
+    @Bean
+    public HttpClientMetrics httpClientMetrics() {
+        return new HttpClientMetrics();
+    }
+
+    /**
+     * Pool of connections shared by all requests
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager httpConnectionManager(HttpClientMetrics httpClientMetrics) {
+        // Count every new connection, a reused one is not created again.
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = (route, config) -> {
+            httpClientMetrics.connectionCreated();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        };
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                        .build(),
+                connectionFactory);
+        connectionManager.setMaxTotal(this.maxTotal);
+        connectionManager.setDefaultMaxPerRoute(this.maxPerRoute);
+        connectionManager.setValidateAfterInactivity(this.validateAfterInactivity);
+        httpClientMetrics.setConnectionManager(connectionManager);
+        return connectionManager;
+    }
+
+    /**
+     * Pooled {@link CloseableHttpClient}
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                          HttpClientMetrics httpClientMetrics) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(this.connectTimeout)
+                        .setSocketTimeout(this.readTimeout)
+                        .setConnectionRequestTimeout(this.poolTimeout)
+                        .build())
+                .addInterceptorFirst(httpClientMetrics)
+                .evictExpiredConnections()
+                .evictIdleConnections(this.idleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * {@link ClientHttpRequestFactory} for {@link org.springframework.web.client.RestTemplate}, using
+     * pooled {@link CloseableHttpClient}
+     */
+    @Bean
+    public ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+}
@@ -0,0 +1,72 @@
+package de.funkedigital.autotagging.http;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of pooled http client, shown on /actuator/metrics
+ * <p>
+ * ----> http.client.pool.leased/available/pending/max : connections of the pool
+ * ----> http.client.requests : requests sent
+ * ----> http.client.connections.created : connections opened, every other request reused a connection
+ * ----> http.client.connections.reused : requests sent on a reused connection
+ *
+ * @author sraj
+ */
+public class HttpClientMetrics implements PublicMetrics, HttpRequestInterceptor {
+
+    private static final String PREFIX = "http.client.";
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong connectionsCreated = new AtomicLong();
+
+    private volatile PoolingHttpClientConnectionManager connectionManager;
+
+    void setConnectionManager(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    void connectionCreated() {
+        connectionsCreated.incrementAndGet();
+    }
+
+    /**
+     * Count the request, called by http client before sending it.
+     */
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        long sent = requests.get();
+        long created = connectionsCreated.get();
+        metrics.add(new Metric<>(PREFIX + "requests", sent));
+        metrics.add(new Metric<>(PREFIX + "connections.created", created));
+        metrics.add(new Metric<>(PREFIX + "connections.reused", Math.max(0, sent - created)));
+        if (this.connectionManager != null) {
+            PoolStats stats = this.connectionManager.getTotalStats();
+            metrics.add(new Metric<>(PREFIX + "pool.leased", stats.getLeased()));
+            metrics.add(new Metric<>(PREFIX + "pool.available", stats.getAvailable()));
+            metrics.add(new Metric<>(PREFIX + "pool.pending", stats.getPending()));
+            metrics.add(new Metric<>(PREFIX + "pool.max", stats.getMax()));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,74 @@
+package de.funkedigital.autotagging.http;
+
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of request latency in milliseconds, with fixed buckets. Recording is lock free,
+ * so it can be used from many threads.
+ * <p>
+ * Metrics, for prefix p
+ * ----> p.count, p.sum, p.max : number, total and maximum of latencies
+ * ----> p.le.[bound] : number of latencies less than or equal to bound (cumulative)
+ *
+ * @author sraj
+ */
+public class LatencyHistogram {
+
+    /**
+     * Upper bounds of buckets in milliseconds, latencies above the last bound are only in count.
+     */
+    private static final long[] BOUNDS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record one latency
+     *
+     * @param millis latency in milliseconds
+     */
+    public void record(long millis) {
+        count.increment();
+        sum.add(millis);
+        max.accumulateAndGet(millis, Math::max);
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (millis <= BOUNDS[i]) {
+                buckets[i].increment();
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param prefix prefix of metric names
+     * @return metrics of the histogram
+     */
+    public List<Metric<?>> metrics(String prefix) {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(prefix + ".count", count.sum()));
+        metrics.add(new Metric<>(prefix + ".sum", sum.sum()));
+        metrics.add(new Metric<>(prefix + ".max", max.get()));
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            cumulative += buckets[i].sum();
+            metrics.add(new Metric<>(prefix + ".le." + BOUNDS[i], cumulative));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,44 @@
+package de.funkedigital.autotagging.interceptors;
+
+import de.funkedigital.autotagging.cache.ArticleUrlFilter;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class intercepts the saves of executed and failed articles to keep {@link ArticleUrlFilter} up to date.
+ * <p>
+ * Url is added even if the save fails, as failed saves are written to fail-safe file and
+ * saved to database afterwards.
+ *
+ * @author sraj
+ */
+@Configuration
+@Aspect
+public class ArticleFilterInterceptor {
+
+    private static Logger LOG = LoggerFactory.getLogger(ArticleFilterInterceptor.class);
+
+    /**
+     * Autowired instance of {@link ArticleUrlFilter}
+     */
+    @Autowired
+    private ArticleUrlFilter articleUrlFilter;
+
+    @After(value = "execution(* de.funkedigital.autotagging.repositories.ExecutedArticleRepository.save(String, String, String))" +
+            " && args(publication, assetId, url)", argNames = "publication,assetId,url")
+    public void afterExecutedSave(String publication, String assetId, String url) {
+        LOG.debug("Running afterExecutedSave {} : {}", publication, url);
+        articleUrlFilter.put(publication, url);
+    }
+
+    @After(value = "execution(* de.funkedigital.autotagging.repositories.FailedArticleRepository.save(String, String))" +
+            " && args(publication, url)", argNames = "publication,url")
+    public void afterFailedSave(String publication, String url) {
+        LOG.debug("Running afterFailedSave {} : {}", publication, url);
+        articleUrlFilter.put(publication, url);
+    }
+}
@@ -1,8 +1,7 @@
 package de.funkedigital.autotagging.interceptors;
 
 import de.funkedigital.autotagging.exceptions.RepositoryException;
-import de.funkedigital.autotagging.utils.Constants;
-import org.apache.commons.io.FileUtils;
+import de.funkedigital.autotagging.journal.FailSafeJournalManager;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
@@ -10,14 +9,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 
-import java.io.File;
-import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * This class intercepts {@link RepositoryException} to maintain Fail-Safe operation.
  * <p>
  * This is used to intercept if somehow Database is down and CRUD operations are performed in that time.
- * so it saves the data for those operations in FILE and we process them after sometime.
+ * so it saves the data for those operations in {@link de.funkedigital.autotagging.journal.FailSafeJournal}
+ * and we process them after sometime.
  *
  * @author sraj
  */
@@ -28,24 +27,32 @@ public class FailSafeInterceptor {
     private static Logger LOG = LoggerFactory.getLogger(FailSafeInterceptor.class);
 
     /**
-     * Path of resource folder
+     * Autowired instance of {@link FailSafeJournalManager}
      */
     @Autowired
-    private String resourcePath;
-
+    private FailSafeJournalManager failSafeJournalManager;
 
     @AfterThrowing(pointcut = "execution(* de.funkedigital.autotagging.repositories..*(..)))",
             throwing = "rex")
     public void afterThrowing(RepositoryException rex) {
         LOG.debug("Running afterThrowing {} : {}", rex.getFileName(), Thread.currentThread().getName());
+        write(rex.getFileName(), rex.getRecord());
+    }
+
+    /**
+     * Append the record to fail-safe journal of file, the record is processed with the other records of
+     * journal afterwards.
+     * <p>
+     * Used directly for records which fail without {@link RepositoryException}, eg. batched writes.
+     *
+     * @param fileName file relative to resource folder, "publication/file.txt"
+     * @param record   fields of record
+     */
+    public void write(String fileName, String... record) {
         try {
-            File fileUrl = new File(this.resourcePath.concat(rex.getFileName()));
-            if (fileUrl != null) {
-                FileUtils.writeStringToFile(fileUrl, rex.getObjectToString() + "\n",
-                        Constants.STRING_ENCODING, Boolean.TRUE);
-            }
-        } catch (IOException ie) {
-            LOG.error("Failed to write data {} to file {}", rex.getObjectToString(), rex.getFileName());
+            failSafeJournalManager.get(fileName).append(record);
+        } catch (Exception e) {
+            LOG.error("Failed to write data {} to journal {}", Arrays.toString(record), fileName, e);
         }
     }
 }
@@ -0,0 +1,78 @@
+package de.funkedigital.autotagging.interceptors;
+
+import de.funkedigital.autotagging.services.QuotaService;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * This class intercepts the saves of executed and failed articles to count them in {@link QuotaService}.
+ * Articles which exist already are not saved and not counted.
+ * <p>
+ * Articles moved from pending articles are counted by
+ * {@link de.funkedigital.autotagging.repositories.ArticleTransitionRepository}, in the same transaction, and
+ * articles replayed from fail-safe journals by {@link de.funkedigital.autotagging.services.FailSafeReplayService}.
+ *
+ * @author sraj
+ */
+@Configuration
+@Aspect
+public class QuotaInterceptor {
+
+    private static Logger LOG = LoggerFactory.getLogger(QuotaInterceptor.class);
+
+    /**
+     * Autowired instance of {@link QuotaService}
+     */
+    @Autowired
+    private QuotaService quotaService;
+
+    @AfterReturning(value = "execution(* de.funkedigital.autotagging.repositories.ExecutedArticleRepository.save(String, String, String))" +
+            " && args(publication, assetId, url)", returning = "inserted", argNames = "publication,assetId,url,inserted")
+    public void afterExecutedSave(String publication, String assetId, String url, Future<Boolean> inserted) {
+        LOG.debug("Running afterExecutedSave {} : {}", publication, url);
+        if (isInserted(inserted)) {
+            increment(publication, 1, 0);
+        }
+    }
+
+    @AfterReturning(value = "execution(* de.funkedigital.autotagging.repositories.FailedArticleRepository.save(String, String))" +
+            " && args(publication, url)", returning = "inserted", argNames = "publication,url,inserted")
+    public void afterFailedSave(String publication, String url, Future<Boolean> inserted) {
+        LOG.debug("Running afterFailedSave {} : {}", publication, url);
+        if (isInserted(inserted)) {
+            increment(publication, 0, 1);
+        }
+    }
+
+    /**
+     * Result of save, the save is done when the interceptor runs on the thread of save.
+     */
+    private static boolean isInserted(Future<Boolean> inserted) {
+        try {
+            return inserted != null && Boolean.TRUE.equals(inserted.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private void increment(String publication, int executed, int failed) {
+        try {
+            quotaService.increment(publication, executed, failed);
+        } catch (Exception e) {
+            // Article is saved, counter is only behind.
+            LOG.error("Error occurred while counting article of {} : {}", publication,
+                    ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+}
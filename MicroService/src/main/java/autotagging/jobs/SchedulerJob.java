@@ -1,5 +1,6 @@
 package de.funkedigital.autotagging.jobs;
 
+import de.funkedigital.autotagging.enums.ServiceEnum;
 import de.funkedigital.autotagging.services.interfaces.ServiceInterface;
 import de.funkedigital.autotagging.triggers.ServiceTrigger;
 
@@ -11,11 +12,17 @@ public class SchedulerJob {
 
     private ServiceTrigger trigger;
 
+    private ServiceEnum serviceEnum;
+
+    private String publication;
+
     private ScheduledFuture<?> future;
 
-    public SchedulerJob(ServiceInterface service, ServiceTrigger trigger) {
+    public SchedulerJob(ServiceInterface service, ServiceTrigger trigger, ServiceEnum serviceEnum, String publication) {
         this.service = service;
         this.trigger = trigger;
+        this.serviceEnum = serviceEnum;
+        this.publication = publication;
     }
 
     public ServiceInterface getService() {
@@ -26,6 +33,14 @@ public class SchedulerJob {
         return trigger;
     }
 
+    public ServiceEnum getServiceEnum() {
+        return serviceEnum;
+    }
+
+    public String getPublication() {
+        return publication;
+    }
+
     public ScheduledFuture<?> getFuture() {
         return future;
     }
@@ -42,6 +57,8 @@ public class SchedulerJob {
         return "SchedulerJob{" +
                 "service=" + service.toString() +
                 ", trigger=" + trigger.toString() +
+                ", serviceEnum=" + serviceEnum +
+                ", publication='" + publication + '\'' +
                 '}';
     }
 }
@@ -1,6 +1,7 @@
 package de.funkedigital.autotagging.jobs.factory;
 
 
+import de.funkedigital.autotagging.enums.ServiceEnum;
 import de.funkedigital.autotagging.jobs.SchedulerJob;
 import de.funkedigital.autotagging.services.interfaces.ServiceInterface;
 import de.funkedigital.autotagging.triggers.ServiceTrigger;
@@ -29,9 +30,22 @@ public class SchedulerJobFactory implements FactoryBean<SchedulerJob> {
      */
     private ServiceTrigger trigger;
 
-    public SchedulerJobFactory(ServiceInterface service, ServiceTrigger trigger) {
+    /**
+     * Type of {@link #service}, selects the pool the job is scheduled on
+     */
+    private ServiceEnum serviceEnum;
+
+    /**
+     * Publication {@link #service} is executing for
+     */
+    private String publication;
+
+    public SchedulerJobFactory(ServiceInterface service, ServiceTrigger trigger, ServiceEnum serviceEnum,
+                               String publication) {
         this.service = service;
         this.trigger = trigger;
+        this.serviceEnum = serviceEnum;
+        this.publication = publication;
     }
 
     /**
@@ -39,7 +53,7 @@ public class SchedulerJobFactory implements FactoryBean<SchedulerJob> {
      */
     @Override
     public SchedulerJob getObject() {
-        return new SchedulerJob(service, trigger);
+        return new SchedulerJob(service, trigger, serviceEnum, publication);
     }
 
     /**
@@ -0,0 +1,605 @@
+package de.funkedigital.autotagging.journal;
+
+import de.funkedigital.autotagging.enums.FsyncPolicyEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of fail-safe records, records of repository operations failed because the database
+ * was not available. It replaces the text files, one journal per publication and fail-safe file.
+ * <p>
+ * ----> Journal is a directory of segments, 00000001.seg, 00000002.seg, ... A segment is rolled once it
+ * reaches the segment size, segments completely replayed are deleted.
+ * ----> Record is [length][crc32][payload], payload is [number of fields][length][utf-8 bytes] per field.
+ * Fields are written as they are, so urls with commas are read back unchanged.
+ * ----> Writers append concurrently. Records queued while another writer holds the channel are written by
+ * that writer with one gathering write and at most one fsync (group commit), see {@link FsyncPolicyEnum}.
+ * ----> Replay streams the records from the checkpoint, [segment][offset] of the first record not yet
+ * replayed, in chunks of replay chunk size. The checkpoint is moved after every chunk applied, so only a
+ * chunk is held in memory and a replay stopped by a crash resumes with the chunk it was applying.
+ * ----> On open, a record torn by a crash at the end of last segment is cut off.
+ *
+ * @author sraj
+ */
+public class FailSafeJournal implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FailSafeJournal.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    // length and crc32 of record
+    private static final int HEADER_SIZE = 8;
+
+    // Larger length can only be a corrupted header
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private final String name;
+
+    private final File directory;
+
+    private final long segmentSize;
+
+    private final FsyncPolicyEnum fsyncPolicy;
+
+    private final int replayChunkSize;
+
+    // Records waiting for group commit
+    private final Queue<Append> queue = new ConcurrentLinkedQueue<>();
+
+    // Held by the writer of group commit, and by replay while moving the checkpoint
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+
+    // Segment and end of last committed record, read by replay without lock
+    private volatile long segment;
+
+    private volatile long position;
+
+    // Checkpoint of replay
+    private volatile long checkpointSegment;
+
+    private volatile long checkpointOffset;
+
+    private volatile boolean dirty;
+
+    // Notified after records are appended
+    private volatile Runnable appendListener;
+
+    private final AtomicLong appended = new AtomicLong();
+
+    private final AtomicLong commits = new AtomicLong();
+
+    private final AtomicLong fsyncs = new AtomicLong();
+
+    private final AtomicLong replayed = new AtomicLong();
+
+    private final AtomicLong chunks = new AtomicLong();
+
+    /**
+     * Open the journal in directory, it is created if it does not exist.
+     *
+     * @param name            name of journal, for logs and metrics
+     * @param directory       directory of segments
+     * @param segmentSize     size a segment is rolled at
+     * @param fsyncPolicy     {@link FsyncPolicyEnum}
+     * @param replayChunkSize number of records replayed and checkpointed at once
+     * @throws IOException if journal can not be opened
+     */
+    public FailSafeJournal(String name, File directory, long segmentSize, FsyncPolicyEnum fsyncPolicy,
+                           int replayChunkSize) throws IOException {
+        this.name = name;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.replayChunkSize = replayChunkSize;
+        Files.createDirectories(directory.toPath());
+        readCheckpoint();
+        TreeSet<Long> segments = segments();
+        long last = segments.isEmpty() ? Math.max(1, this.checkpointSegment) : segments.last();
+        this.channel = FileChannel.open(segmentPath(last), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        this.segment = last;
+        this.position = recover(this.channel);
+        this.channel.position(this.position);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Append the record, it returns once the record is written (and forced with {@link FsyncPolicyEnum#Always}).
+     *
+     * @param fields fields of record, null fields are read back as null
+     * @throws IOException if record can not be written
+     */
+    public void append(String... fields) throws IOException {
+        Append append = new Append(encode(fields));
+        queue.add(append);
+        lock.lock();
+        try {
+            // Another writer may have committed this record with its group already.
+            if (!append.done) {
+                commit();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (append.error != null) {
+            throw append.error;
+        }
+        Runnable listener = this.appendListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Set the listener notified after every append, it runs on the thread of writer so it should only
+     * take a note of it.
+     *
+     * @param appendListener listener of appends
+     */
+    public void setAppendListener(Runnable appendListener) {
+        this.appendListener = appendListener;
+    }
+
+    /**
+     * Write all queued records, called with lock held.
+     */
+    private void commit() {
+        List<Append> group = new ArrayList<>();
+        List<ByteBuffer> buffers = new ArrayList<>();
+        Append append;
+        IOException error = null;
+        try {
+            long end = this.position;
+            while ((append = queue.poll()) != null) {
+                if (end > 0 && end + append.record.remaining() > this.segmentSize) {
+                    write(buffers);
+                    roll();
+                    end = 0;
+                }
+                group.add(append);
+                end += append.record.remaining();
+                buffers.add(append.record);
+            }
+            write(buffers);
+            // Replay reads up to here, only written records are published.
+            this.position = end;
+            if (this.fsyncPolicy == FsyncPolicyEnum.Always) {
+                force();
+            } else {
+                this.dirty = true;
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to write {} records to journal {}", group.size(), this.name, e);
+            error = e;
+            reopen();
+        }
+        for (Append done : group) {
+            done.error = error;
+            done.done = true;
+        }
+        if (error == null) {
+            appended.addAndGet(group.size());
+            commits.incrementAndGet();
+        }
+    }
+
+    private void write(List<ByteBuffer> buffers) throws IOException {
+        ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+        long remaining = 0;
+        for (ByteBuffer buffer : array) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= this.channel.write(array);
+        }
+        buffers.clear();
+    }
+
+    /**
+     * Start the next segment, current one is forced first so the order of records is kept on disk.
+     */
+    private void roll() throws IOException {
+        this.channel.force(false);
+        this.channel.close();
+        this.channel = FileChannel.open(segmentPath(this.segment + 1), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.READ);
+        this.segment++;
+        this.position = 0;
+    }
+
+    /**
+     * After a failed write the end of segment is unknown, cut it off at the last committed record.
+     */
+    private void reopen() {
+        try {
+            this.position = recover(this.channel);
+            this.channel.position(this.position);
+        } catch (IOException e) {
+            LOG.error("Failed to recover journal {}", this.name, e);
+        }
+    }
+
+    /**
+     * Force written records to disk, used with {@link FsyncPolicyEnum#Interval}.
+     */
+    public void sync() {
+        if (!this.dirty) {
+            return;
+        }
+        lock.lock();
+        try {
+            force();
+        } catch (IOException e) {
+            LOG.error("Failed to force journal {}", this.name, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void force() throws IOException {
+        this.dirty = false;
+        this.channel.force(false);
+        fsyncs.incrementAndGet();
+    }
+
+    /**
+     * Check whether there are records not yet replayed, without file access.
+     *
+     * @return true, if replay has records
+     */
+    public boolean hasRecords() {
+        return this.checkpointSegment < this.segment || this.checkpointOffset < this.position;
+    }
+
+    /**
+     * Read records from checkpoint, without moving the checkpoint.
+     *
+     * @param consumer consumer of records
+     * @throws IOException if journal can not be read
+     */
+    public void read(Consumer<String[]> consumer) throws IOException {
+        long[] end = end();
+        read(end[0], end[1], (record, s, next) -> consumer.accept(record));
+    }
+
+    private void read(long endSegment, long endPosition, RecordHandler handler) throws IOException {
+        long s = this.checkpointSegment;
+        long offset = this.checkpointOffset;
+        for (Long current : segments().tailSet(s)) {
+            if (current > endSegment) {
+                break;
+            }
+            long end = current == endSegment ? endPosition : Long.MAX_VALUE;
+            readSegment(current, current == s ? offset : 0, end, handler);
+        }
+    }
+
+    /**
+     * Replay the records in chunks of replay chunk size, see {@link #replay(int, Consumer)}.
+     *
+     * @param consumer applies a chunk of records, eg. saves them to database
+     * @return number of replayed records
+     * @throws IOException if journal can not be read
+     */
+    public int replay(Consumer<List<String[]>> consumer) throws IOException {
+        return replay(this.replayChunkSize, consumer);
+    }
+
+    /**
+     * Replay the records appended until now, streamed in chunks. The checkpoint is moved past a chunk once
+     * consumer applied it. If consumer fails, replay stops there, the chunks applied before stay replayed
+     * and the failed chunk is replayed again next time.
+     * <p>
+     * A crash between applying a chunk and moving the checkpoint replays that chunk again, so consumer
+     * should tolerate records applied already.
+     *
+     * @param chunkSize maximum number of records given to consumer at once
+     * @param consumer  applies a chunk of records, eg. saves them to database
+     * @return number of replayed records
+     * @throws IOException if journal can not be read
+     */
+    public int replay(int chunkSize, Consumer<List<String[]>> consumer) throws IOException {
+        if (!hasRecords()) {
+            return 0;
+        }
+        long[] end = end();
+        List<String[]> chunk = new ArrayList<>();
+        int[] count = new int[1];
+        read(end[0], end[1], (record, s, next) -> {
+            chunk.add(record);
+            if (chunk.size() >= chunkSize) {
+                count[0] += apply(chunk, consumer, s, next);
+            }
+        });
+        count[0] += apply(chunk, consumer, end[0], end[1]);
+        return count[0];
+    }
+
+    private int apply(List<String[]> chunk, Consumer<List<String[]>> consumer, long s, long next)
+            throws IOException {
+        int size = chunk.size();
+        if (size > 0) {
+            consumer.accept(chunk);
+            chunks.incrementAndGet();
+            replayed.addAndGet(size);
+            chunk.clear();
+        }
+        if (s != this.checkpointSegment || next != this.checkpointOffset) {
+            checkpoint(s, next);
+        }
+        return size;
+    }
+
+    /**
+     * Segment and end of last committed record, read together so they belong to the same segment.
+     */
+    private long[] end() {
+        lock.lock();
+        try {
+            return new long[]{this.segment, this.position};
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move the checkpoint, segments before it are deleted.
+     */
+    private void checkpoint(long s, long offset) throws IOException {
+        lock.lock();
+        try {
+            Path tmp = new File(this.directory, CHECKPOINT_FILE + ".tmp").toPath();
+            ByteBuffer buffer = ByteBuffer.allocate(24);
+            buffer.putLong(s).putLong(offset).putLong(checksum(s, offset)).flip();
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(buffer);
+                out.force(false);
+            }
+            Files.move(tmp, new File(this.directory, CHECKPOINT_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            this.checkpointSegment = s;
+            this.checkpointOffset = offset;
+            for (Long old : segments().headSet(s)) {
+                Files.deleteIfExists(segmentPath(old));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void readCheckpoint() throws IOException {
+        File file = new File(this.directory, CHECKPOINT_FILE);
+        if (!file.exists()) {
+            TreeSet<Long> segments = segments();
+            this.checkpointSegment = segments.isEmpty() ? 1 : segments.first();
+            this.checkpointOffset = 0;
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        long s = buffer.getLong();
+        long offset = buffer.getLong();
+        if (buffer.getLong() != checksum(s, offset)) {
+            throw new IOException("Checkpoint of journal " + this.name + " is corrupted");
+        }
+        this.checkpointSegment = s;
+        this.checkpointOffset = offset;
+    }
+
+    /**
+     * Read records of segment from offset to end, stops at the first invalid record.
+     *
+     * @return offset after the last valid record
+     */
+    private long readSegment(long s, long offset, long end, RecordHandler handler) throws IOException {
+        try (FileChannel in = FileChannel.open(segmentPath(s), StandardOpenOption.READ)) {
+            long limit = Math.min(end, in.size());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (offset + HEADER_SIZE <= limit) {
+                header.clear();
+                readFully(in, header, offset);
+                header.flip();
+                int length = header.getInt();
+                int crc = header.getInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE || offset + HEADER_SIZE + length > limit) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(in, payload, offset + HEADER_SIZE);
+                if (crc != crc(payload.array())) {
+                    LOG.error("Invalid record in journal {} segment {} at {}", this.name, s, offset);
+                    break;
+                }
+                offset += HEADER_SIZE + length;
+                if (handler != null) {
+                    handler.accept(decode(payload.array()), s, offset);
+                }
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Find the end of last valid record and cut off what follows, it is a record torn by a crash.
+     */
+    private long recover(FileChannel segmentChannel) throws IOException {
+        long end = readSegment(this.segment, 0, Long.MAX_VALUE, null);
+        if (segmentChannel.size() > end) {
+            LOG.warn("Cutting off {} bytes of torn record in journal {} segment {}",
+                    segmentChannel.size() - end, this.name, this.segment);
+            segmentChannel.truncate(end);
+        }
+        return end;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private TreeSet<Long> segments() {
+        TreeSet<Long> segments = new TreeSet<>();
+        String[] files = this.directory.list();
+        if (files != null) {
+            for (String file : files) {
+                if (file.endsWith(SEGMENT_SUFFIX)) {
+                    segments.add(Long.valueOf(file.substring(0, file.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long s) {
+        return new File(this.directory, String.format("%08d%s", s, SEGMENT_SUFFIX)).toPath();
+    }
+
+    static ByteBuffer encode(String[] fields) {
+        byte[][] bytes = new byte[fields.length][];
+        int length = 4;
+        for (int i = 0; i < fields.length; i++) {
+            bytes[i] = fields[i] == null ? null : fields[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + (bytes[i] == null ? 0 : bytes[i].length);
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+        record.putInt(length).putInt(0).putInt(fields.length);
+        for (byte[] field : bytes) {
+            record.putInt(field == null ? -1 : field.length);
+            if (field != null) {
+                record.put(field);
+            }
+        }
+        record.putInt(4, crc(record.array(), HEADER_SIZE, length));
+        record.flip();
+        return record;
+    }
+
+    static String[] decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        String[] fields = new String[buffer.getInt()];
+        for (int i = 0; i < fields.length; i++) {
+            int length = buffer.getInt();
+            if (length >= 0) {
+                fields[i] = new String(payload, buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return fields;
+    }
+
+    private static int crc(byte[] bytes) {
+        return crc(bytes, 0, bytes.length);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    private static long checksum(long s, long offset) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(ByteBuffer.allocate(16).putLong(s).putLong(offset).array());
+        return crc32.getValue();
+    }
+
+    public long getAppended() {
+        return appended.get();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public long getFsyncs() {
+        return fsyncs.get();
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    /**
+     * Bytes not yet replayed, segments between checkpoint and last segment are counted with segment size.
+     *
+     * @return approximate size of records not yet replayed
+     */
+    public long getBacklog() {
+        return (this.segment - this.checkpointSegment) * this.segmentSize + this.position - this.checkpointOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (this.channel.isOpen()) {
+                this.channel.force(false);
+                this.channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Handler of records read, with the position after the record
+     */
+    @FunctionalInterface
+    private interface RecordHandler {
+
+        void accept(String[] record, long segment, long next) throws IOException;
+    }
+
+    /**
+     * Record waiting for group commit
+     */
+    private static class Append {
+
+        private final ByteBuffer record;
+
+        private volatile boolean done;
+
+        private volatile IOException error;
+
+        private Append(ByteBuffer record) {
+            this.record = record;
+        }
+    }
+}
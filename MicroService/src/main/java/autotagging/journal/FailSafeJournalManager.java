@@ -0,0 +1,220 @@
+package de.funkedigital.autotagging.journal;
+
+import de.funkedigital.autotagging.enums.FsyncPolicyEnum;
+import de.funkedigital.autotagging.utils.Constants;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Opens and keeps the {@link FailSafeJournal} of every fail-safe file.
+ * <p>
+ * Journal of "publication/executed-save-articles.txt" is the directory "publication/executed-save-articles"
+ * in resource folder. A text file of previous versions found there is appended to the journal once,
+ * line by line, and deleted.
+ * <p>
+ * Listeners are notified with the fail-safe file of journal whenever records are appended to it, so the
+ * journals are only replayed when there is something to replay.
+ *
+ * @author sraj
+ */
+@Component
+public class FailSafeJournalManager implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FailSafeJournalManager.class);
+
+    private static final String PREFIX = "failsafe.journal.";
+
+    private static final String TEXT_SUFFIX = ".txt";
+
+    /**
+     * Size a segment is rolled at
+     */
+    @Value("${failsafe.journal.segment.size:16777216}")
+    private long segmentSize;
+
+    /**
+     * {@link FsyncPolicyEnum} of journals
+     */
+    @Value("${failsafe.journal.fsync.policy:Always}")
+    private FsyncPolicyEnum fsyncPolicy;
+
+    /**
+     * Number of records replayed and checkpointed at once
+     */
+    @Value("${failsafe.journal.replay.chunk.size:500}")
+    private int replayChunkSize;
+
+    /**
+     * Path of resource folder
+     */
+    @Autowired
+    private String resourcePath;
+
+    private final ConcurrentMap<String, FailSafeJournal> journals = new ConcurrentHashMap<>();
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Get the journal of fail-safe file, it is opened on first access.
+     *
+     * @param fileName fail-safe file relative to resource folder, "publication/file.txt"
+     * @return {@link FailSafeJournal}
+     */
+    public FailSafeJournal get(String fileName) {
+        return journals.computeIfAbsent(fileName, this::open);
+    }
+
+    /**
+     * Get the journal of fail-safe file of publication.
+     *
+     * @param publication publication of file
+     * @param fileName    name of fail-safe file
+     * @return {@link FailSafeJournal}
+     */
+    public FailSafeJournal get(String publication, String fileName) {
+        return get(publication + Constants.FOLDER_SEPARATOR + fileName);
+    }
+
+    /**
+     * Open the journals of fail-safe files which exist in resource folder, of every publication, as
+     * journal directory or as text file of previous versions.
+     *
+     * @param fileNames names of fail-safe files
+     * @return fail-safe files opened, "publication/file.txt"
+     */
+    public List<String> openExisting(String... fileNames) {
+        List<String> opened = new ArrayList<>();
+        File[] publications = new File(this.resourcePath).listFiles(File::isDirectory);
+        if (publications == null) {
+            return opened;
+        }
+        for (File publication : publications) {
+            for (String fileName : fileNames) {
+                File text = new File(publication, fileName);
+                File directory = new File(publication, StringUtils.removeEnd(fileName, TEXT_SUFFIX));
+                if (text.isFile() || directory.isDirectory()) {
+                    String name = publication.getName() + Constants.FOLDER_SEPARATOR + fileName;
+                    get(name);
+                    opened.add(name);
+                }
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Add listener of appends, it is called with the fail-safe file of journal, "publication/file.txt",
+     * on the thread of writer.
+     *
+     * @param listener listener of appends
+     */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private FailSafeJournal open(String fileName) {
+        String name = StringUtils.removeEnd(fileName, TEXT_SUFFIX);
+        try {
+            FailSafeJournal journal = new FailSafeJournal(name, new File(this.resourcePath.concat(name)),
+                    this.segmentSize, this.fsyncPolicy, this.replayChunkSize);
+            importTextFile(journal, new File(this.resourcePath.concat(fileName)));
+            journal.setAppendListener(() -> listeners.forEach(listener -> listener.accept(fileName)));
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open fail-safe journal " + name, e);
+        }
+    }
+
+    /**
+     * Append the lines of fail-safe text file as records of one field, entities read them with fromString.
+     */
+    private void importTextFile(FailSafeJournal journal, File file) throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        int lines = 0;
+        try (LineIterator iterator = FileUtils.lineIterator(file, Constants.STRING_ENCODING)) {
+            while (iterator.hasNext()) {
+                String line = iterator.nextLine();
+                if (!line.trim().isEmpty()) {
+                    journal.append(line);
+                    lines++;
+                }
+            }
+        }
+        FileUtils.deleteQuietly(file);
+        LOG.info("Imported {} lines of fail-safe file {} to journal", lines, file);
+    }
+
+    /**
+     * Force the journals, with {@link FsyncPolicyEnum#Interval}
+     */
+    @Scheduled(fixedDelayString = "${failsafe.journal.fsync.interval:1000}")
+    public void sync() {
+        if (this.fsyncPolicy == FsyncPolicyEnum.Interval) {
+            journals.values().forEach(FailSafeJournal::sync);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (FailSafeJournal journal : journals.values()) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOG.error("Failed to close journal {}", journal.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        long appended = 0;
+        long commits = 0;
+        long fsyncs = 0;
+        long replayed = 0;
+        long chunks = 0;
+        long backlog = 0;
+        for (FailSafeJournal journal : journals.values()) {
+            appended += journal.getAppended();
+            commits += journal.getCommits();
+            fsyncs += journal.getFsyncs();
+            replayed += journal.getReplayed();
+            chunks += journal.getChunks();
+            backlog += journal.getBacklog();
+        }
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(PREFIX + "journals", journals.size()));
+        metrics.add(new Metric<>(PREFIX + "appended", appended));
+        metrics.add(new Metric<>(PREFIX + "commits", commits));
+        metrics.add(new Metric<>(PREFIX + "fsyncs", fsyncs));
+        metrics.add(new Metric<>(PREFIX + "replayed", replayed));
+        metrics.add(new Metric<>(PREFIX + "replay.chunks", chunks));
+        metrics.add(new Metric<>(PREFIX + "backlog.bytes", backlog));
+        return metrics;
+    }
+}
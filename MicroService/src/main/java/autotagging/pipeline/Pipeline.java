@@ -0,0 +1,112 @@
+package de.funkedigital.autotagging.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Chain of {@link PipelineStage}, an item submitted to the pipeline passes all stages one after another,
+ * while every stage works on other items at the same time. The throughput is set by the slowest stage
+ * and not by the sum of all stages.
+ * <p>
+ * If a stage fails, remaining stages are skipped. The completion callback is called once per item,
+ * with the exception of failed stage or null.
+ * <p>
+ * Once shut down, items already in a stage complete that stage and are completed with
+ * {@link java.util.concurrent.RejectedExecutionException} of the next stage.
+ *
+ * @param <T> item passed through the pipeline
+ * @author sraj
+ */
+public class Pipeline<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Pipeline.class);
+
+    private final List<PipelineStage<T>> stages = new ArrayList<>();
+
+    private final BiConsumer<T, Exception> onComplete;
+
+    /**
+     * @param onComplete called once per item, after last stage or failed stage
+     */
+    public Pipeline(BiConsumer<T, Exception> onComplete) {
+        this.onComplete = onComplete;
+    }
+
+    /**
+     * Add the stage at the end of pipeline
+     *
+     * @param stage {@link PipelineStage}
+     * @return this pipeline
+     */
+    public Pipeline<T> addStage(PipelineStage<T> stage) {
+        this.stages.add(stage);
+        return this;
+    }
+
+    /**
+     * Submit the item to the first stage, blocks while the first stage is full.
+     *
+     * @param item item to be processed
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public void submit(T item) throws InterruptedException {
+        submit(item, 0);
+    }
+
+    private void submit(T item, int index) throws InterruptedException {
+        if (index == this.stages.size()) {
+            complete(item, null);
+            return;
+        }
+        this.stages.get(index).submit(item, () -> {
+            try {
+                // Blocks the thread of this stage, while the next stage is full.
+                submit(item, index + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete(item, e);
+            } catch (RuntimeException e) {
+                // Next stage is shut down
+                complete(item, e);
+            }
+        }, e -> complete(item, e));
+    }
+
+    private void complete(T item, Exception e) {
+        try {
+            this.onComplete.accept(item, e);
+        } catch (Exception ex) {
+            LOG.error("Error occurred while completing {}", item, ex);
+        }
+    }
+
+    /**
+     * Shut down all stages, items already in a stage are executed.
+     */
+    public void shutdown() {
+        this.stages.forEach(PipelineStage::shutdown);
+    }
+
+    /**
+     * Queue depth and active items per stage
+     *
+     * @return details of stages
+     */
+    public Map<String, Map<String, Integer>> getDetails() {
+        Map<String, Map<String, Integer>> details = new LinkedHashMap<>();
+        for (PipelineStage<T> stage : this.stages) {
+            Map<String, Integer> detail = new LinkedHashMap<>();
+            detail.put("queued", stage.getQueueDepth());
+            detail.put("active", stage.getActiveCount());
+            details.put(stage.getName(), detail);
+        }
+        return Collections.unmodifiableMap(details);
+    }
+}
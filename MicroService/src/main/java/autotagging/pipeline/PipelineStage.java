@@ -0,0 +1,146 @@
+package de.funkedigital.autotagging.pipeline;
+
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One stage of {@link Pipeline}, it runs the {@link StageAction} on its own threads.
+ * <p>
+ * At most concurrency items are executed and queueCapacity items wait in the queue, further
+ * {@link #submit(Object, Runnable, Consumer)} block until there is space. This
+ * way a slow stage blocks the stage before it, instead of piling up items in memory.
+ * <p>
+ * Metrics submitted to {@link GaugeService}, prefix is pipeline.[name]
+ * ----> gauge.pipeline.[name].queue : items waiting in the queue
+ * ----> timer.pipeline.[name].wait : milliseconds an item waited in the queue
+ * ----> timer.pipeline.[name].latency : milliseconds of {@link StageAction}
+ *
+ * @param <T> item passed through the pipeline
+ * @author sraj
+ */
+public class PipelineStage<T> {
+
+    private final String name;
+
+    private final StageAction<T> action;
+
+    private final ThreadPoolExecutor executor;
+
+    // Permits for executing and queued items
+    private final Semaphore permits;
+
+    private final GaugeService gaugeService;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * @param name          name of stage, used for threads and metrics
+     * @param action        action executed for every item
+     * @param concurrency   number of threads
+     * @param queueCapacity number of items waiting for a thread
+     * @param gaugeService  {@link GaugeService} for metrics, can be null
+     */
+    public PipelineStage(String name, StageAction<T> action, int concurrency, int queueCapacity,
+                         GaugeService gaugeService) {
+        this.name = name;
+        this.action = action;
+        this.gaugeService = gaugeService;
+        this.permits = new Semaphore(concurrency + queueCapacity);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submit the item to the stage, blocks while the stage is full.
+     *
+     * @param item      item to be processed
+     * @param onSuccess called on the stage thread, after action succeeded
+     * @param onFailure called on the stage thread, if action failed
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public void submit(T item, Runnable onSuccess, Consumer<Exception> onFailure)
+            throws InterruptedException {
+        this.permits.acquire();
+        long enqueued = System.currentTimeMillis();
+        submit("queue", queued.incrementAndGet());
+        try {
+            this.executor.execute(() -> {
+                long start = System.currentTimeMillis();
+                submit("queue", queued.decrementAndGet());
+                submit("wait", start - enqueued);
+                try {
+                    try {
+                        this.action.execute(item);
+                    } catch (Exception e) {
+                        submit("latency", System.currentTimeMillis() - start);
+                        onFailure.accept(e);
+                        return;
+                    }
+                    submit("latency", System.currentTimeMillis() - start);
+                    onSuccess.run();
+                } finally {
+                    this.permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Stop accepting items, items already in the stage are executed.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * @return number of items waiting in the queue
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return number of items being executed
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void submit(String metric, double value) {
+        if (this.gaugeService != null) {
+            String prefix = "queue".equals(metric) ? "gauge.pipeline." : "timer.pipeline.";
+            this.gaugeService.submit(prefix + this.name + "." + metric, value);
+        }
+    }
+
+    /**
+     * Action of a stage, it updates the item with its result.
+     *
+     * @param <T> item passed through the pipeline
+     */
+    @FunctionalInterface
+    public interface StageAction<T> {
+
+        void execute(T item) throws Exception;
+    }
+}
@@ -0,0 +1,148 @@
+package de.funkedigital.autotagging.repositories;
+
+import de.funkedigital.autotagging.utils.Utils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the number of executed and failed articles per month and publication, in table
+ * article_counters. Counters are incremented with every saved article, so the monthly quota is
+ * read from a few rows instead of counting the article tables.
+ * <p>
+ * A counter is always created from the article tables of its month and publication, so articles saved
+ * before the counter existed are included, whichever instance or thread creates it.
+ *
+ * @author sraj
+ */
+@Repository
+public class ArticleCounterRepository {
+
+    private static final String INCREMENT = "UPDATE article_counters SET executed = executed + ?, " +
+            "failed = failed + ? WHERE count_month = ? AND publication = ?";
+
+    // Counter is created only if it does not exist yet
+    private static final String INSERT_IF_ABSENT = "INSERT INTO article_counters " +
+            "(count_month, publication, executed, failed) SELECT ?, ?, ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM article_counters WHERE count_month = ? AND publication = ?)";
+
+    private static final String FIND_BY_MONTH = "SELECT publication, executed + failed FROM article_counters " +
+            "WHERE count_month = ?";
+
+    private static final String COUNT_EXECUTED = "SELECT publication, COUNT(*) FROM executed_articles " +
+            "WHERE execution_date >= ? AND execution_date < ? GROUP BY publication";
+
+    private static final String COUNT_FAILED = "SELECT publication, COUNT(*) FROM failed_articles " +
+            "WHERE execution_date >= ? AND execution_date < ? GROUP BY publication";
+
+    private static final String COUNT_EXECUTED_OF_PUBLICATION = "SELECT COUNT(*) FROM executed_articles " +
+            "WHERE publication = ? AND execution_date >= ? AND execution_date < ?";
+
+    private static final String COUNT_FAILED_OF_PUBLICATION = "SELECT COUNT(*) FROM failed_articles " +
+            "WHERE publication = ? AND execution_date >= ? AND execution_date < ?";
+
+    /**
+     * Autowired instance of {@link JdbcTemplate}
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Month of counter for date, yyyy-MM
+     *
+     * @param date execution date of article
+     * @return month of counter
+     */
+    public static String month(Date date) {
+        return new SimpleDateFormat("yyyy-MM").format(date);
+    }
+
+    /**
+     * Add executed and failed articles to counter of publication. The counter of month is created with
+     * the first article of month, from the article tables, the articles are saved before they are counted and
+     * are included.
+     *
+     * @param date        execution date of articles
+     * @param publication publication of articles
+     * @param executed    number of executed articles
+     * @param failed      number of failed articles
+     */
+    public void increment(Date date, String publication, int executed, int failed) {
+        String month = month(date);
+        if (jdbcTemplate.update(INCREMENT, executed, failed, month, publication) == 0) {
+            Timestamp start = new Timestamp(Utils.getStartOfMonth(date).getTime());
+            Timestamp end = new Timestamp(Utils.getStartOfNextMonth(date).getTime());
+            Long executedOfMonth = jdbcTemplate.queryForObject(COUNT_EXECUTED_OF_PUBLICATION, Long.class,
+                    publication, start, end);
+            Long failedOfMonth = jdbcTemplate.queryForObject(COUNT_FAILED_OF_PUBLICATION, Long.class,
+                    publication, start, end);
+            try {
+                if (insertIfAbsent(month, publication, executedOfMonth, failedOfMonth) == 0) {
+                    // Created by another thread in the meantime.
+                    jdbcTemplate.update(INCREMENT, executed, failed, month, publication);
+                }
+            } catch (DuplicateKeyException e) {
+                // Created by another thread in the meantime.
+                jdbcTemplate.update(INCREMENT, executed, failed, month, publication);
+            }
+        }
+    }
+
+    private int insertIfAbsent(String month, String publication, long executed, long failed) {
+        return jdbcTemplate.update(INSERT_IF_ABSENT, month, publication, executed, failed, month, publication);
+    }
+
+    /**
+     * Get executed and failed articles of month per publication.
+     *
+     * @param date date in month
+     * @return Map of publication and number of executed and failed articles
+     */
+    public Map<String, Long> findByMonth(Date date) {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_BY_MONTH, rs -> {
+            counters.put(rs.getString(1), rs.getLong(2));
+        }, month(date));
+        return counters;
+    }
+
+    /**
+     * Create the counters of month from executed and failed articles, for every publication which has no
+     * counter of month yet. Counters which exist are kept, they are incremented since they were created.
+     * Used when the counters are introduced in the middle of month, and at the start of every month.
+     *
+     * @param date date in month
+     * @return true, if counters are created
+     */
+    @Transactional
+    public boolean initialize(Date date) {
+        Timestamp start = new Timestamp(Utils.getStartOfMonth(date).getTime());
+        Timestamp end = new Timestamp(Utils.getStartOfNextMonth(date).getTime());
+        Map<String, long[]> counts = new HashMap<>();
+        jdbcTemplate.query(COUNT_EXECUTED, rs -> {
+            counts.computeIfAbsent(rs.getString(1), k -> new long[2])[0] = rs.getLong(2);
+        }, start, end);
+        jdbcTemplate.query(COUNT_FAILED, rs -> {
+            counts.computeIfAbsent(rs.getString(1), k -> new long[2])[1] = rs.getLong(2);
+        }, start, end);
+        String month = month(date);
+        int created = 0;
+        for (Map.Entry<String, long[]> count : counts.entrySet()) {
+            try {
+                created += insertIfAbsent(month, count.getKey(), count.getValue()[0], count.getValue()[1]);
+            } catch (DuplicateKeyException e) {
+                // Created by another instance in the meantime.
+            }
+        }
+        return created > 0;
+    }
+}
@@ -0,0 +1,208 @@
+package de.funkedigital.autotagging.repositories;
+
+import de.funkedigital.autotagging.entities.repo.ArticleTransition;
+import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes article transitions with JDBC batches, one statement per table for all records
+ * instead of one statement and transaction per record, and all tables in one transaction.
+ * <p>
+ * New article urls are inserted to pending articles the same way, see {@link #insertPending(List)}.
+ * <p>
+ * Unlike the other repositories, methods here do not write to fail-safe files, caller decides
+ * what to do with the records of failed batch.
+ *
+ * @author sraj
+ */
+@Repository
+public class ArticleTransitionRepository {
+
+    // Existing records are skipped, so a duplicate does not fail the whole batch.
+    private static final String INSERT_EXECUTED = "INSERT INTO executed_articles " +
+            "(publication, asset_id, url, execution_date) SELECT ?, ?, ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM executed_articles WHERE asset_id = ? AND publication = ?)";
+
+    private static final String INSERT_FAILED = "INSERT INTO failed_articles " +
+            "(publication, url, execution_date) SELECT ?, ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM failed_articles WHERE url = ?)";
+
+    private static final String DELETE_PENDING = "DELETE FROM pending_articles WHERE id = ?";
+
+    // Urls already pending, executed, failed or dead are skipped, whichever instance saved them.
+    private static final String INSERT_PENDING = "INSERT INTO pending_articles " +
+            "(publication, url, execution_date) SELECT ?, ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM pending_articles WHERE url = ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM executed_articles WHERE publication = ? AND url = ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM failed_articles WHERE url = ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM dead_articles WHERE url = ?)";
+
+    /**
+     * Autowired instance of {@link JdbcTemplate}
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Autowired instance of {@link ArticleCounterRepository}
+     */
+    @Autowired
+    private ArticleCounterRepository articleCounterRepository;
+
+    /**
+     * Move the articles in one transaction, executed and failed articles are inserted, they are added to
+     * {@link ArticleCounterRepository} and pending articles are deleted with one commit. If anything fails,
+     * nothing is written.
+     *
+     * @param transitions {@link ArticleTransition} to write
+     * @return number of inserted executed and failed articles, existing articles are not counted
+     */
+    @Transactional
+    public int transition(List<ArticleTransition> transitions) {
+        List<ExecutedArticleEntity> executedArticles = new ArrayList<>();
+        List<FailedArticleEntity> failedArticles = new ArrayList<>();
+        List<PendingArticleEntity> pendingArticles = new ArrayList<>();
+        for (ArticleTransition transition : transitions) {
+            if (transition.getExecutedArticle() != null) {
+                executedArticles.add(transition.getExecutedArticle());
+            } else {
+                failedArticles.add(transition.getFailedArticle());
+            }
+            if (transition.getPendingArticle() != null) {
+                pendingArticles.add(transition.getPendingArticle());
+            }
+        }
+        int[] executed = insertExecuted(executedArticles);
+        int[] failed = insertFailed(failedArticles);
+        deletePending(pendingArticles);
+
+        // Count inserted articles per publication
+        Map<String, int[]> counts = new HashMap<>();
+        for (int i = 0; i < executed.length; i++) {
+            counts.computeIfAbsent(executedArticles.get(i).getPublication(), k -> new int[2])[0] += inserted(executed[i]);
+        }
+        for (int i = 0; i < failed.length; i++) {
+            counts.computeIfAbsent(failedArticles.get(i).getPublication(), k -> new int[2])[1] += inserted(failed[i]);
+        }
+        Date now = new Date();
+        int total = 0;
+        for (Map.Entry<String, int[]> count : counts.entrySet()) {
+            int[] c = count.getValue();
+            if (c[0] + c[1] > 0) {
+                articleCounterRepository.increment(now, count.getKey(), c[0], c[1]);
+                total += c[0] + c[1];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Rows inserted by one statement of batch, drivers may report success without the count.
+     */
+    private static int inserted(int updateCount) {
+        return updateCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updateCount, 0);
+    }
+
+    /**
+     * Insert executed articles in one batch, already existing articles are skipped.
+     *
+     * @param executedArticles {@link ExecutedArticleEntity} to insert
+     * @return number of inserted rows per article
+     */
+    public int[] insertExecuted(List<ExecutedArticleEntity> executedArticles) {
+        if (executedArticles.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> args = new ArrayList<>(executedArticles.size());
+        for (ExecutedArticleEntity executed : executedArticles) {
+            args.add(new Object[]{executed.getPublication(), executed.getAssetId(), executed.getUrl(),
+                    new Timestamp(executed.getExecutionDate().getTime()),
+                    executed.getAssetId(), executed.getPublication()});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_EXECUTED, args);
+    }
+
+    /**
+     * Insert failed articles in one batch, already existing articles are skipped.
+     *
+     * @param failedArticles {@link FailedArticleEntity} to insert
+     * @return number of inserted rows per article
+     */
+    public int[] insertFailed(List<FailedArticleEntity> failedArticles) {
+        if (failedArticles.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> args = new ArrayList<>(failedArticles.size());
+        for (FailedArticleEntity failed : failedArticles) {
+            args.add(new Object[]{failed.getPublication(), failed.getUrl(),
+                    new Timestamp(failed.getExecutionDate().getTime()), failed.getUrl()});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_FAILED, args);
+    }
+
+    /**
+     * Insert new pending articles in one batch. Urls present in pending, executed, failed or dead articles
+     * are skipped by the database, also those saved by another instance after they were checked.
+     * <p>
+     * A url inserted by another caller at the same time violates the unique url of pending articles
+     * and fails the batch.
+     *
+     * @param pendingArticles {@link PendingArticleEntity} to insert
+     * @return number of inserted rows per article
+     */
+    public int[] insertPending(List<PendingArticleEntity> pendingArticles) {
+        if (pendingArticles.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> args = new ArrayList<>(pendingArticles.size());
+        for (PendingArticleEntity pending : pendingArticles) {
+            args.add(new Object[]{pending.getPublication(), pending.getUrl(),
+                    new Timestamp(pending.getExecutionDate().getTime()), pending.getUrl(),
+                    pending.getPublication(), pending.getUrl(), pending.getUrl(), pending.getUrl()});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_PENDING, args);
+    }
+
+    /**
+     * Rows inserted by the batch, see {@link #inserted(int)}.
+     *
+     * @param updateCounts update counts of batch
+     * @return number of inserted rows
+     */
+    public static int inserted(int[] updateCounts) {
+        int inserted = 0;
+        for (int updateCount : updateCounts) {
+            inserted += inserted(updateCount);
+        }
+        return inserted;
+    }
+
+    /**
+     * Delete pending articles in one batch, already deleted articles are ignored.
+     *
+     * @param pendingArticles {@link PendingArticleEntity} to delete
+     */
+    public void deletePending(List<PendingArticleEntity> pendingArticles) {
+        if (pendingArticles.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(pendingArticles.size());
+        for (PendingArticleEntity pending : pendingArticles) {
+            args.add(new Object[]{pending.getId()});
+        }
+        jdbcTemplate.batchUpdate(DELETE_PENDING, args);
+    }
+}
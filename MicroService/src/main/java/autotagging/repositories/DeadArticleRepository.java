@@ -0,0 +1,91 @@
+package de.funkedigital.autotagging.repositories;
+
+import de.funkedigital.autotagging.entities.repo.DeadArticleEntity;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.validation.ConstraintViolationException;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * This class is to save records in {@link DeadArticleEntity}, the failed articles which are not
+ * retried anymore, see {@link de.funkedigital.autotagging.services.FailedArticleService}.
+ * <p>
+ * Urls of dead articles are not loaded to pending articles again.
+ *
+ * @author sraj
+ */
+@Repository
+public interface DeadArticleRepository extends CrudRepository<DeadArticleEntity, Long> {
+
+    Logger LOG = LoggerFactory.getLogger(DeadArticleRepository.class);
+
+    /**
+     * This method fires a single query to find which of the given urls are present in the {@link DeadArticleEntity}
+     *
+     * @param publication publication,for which the service is executing
+     * @param urls        chunk of urls to be checked
+     * @return urls from the chunk which are present
+     */
+    @Query(nativeQuery = true, value = "SELECT url from " +
+            "DEAD_ARTICLES WHERE publication = :publication AND url IN (:urls) ")
+    List<String> findUrlsByPublicationAndUrlIn(@Param("publication") String publication,
+                                               @Param("urls") Collection<String> urls);
+
+    /**
+     * Get the next page of id and url given publication, ordered by id.
+     * <p>
+     * It is used to read the whole table in pages without OFFSET scans, pass the last
+     * id of previous page as lastId and {@link Pageable} with page 0.
+     *
+     * @param publication publication for query
+     * @param lastId      last id of previous page, 0 for first page
+     * @param pageable    size of the page
+     * @return List of [id, url]
+     */
+    @Query("SELECT e.id, e.url from DeadArticleEntity e WHERE e.publication = :publication AND e.id > :lastId " +
+            "ORDER BY e.id")
+    List<Object[]> findIdAndUrlByPublicationAfterId(@Param("publication") String publication,
+                                                    @Param("lastId") Long lastId,
+                                                    Pageable pageable);
+
+    /**
+     * Get all the records given publication
+     *
+     * @param publication publication for query
+     * @return List of {@link DeadArticleEntity}
+     */
+    @Query(nativeQuery = true, value = "SELECT * from DEAD_ARTICLES WHERE publication = :publication")
+    List<DeadArticleEntity> findAllByPublication(@Param("publication") String publication);
+
+    /**
+     * This method save the dead article.
+     * <p>
+     * This method, do not perform any action if a duplicate record is being stored
+     * {@link DataIntegrityViolationException}, eg. the failed article was moved already but could not be deleted.
+     * Other exceptions are thrown, the failed article is kept then.
+     *
+     * @param publication publication,for which the service is executing
+     * @param url         url of the article
+     * @param attempts    retries which failed
+     */
+    default void save(String publication, String url, int attempts) {
+        LOG.debug("Saving article : {} {} {}", publication, url, Thread.currentThread().getName());
+        DeadArticleEntity deadArticle = new DeadArticleEntity(publication, url, attempts);
+        try {
+            this.save(deadArticle);
+        } catch (ConstraintViolationException | DataIntegrityViolationException ce) {
+            LOG.warn("Constraint violation exception, record already exists in DB : {} {}", deadArticle,
+                    ExceptionUtils.getRootCauseMessage(ce));
+        }
+    }
+}
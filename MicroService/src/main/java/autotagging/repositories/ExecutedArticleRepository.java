@@ -2,25 +2,29 @@ package de.funkedigital.autotagging.repositories;
 
 import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
 import de.funkedigital.autotagging.exceptions.RepositoryException;
-import de.funkedigital.autotagging.utils.Constants;
-import org.apache.commons.io.FileUtils;
+import de.funkedigital.autotagging.journal.FailSafeJournal;
+import de.funkedigital.autotagging.utils.Utils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Repository;
 
 import javax.validation.ConstraintViolationException;
-import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * This class is to save records in {@link ExecutedArticleEntity}, if they fail to be processed
@@ -40,7 +44,7 @@ public interface ExecutedArticleRepository extends CrudRepository<ExecutedArticl
     Logger LOG = LoggerFactory.getLogger(ExecutedArticleRepository.class);
 
     /**
-     * File to store the records in case of failure while saving the record
+     * Fail-safe file, {@link FailSafeJournal} to store the records in case of failure while saving the record
      */
     String SAVE_FAIL_SAFE_FILE = "executed-save-articles.txt";
 
@@ -50,9 +54,23 @@ public interface ExecutedArticleRepository extends CrudRepository<ExecutedArticl
      *
      * @return Count of records of current month
      */
+    default int getCountForCurrentMonth() {
+        Date now = new Date();
+        return getCountForExecutionDateBetween(Utils.getStartOfMonth(now), Utils.getStartOfNextMonth(now));
+    }
+
+    /**
+     * This method returns the count of records executed from start (inclusive) to end (exclusive).
+     * <p>
+     * execution_date is compared as is, so the index on execution_date is used.
+     *
+     * @param start start of range, inclusive
+     * @param end   end of range, exclusive
+     * @return Count of records in range
+     */
     @Query(nativeQuery = true, value = "select count(*) from EXECUTED_ARTICLES " +
-            "where year(execution_date) = year(current_date) and  month(execution_date) = month(current_date)")
-    int getCountForCurrentMonth();
+            "where execution_date >= :start and execution_date < :end")
+    int getCountForExecutionDateBetween(@Param("start") Date start, @Param("end") Date end);
 
     /**
      * This method fires a query to find the record if already present in the {@link ExecutedArticleEntity}
@@ -66,6 +84,36 @@ public interface ExecutedArticleRepository extends CrudRepository<ExecutedArticl
     boolean findByPublicationAndUrl(@Param("publication") String publication,
                                     @Param("url") String url);
 
+    /**
+     * This method fires a single query to find which of the given urls are already present
+     * in the {@link ExecutedArticleEntity}. It is the batched version of {@link #findByPublicationAndUrl(String, String)}
+     *
+     * @param publication publication,for which the service is executing
+     * @param urls        chunk of urls to be checked
+     * @return urls from the chunk which are present
+     */
+    @Query(nativeQuery = true, value = "SELECT url from " +
+            "EXECUTED_ARTICLES WHERE publication = :publication AND url IN (:urls) ")
+    List<String> findUrlsByPublicationAndUrlIn(@Param("publication") String publication,
+                                               @Param("urls") Collection<String> urls);
+
+    /**
+     * Get the next page of id and url given publication, ordered by id.
+     * <p>
+     * It is used to read the whole table in pages without OFFSET scans, pass the last
+     * id of previous page as lastId and {@link Pageable} with page 0.
+     *
+     * @param publication publication for query
+     * @param lastId      last id of previous page, 0 for first page
+     * @param pageable    size of the page
+     * @return List of [id, url]
+     */
+    @Query("SELECT e.id, e.url from ExecutedArticleEntity e WHERE e.publication = :publication AND e.id > :lastId " +
+            "ORDER BY e.id")
+    List<Object[]> findIdAndUrlByPublicationAfterId(@Param("publication") String publication,
+                                                    @Param("lastId") Long lastId,
+                                                    Pageable pageable);
+
     /**
      * This method perfrom search using article ID in url
      *
@@ -100,61 +148,81 @@ public interface ExecutedArticleRepository extends CrudRepository<ExecutedArticl
      * @param publication publication,for which the service is executing
      * @param assetId     asset Id returned from {@link de.funkedigital.autotagging.semantic.services.UnicornService}
      * @param url         url of the article
+     * @return true if the article is inserted, false if it exists already, only inserted articles are counted by
+     * {@link de.funkedigital.autotagging.interceptors.QuotaInterceptor}
      */
     @Async
-    default void save(String publication, String assetId, String url) {
+    default Future<Boolean> save(String publication, String assetId, String url) {
         LOG.debug("Saving article : {} {} {}", publication, assetId, Thread.currentThread().getName());
         ExecutedArticleEntity executedArticle = new ExecutedArticleEntity(publication, assetId, url);
         try {
             this.save(executedArticle);
+            return new AsyncResult<>(true);
         } catch (ConstraintViolationException | DataIntegrityViolationException ce) {
             LOG.warn("Constraint violation exception, record already exists in DB : {}", executedArticle.toString(),
                     ExceptionUtils.getRootCauseMessage(ce));
+            return new AsyncResult<>(false);
         } catch (Exception e) {
             throw new RepositoryException(String.format("ExecutedArticleEntity persistence failed %s \t %s"
                     , publication, e.getMessage())
                     , e
                     , String.format("%s/%s", publication, this.SAVE_FAIL_SAFE_FILE)
-                    , executedArticle.toString());
+                    , executedArticle.toRecord());
         }
     }
 
     /**
      * This method save the articles that were failed while saving in {@link ExecutedArticleEntity}
-     * first time and was saved to the file.
+     * first time and were written to fail-safe journal.
      * <p>
-     * This method, reads the data from file and once all the data is saved, delete the file.
+     * This method, reads the records from journal in chunks and moves the checkpoint of journal past
+     * every chunk saved, a replay stopped by a crash resumes with the chunk not yet saved.
+     * If a chunk fails because of a record, eg. {@link DataIntegrityViolationException}, the records of chunk
+     * are saved one by one and the failing record is skipped. Other failures stop the replay, it is
+     * continued next time.
      * <p>
-     * This method runs asynchronously (In the background)
+     * This method is run by {@link de.funkedigital.autotagging.services.FailSafeReplayService} in the background,
+     * once records are appended to journal.
      *
-     * <b>IF, file is not present, that means there are no failed records to procees and nothing to worry.</b>
+     * <b>IF, journal has no records, that means there are no failed records to procees and nothing to worry.</b>
      *
-     * @param publication publication,for which the service is executing
-     * @param resource    location of resource.
+     * @param journal fail-safe journal of publication, {@link #SAVE_FAIL_SAFE_FILE}
+     * @param onSaved called with the articles inserted by every chunk, skipped records are not passed
+     * @return number of replayed records
      */
-    @Async
-    default void saveFromFile(String resource, String publication) {
-        LOG.debug("Saving data from file : {} {} {}", resource, publication, Thread.currentThread().getName());
+    default int saveFromJournal(FailSafeJournal journal, Consumer<Collection<ExecutedArticleEntity>> onSaved) {
+        LOG.debug("Saving data from journal : {} {}", journal.getName(), Thread.currentThread().getName());
         try {
-            File file = new File(resource.concat(publication)
-                    .concat(Constants.FOLDER_SEPARATOR + SAVE_FAIL_SAFE_FILE));
-            List<String> lines = FileUtils.readLines(file, Constants.STRING_ENCODING);
-
-            Set<ExecutedArticleEntity> executedArticles = new HashSet<>();
-
-            for (String line : lines) {
-                ExecutedArticleEntity executedArticle = new ExecutedArticleEntity().fromString(line);
-                if (executedArticle != null) {
-                    executedArticles.add(executedArticle);
+            return journal.replay(records -> {
+                Set<ExecutedArticleEntity> executedArticles = new HashSet<>();
+                for (String[] record : records) {
+                    ExecutedArticleEntity executedArticle = new ExecutedArticleEntity().fromRecord(record);
+                    if (executedArticle != null) {
+                        executedArticles.add(executedArticle);
+                    }
+                }
+                try {
+                    this.save(executedArticles);
+                    onSaved.accept(executedArticles);
+                } catch (ConstraintViolationException | DataIntegrityViolationException ce) {
+                    LOG.warn("Chunk of journal {} failed, saving records one by one : {}", journal.getName(),
+                            ExceptionUtils.getRootCauseMessage(ce));
+                    List<ExecutedArticleEntity> saved = new ArrayList<>();
+                    for (ExecutedArticleEntity executedArticle : executedArticles) {
+                        try {
+                            this.save(executedArticle);
+                            saved.add(executedArticle);
+                        } catch (ConstraintViolationException | DataIntegrityViolationException re) {
+                            LOG.warn("Skipped record of journal {} : {} {}", journal.getName(),
+                                    executedArticle.getUrl(), ExceptionUtils.getRootCauseMessage(re));
+                        }
+                    }
+                    onSaved.accept(saved);
                 }
-            }
-            this.save(executedArticles);
-            // Once proceed all the articles successfully, delete the file.
-            FileUtils.deleteQuietly(file);
-        } catch (IOException e) {
-            LOG.debug("No records are there in fail-safe to save ", ExceptionUtils.getRootCauseMessage(e));
+            });
         } catch (Exception e) {
-            LOG.error("Could not persist file data to DB ", ExceptionUtils.getRootCauseMessage(e));
+            LOG.error("Could not persist journal data to DB ", ExceptionUtils.getRootCauseMessage(e));
+            return 0;
         }
     }
 }
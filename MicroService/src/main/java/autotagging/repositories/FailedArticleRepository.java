@@ -2,26 +2,33 @@ package de.funkedigital.autotagging.repositories;
 
 import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
 import de.funkedigital.autotagging.exceptions.RepositoryException;
-import de.funkedigital.autotagging.utils.Constants;
-import org.apache.commons.io.FileUtils;
+import de.funkedigital.autotagging.journal.FailSafeJournal;
+import de.funkedigital.autotagging.utils.Utils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.ConstraintViolationException;
-import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 
 /**
@@ -42,12 +49,12 @@ public interface FailedArticleRepository extends CrudRepository<FailedArticleEnt
     Logger LOG = LoggerFactory.getLogger(FailedArticleRepository.class);
 
     /**
-     * File to store the records in case of failure while saving the records
+     * Fail-safe file, {@link FailSafeJournal} to store the records in case of failure while saving the records
      */
     String SAVE_FAIL_SAFE_FILE = "failed-save-articles.txt";
 
     /**
-     * File to store the records in case of failure while deleting the records
+     * Fail-safe file, {@link FailSafeJournal} to store the records in case of failure while deleting the records
      */
     String DELETE_FAIL_SAFE_FILE = "failed-delete-articles.txt";
 
@@ -60,6 +67,39 @@ public interface FailedArticleRepository extends CrudRepository<FailedArticleEnt
     @Query(nativeQuery = true, value = "SELECT TOP 1 * from FAILED_ARTICLES where publication = :publication")
     FailedArticleEntity findTopArticle(@Param("publication") String publication);
 
+    /**
+     * It gets the top article from {@link FailedArticleEntity} whose backoff has elapsed, ie. next_attempt_date
+     * is not set or not after now. Articles waiting for their next attempt are skipped.
+     * <p>
+     * Ordered by next_attempt_date, articles never retried (null) come first.
+     *
+     * @param publication using publication as parameter
+     * @param now         current time
+     * @return {@link FailedArticleEntity} to retry, or null
+     */
+    @Query(nativeQuery = true, value = "SELECT * from FAILED_ARTICLES where publication = :publication " +
+            "AND (next_attempt_date IS NULL OR next_attempt_date <= :now) " +
+            "ORDER BY publication, next_attempt_date, id LIMIT 1")
+    FailedArticleEntity findTopEligibleArticle(@Param("publication") String publication,
+                                               @Param("now") Date now);
+
+    /**
+     * Note the failed retry of article, it is not picked before next attempt date.
+     * The row is updated in place, instead of deleting and saving it again.
+     *
+     * @param id              id of article
+     * @param attempts        retries which failed
+     * @param nextAttemptDate article is not retried before
+     * @return number of updated articles
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE FAILED_ARTICLES SET attempts = :attempts, " +
+            "next_attempt_date = :nextAttemptDate where id = :id")
+    int scheduleRetry(@Param("id") Long id,
+                      @Param("attempts") int attempts,
+                      @Param("nextAttemptDate") Date nextAttemptDate);
+
     /**
      * This method fires a query to find the record if already present in the {@link FailedArticleEntity}
      *
@@ -72,15 +112,59 @@ public interface FailedArticleRepository extends CrudRepository<FailedArticleEnt
     boolean findByPublicationAndUrl(@Param("publication") String publication,
                                     @Param("url") String url);
 
+    /**
+     * This method fires a single query to find which of the given urls are already present
+     * in the {@link FailedArticleEntity}. It is the batched version of {@link #findByPublicationAndUrl(String, String)}
+     *
+     * @param publication publication,for which the service is executing
+     * @param urls        chunk of urls to be checked
+     * @return urls from the chunk which are present
+     */
+    @Query(nativeQuery = true, value = "SELECT url from " +
+            "FAILED_ARTICLES WHERE publication = :publication AND url IN (:urls) ")
+    List<String> findUrlsByPublicationAndUrlIn(@Param("publication") String publication,
+                                               @Param("urls") Collection<String> urls);
+
+    /**
+     * Get the next page of id and url given publication, ordered by id.
+     * <p>
+     * It is used to read the whole table in pages without OFFSET scans, pass the last
+     * id of previous page as lastId and {@link Pageable} with page 0.
+     *
+     * @param publication publication for query
+     * @param lastId      last id of previous page, 0 for first page
+     * @param pageable    size of the page
+     * @return List of [id, url]
+     */
+    @Query("SELECT e.id, e.url from FailedArticleEntity e WHERE e.publication = :publication AND e.id > :lastId " +
+            "ORDER BY e.id")
+    List<Object[]> findIdAndUrlByPublicationAfterId(@Param("publication") String publication,
+                                                    @Param("lastId") Long lastId,
+                                                    Pageable pageable);
+
     /**
      * This method returns the count of records for current month. and helps keep the
      * record of processed records.
      *
      * @return Count of records of current month
      */
+    default int getCountForCurrentMonth() {
+        Date now = new Date();
+        return getCountForExecutionDateBetween(Utils.getStartOfMonth(now), Utils.getStartOfNextMonth(now));
+    }
+
+    /**
+     * This method returns the count of records executed from start (inclusive) to end (exclusive).
+     * <p>
+     * execution_date is compared as is, so the index on execution_date is used.
+     *
+     * @param start start of range, inclusive
+     * @param end   end of range, exclusive
+     * @return Count of records in range
+     */
     @Query(nativeQuery = true, value = "select count(*) from FAILED_ARTICLES " +
-            "where year(execution_date) = year(current_date) and  month(execution_date) = month(current_date)")
-    int getCountForCurrentMonth();
+            "where execution_date >= :start and execution_date < :end")
+    int getCountForExecutionDateBetween(@Param("start") Date start, @Param("end") Date end);
 
     /**
      * This method perfrom search using article ID in url
@@ -115,22 +199,26 @@ public interface FailedArticleRepository extends CrudRepository<FailedArticleEnt
      *
      * @param publication publication,for which the service is executing
      * @param url         url of the article
+     * @return true if the article is inserted, false if it exists already, only inserted articles are counted by
+     * {@link de.funkedigital.autotagging.interceptors.QuotaInterceptor}
      */
     @Async
-    default void save(String publication, String url) {
+    default Future<Boolean> save(String publication, String url) {
         LOG.debug("Saving article : {} {} {}", publication, url, Thread.currentThread().getName());
         FailedArticleEntity failedArticle = new FailedArticleEntity(publication, url);
         try {
             this.save(failedArticle);
+            return new AsyncResult<>(true);
         } catch (ConstraintViolationException | DataIntegrityViolationException ce) {
             LOG.warn("Constraint violation exception, record already exists in DB : {}", failedArticle.toSaveString(),
                     ExceptionUtils.getRootCauseMessage(ce));
+            return new AsyncResult<>(false);
         } catch (Exception e) {
             throw new RepositoryException(String.format("FailedArticleEntity persistence failed for %s \t %s"
                     , publication, e.getMessage())
                     , e
                     , String.format("%s/%s", publication, this.SAVE_FAIL_SAFE_FILE)
-                    , failedArticle.toSaveString());
+                    , failedArticle.toSaveRecord());
         }
     }
 
@@ -169,7 +257,7 @@ public interface FailedArticleRepository extends CrudRepository<FailedArticleEnt
                         , failedArticle.getPublication(), e.getMessage())
                         , e
                         , String.format("%s/%s", failedArticle.getPublication(), this.DELETE_FAIL_SAFE_FILE)
-                        , failedArticle.toDeleteString());
+                        , failedArticle.toDeleteRecord());
             }
         }
     }
@@ -177,77 +265,107 @@ public interface FailedArticleRepository extends CrudRepository<FailedArticleEnt
 
     /**
      * This method save the articles that were failed while saving in {@link FailedArticleEntity}
-     * first time and was saved to the file.
+     * first time and were written to fail-safe journal.
      * <p>
-     * This method, reads the data from file and once all the data is saved, delete the file.
+     * This method, reads the records from journal in chunks and moves the checkpoint of journal past
+     * every chunk saved, a replay stopped by a crash resumes with the chunk not yet saved.
+     * If a chunk fails because of a record, eg. {@link DataIntegrityViolationException}, the records of chunk
+     * are saved one by one and the failing record is skipped. Other failures stop the replay, it is
+     * continued next time.
      * <p>
-     * This method runs asynchronously (In the background)
+     * This method is run by {@link de.funkedigital.autotagging.services.FailSafeReplayService} in the background,
+     * once records are appended to journal.
      *
-     * <b>IF, file is not present, that means there are no failed records to procees and nothing to worry.</b>
+     * <b>IF, journal has no records, that means there are no failed records to procees and nothing to worry.</b>
      *
-     * @param publication publication,for which the service is executing
-     * @param resource    location of resource.
+     * @param journal fail-safe journal of publication, {@link #SAVE_FAIL_SAFE_FILE}
+     * @param onSaved called with the articles inserted by every chunk, skipped records are not passed
+     * @return number of replayed records
      */
-    @Async
-    default void saveFromFile(String resource, String publication) {
-        LOG.debug("Saving data from file : {} {} {}", resource, publication, Thread.currentThread().getName());
+    default int saveFromJournal(FailSafeJournal journal, Consumer<Collection<FailedArticleEntity>> onSaved) {
+        LOG.debug("Saving data from journal : {} {}", journal.getName(), Thread.currentThread().getName());
         try {
-            File file = new File(resource.concat(publication)
-                    .concat(Constants.FOLDER_SEPARATOR + SAVE_FAIL_SAFE_FILE));
-            List<String> lines = FileUtils.readLines(file, Constants.STRING_ENCODING);
-
-            Set<FailedArticleEntity> failedArticles = new HashSet<>();
-            for (String line : lines) {
-                FailedArticleEntity failedArticle = new FailedArticleEntity().fromSaveString(line);
-                if (failedArticle != null) {
-                    failedArticles.add(failedArticle);
+            return journal.replay(records -> {
+                Set<FailedArticleEntity> failedArticles = new HashSet<>();
+                for (String[] record : records) {
+                    FailedArticleEntity failedArticle = new FailedArticleEntity().fromSaveRecord(record);
+                    if (failedArticle != null) {
+                        failedArticles.add(failedArticle);
+                    }
                 }
-            }
-            this.save(failedArticles);
-            FileUtils.deleteQuietly(file);
-        } catch (IOException e) {
-            LOG.debug("No records are there in fail-safe to save ", ExceptionUtils.getRootCauseMessage(e));
+                try {
+                    this.save(failedArticles);
+                    onSaved.accept(failedArticles);
+                } catch (ConstraintViolationException | DataIntegrityViolationException ce) {
+                    LOG.warn("Chunk of journal {} failed, saving records one by one : {}", journal.getName(),
+                            ExceptionUtils.getRootCauseMessage(ce));
+                    List<FailedArticleEntity> saved = new ArrayList<>();
+                    for (FailedArticleEntity failedArticle : failedArticles) {
+                        try {
+                            this.save(failedArticle);
+                            saved.add(failedArticle);
+                        } catch (ConstraintViolationException | DataIntegrityViolationException re) {
+                            LOG.warn("Skipped record of journal {} : {} {}", journal.getName(), failedArticle.getUrl(),
+                                    ExceptionUtils.getRootCauseMessage(re));
+                        }
+                    }
+                    onSaved.accept(saved);
+                }
+            });
         } catch (Exception e) {
-            LOG.error("Could not persist file data to DB ", ExceptionUtils.getRootCauseMessage(e));
+            LOG.error("Could not persist journal data to DB ", ExceptionUtils.getRootCauseMessage(e));
+            return 0;
         }
     }
 
 
     /**
-     * This method save the articles that were failed while deleting from {@link FailedArticleEntity}
-     * first time and was saved to the file.
+     * This method delete the articles that were failed while deleting from {@link FailedArticleEntity}
+     * first time and were written to fail-safe journal.
      * <p>
-     * This method, reads the data from file and once all the data is deleted, delete the file.
+     * This method, reads the records from journal in chunks and moves the checkpoint of journal past
+     * every chunk deleted, a replay stopped by a crash resumes with the chunk not yet deleted.
+     * If a chunk fails because of a record, eg. {@link EmptyResultDataAccessException}, the records of chunk
+     * are deleted one by one and the failing record is skipped. Other failures stop the replay, it is
+     * continued next time.
      * <p>
-     * This method runs asynchronously (In the background)
+     * This method is run by {@link de.funkedigital.autotagging.services.FailSafeReplayService} in the background,
+     * once records are appended to journal.
      *
-     * <b>IF, file is not present, that means there are no failed records to procees and nothing to worry.</b>
+     * <b>IF, journal has no records, that means there are no failed records to procees and nothing to worry.</b>
      *
-     * @param publication publication,for which the service is executing
-     * @param resource    location of resource.
+     * @param journal fail-safe journal of publication, {@link #DELETE_FAIL_SAFE_FILE}
+     * @return number of replayed records
      */
-    @Async
-    default void deleteFromFile(String resource, String publication) {
-        LOG.debug("deleting data from file : {} {} {}", resource, publication, Thread.currentThread().getName());
+    default int deleteFromJournal(FailSafeJournal journal) {
+        LOG.debug("deleting data from journal : {} {}", journal.getName(), Thread.currentThread().getName());
         try {
-            File file = new File(resource.concat(publication)
-                    .concat(Constants.FOLDER_SEPARATOR + DELETE_FAIL_SAFE_FILE));
-            List<String> lines = FileUtils.readLines(file, Constants.STRING_ENCODING);
-
-            Set<FailedArticleEntity> failedArticles = new HashSet<>();
-            for (String line : lines) {
-                FailedArticleEntity failedArticle = new FailedArticleEntity().fromDeleteString(line);
-                if (failedArticle != null) {
-                    failedArticles.add(failedArticle);
+            return journal.replay(records -> {
+                Set<FailedArticleEntity> failedArticles = new HashSet<>();
+                for (String[] record : records) {
+                    FailedArticleEntity failedArticle = new FailedArticleEntity().fromDeleteRecord(record);
+                    if (failedArticle != null) {
+                        failedArticles.add(failedArticle);
+                    }
                 }
-            }
-            this.delete(failedArticles);
-            // Once proceed all the articles successfully, delete the file.
-            FileUtils.deleteQuietly(file);
-        } catch (IOException e) {
-            LOG.debug("No records are there in fail-safe to delete ", ExceptionUtils.getRootCauseMessage(e));
+                try {
+                    this.delete(failedArticles);
+                } catch (ConstraintViolationException | EmptyResultDataAccessException ce) {
+                    LOG.warn("Chunk of journal {} failed, deleting records one by one : {}", journal.getName(),
+                            ExceptionUtils.getRootCauseMessage(ce));
+                    for (FailedArticleEntity failedArticle : failedArticles) {
+                        try {
+                            this.delete(failedArticle);
+                        } catch (ConstraintViolationException | EmptyResultDataAccessException re) {
+                            LOG.warn("Skipped record of journal {} : {} {}", journal.getName(), failedArticle.getUrl(),
+                                    ExceptionUtils.getRootCauseMessage(re));
+                        }
+                    }
+                }
+            });
         } catch (Exception e) {
-            LOG.error("Could not persist file data to DB ", ExceptionUtils.getRootCauseMessage(e));
+            LOG.error("Could not persist journal data to DB ", ExceptionUtils.getRootCauseMessage(e));
+            return 0;
         }
     }
 }
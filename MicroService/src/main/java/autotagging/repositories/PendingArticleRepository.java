@@ -2,26 +2,31 @@ package de.funkedigital.autotagging.repositories;
 
 import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
 import de.funkedigital.autotagging.exceptions.RepositoryException;
-import de.funkedigital.autotagging.utils.Constants;
-import org.apache.commons.io.FileUtils;
+import de.funkedigital.autotagging.journal.FailSafeJournal;
+import de.funkedigital.autotagging.utils.Utils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.ConstraintViolationException;
 import javax.validation.constraints.NotNull;
-import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is to save,delete records in {@link PendingArticleRepository}, if they fail to be processed
@@ -51,6 +56,120 @@ public interface PendingArticleRepository extends CrudRepository<PendingArticleE
     @Query(nativeQuery = true, value = "SELECT TOP 1 * from PENDING_ARTICLES where publication = :publication")
     PendingArticleEntity findTopArticle(@Param("publication") String publication);
 
+    /**
+     * It gets the ids of top articles from {@link PendingArticleEntity} which are not claimed
+     * or whose claim is expired, oldest first.
+     * <p>
+     * Ordered by publication and id, so the index (publication, id) is read in order and the query stops
+     * after limit rows.
+     *
+     * @param publication using publication as parameter
+     * @param now         current time, claims until before it are expired
+     * @param limit       maximum number of articles
+     * @return List of ids
+     */
+    @Query(nativeQuery = true, value = "SELECT id from PENDING_ARTICLES where publication = :publication " +
+            "AND (claimed_until IS NULL OR claimed_until < :now) ORDER BY publication, id LIMIT :limit")
+    List<Number> findClaimableIds(@Param("publication") String publication,
+                                  @Param("now") Date now,
+                                  @Param("limit") int limit);
+
+    /**
+     * Claim the articles, only if they are still not claimed or the claim is expired. The condition
+     * is checked by the database while updating, so a row is claimed by only one of concurrent callers.
+     *
+     * @param ids   ids of articles
+     * @param claim claim token
+     * @param now   current time, claims until before it are expired
+     * @param until end of the claim
+     * @return number of claimed articles
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE PENDING_ARTICLES SET claimed_by = :claim, claimed_until = :until " +
+            "where id IN (:ids) AND (claimed_until IS NULL OR claimed_until < :now)")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("claim") String claim,
+              @Param("now") Date now,
+              @Param("until") Date until);
+
+    /**
+     * Extend the claim of articles still in process, articles already completed are deleted or released.
+     *
+     * @param claim claim token
+     * @param until new end of the claim
+     * @return number of renewed articles
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE PENDING_ARTICLES SET claimed_until = :until where claimed_by = :claim")
+    int renew(@Param("claim") String claim,
+              @Param("until") Date until);
+
+    /**
+     * Release the claim of article, so it can be claimed again right away.
+     *
+     * @param id id of article
+     * @return number of released articles
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE PENDING_ARTICLES SET claimed_by = NULL, claimed_until = NULL " +
+            "where id = :id")
+    int release(@Param("id") Long id);
+
+    /**
+     * Get the articles of ids claimed with the claim token. A claim token can be used for several claims,
+     * articles of previous claims are not in ids.
+     *
+     * @param claim claim token
+     * @param ids   ids of articles
+     * @return List of {@link PendingArticleEntity}
+     */
+    @Query(nativeQuery = true, value = "SELECT * from PENDING_ARTICLES where claimed_by = :claim AND id IN (:ids) " +
+            "ORDER BY id")
+    List<PendingArticleEntity> findClaimedArticles(@Param("claim") String claim,
+                                                   @Param("ids") Collection<Long> ids);
+
+    /**
+     * Claim the top articles of publication for the lease time, so no other thread or instance
+     * process them meanwhile. Articles with an expired claim can be claimed again, this covers
+     * instances stopped while processing.
+     * <p>
+     * Ids are selected first and then claimed with a conditional update, the articles claimed
+     * by another caller in between are skipped.
+     *
+     * @param publication  using publication as parameter
+     * @param claim        claim token, the claim of articles with the token is renewed together
+     * @param limit        maximum number of articles
+     * @param leaseSeconds time the claim is valid for
+     * @return List of claimed {@link PendingArticleEntity}
+     */
+    default List<PendingArticleEntity> claimArticles(String publication, String claim, int limit, int leaseSeconds) {
+        Date now = new Date();
+        List<Long> ids = new ArrayList<>();
+        for (Number id : this.findClaimableIds(publication, now, limit)) {
+            ids.add(id.longValue());
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Date until = new Date(now.getTime() + TimeUnit.SECONDS.toMillis(leaseSeconds));
+        if (this.claim(ids, claim, now, until) == 0) {
+            return Collections.emptyList();
+        }
+        return this.findClaimedArticles(claim, ids);
+    }
+
+    /**
+     * Check if an article of publication can be claimed, reads one id only.
+     *
+     * @param publication using publication as parameter
+     * @return true if there is a claimable article
+     */
+    default boolean hasClaimableArticles(String publication) {
+        return !this.findClaimableIds(publication, new Date(), 1).isEmpty();
+    }
 
     /**
      * This method fires a query to find the record if already present in the {@link PendingArticleEntity}
@@ -64,15 +183,59 @@ public interface PendingArticleRepository extends CrudRepository<PendingArticleE
     boolean findByPublicationAndUrl(@Param("publication") String publication,
                                     @Param("url") String url);
 
+    /**
+     * This method fires a single query to find which of the given urls are already present
+     * in the {@link PendingArticleEntity}. It is the batched version of {@link #findByPublicationAndUrl(String, String)}
+     *
+     * @param publication publication,for which the service is executing
+     * @param urls        chunk of urls to be checked
+     * @return urls from the chunk which are present
+     */
+    @Query(nativeQuery = true, value = "SELECT url from " +
+            "PENDING_ARTICLES WHERE publication = :publication AND url IN (:urls) ")
+    List<String> findUrlsByPublicationAndUrlIn(@Param("publication") String publication,
+                                               @Param("urls") Collection<String> urls);
+
+    /**
+     * Get the next page of id and url given publication, ordered by id.
+     * <p>
+     * It is used to read the whole table in pages without OFFSET scans, pass the last
+     * id of previous page as lastId and {@link Pageable} with page 0.
+     *
+     * @param publication publication for query
+     * @param lastId      last id of previous page, 0 for first page
+     * @param pageable    size of the page
+     * @return List of [id, url]
+     */
+    @Query("SELECT e.id, e.url from PendingArticleEntity e WHERE e.publication = :publication AND e.id > :lastId " +
+            "ORDER BY e.id")
+    List<Object[]> findIdAndUrlByPublicationAfterId(@Param("publication") String publication,
+                                                    @Param("lastId") Long lastId,
+                                                    Pageable pageable);
+
     /**
      * This method returns the count of records for current month. and helps keep the
      * record of processed records.
      *
      * @return Count of records of current month
      */
+    default int getCountForCurrentMonth() {
+        Date now = new Date();
+        return getCountForExecutionDateBetween(Utils.getStartOfMonth(now), Utils.getStartOfNextMonth(now));
+    }
+
+    /**
+     * This method returns the count of records executed from start (inclusive) to end (exclusive).
+     * <p>
+     * execution_date is compared as is, so the index on execution_date is used.
+     *
+     * @param start start of range, inclusive
+     * @param end   end of range, exclusive
+     * @return Count of records in range
+     */
     @Query(nativeQuery = true, value = "select count(*) from PENDING_ARTICLES " +
-            "where year(execution_date) = year(current_date) and  month(execution_date) = month(current_date)")
-    int getCountForCurrentMonth();
+            "where execution_date >= :start and execution_date < :end")
+    int getCountForExecutionDateBetween(@Param("start") Date start, @Param("end") Date end);
 
     /**
      * This method perfrom search using article ID in url
@@ -131,46 +294,58 @@ public interface PendingArticleRepository extends CrudRepository<PendingArticleE
                         , pendingArticle.getPublication(), e.getMessage())
                         , e
                         , String.format("%s/%s", pendingArticle.getPublication(), this.DELETE_FAIL_SAFE_FILE)
-                        , pendingArticle.toString());
+                        , pendingArticle.toRecord());
             }
         }
     }
 
     /**
-     * This method save the articles that were failed while deleting from {@link PendingArticleEntity}
-     * first time and was saved to the file.
+     * This method delete the articles that were failed while deleting from {@link PendingArticleEntity}
+     * first time and were written to fail-safe journal.
      * <p>
-     * This method, reads the data from file and once all the data is deleted, delete the file.
+     * This method, reads the records from journal in chunks and moves the checkpoint of journal past
+     * every chunk deleted, a replay stopped by a crash resumes with the chunk not yet deleted.
+     * If a chunk fails because of a record, eg. {@link EmptyResultDataAccessException}, the records of chunk
+     * are deleted one by one and the failing record is skipped. Other failures stop the replay, it is
+     * continued next time.
      * <p>
-     * This method runs asynchronously (In the background)
+     * This method is run by {@link de.funkedigital.autotagging.services.FailSafeReplayService} in the background,
+     * once records are appended to journal.
      *
-     * <b>IF, file is not present, that means there are no failed records to procees and nothing to worry.</b>
+     * <b>IF, journal has no records, that means there are no failed records to procees and nothing to worry.</b>
      *
-     * @param publication publication,for which the service is executing
-     * @param resource    location of resource.
+     * @param journal fail-safe journal of publication, {@link #DELETE_FAIL_SAFE_FILE}
+     * @return number of replayed records
      */
-    @Async
-    default void deleteFromFile(String resource, String publication) {
-        LOG.debug("Deleting data from file : {} {} {}", resource, publication, Thread.currentThread().getName());
+    default int deleteFromJournal(FailSafeJournal journal) {
+        LOG.debug("Deleting data from journal : {} {}", journal.getName(), Thread.currentThread().getName());
         try {
-            File file = new File(resource.concat(publication)
-                    .concat(Constants.FOLDER_SEPARATOR + DELETE_FAIL_SAFE_FILE));
-            List<String> lines = FileUtils.readLines(file, Constants.STRING_ENCODING);
-
-            Set<PendingArticleEntity> pendingArticles = new HashSet<>();
-            for (String line : lines) {
-                PendingArticleEntity pendingArticle = new PendingArticleEntity().fromString(line);
-                if (pendingArticle != null) {
-                    pendingArticles.add(pendingArticle);
+            return journal.replay(records -> {
+                Set<PendingArticleEntity> pendingArticles = new HashSet<>();
+                for (String[] record : records) {
+                    PendingArticleEntity pendingArticle = new PendingArticleEntity().fromRecord(record);
+                    if (pendingArticle != null) {
+                        pendingArticles.add(pendingArticle);
+                    }
                 }
-            }
-            this.delete(pendingArticles);
-            // Once proceed all the articles succesfully, delete the file.
-            FileUtils.deleteQuietly(file);
-        } catch (IOException e) {
-            LOG.debug("No records are there in fail-safe to delete ", e.getMessage());
+                try {
+                    this.delete(pendingArticles);
+                } catch (ConstraintViolationException | EmptyResultDataAccessException ce) {
+                    LOG.warn("Chunk of journal {} failed, deleting records one by one : {}", journal.getName(),
+                            ExceptionUtils.getRootCauseMessage(ce));
+                    for (PendingArticleEntity pendingArticle : pendingArticles) {
+                        try {
+                            this.delete(pendingArticle);
+                        } catch (ConstraintViolationException | EmptyResultDataAccessException re) {
+                            LOG.warn("Skipped record of journal {} : {} {}", journal.getName(), pendingArticle.getUrl(),
+                                    ExceptionUtils.getRootCauseMessage(re));
+                        }
+                    }
+                }
+            });
         } catch (Exception e) {
-            LOG.error("Could not persist file data to DB ", e.getMessage());
+            LOG.error("Could not persist journal data to DB ", e.getMessage());
+            return 0;
         }
     }
 }
@@ -0,0 +1,43 @@
+package de.funkedigital.autotagging.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Pool the {@link org.springframework.scheduling.annotation.Scheduled} methods run on, eg. fail-safe replay,
+ * journal sync, write-behind flush of article transitions, rebuild of article url filter and quota refresh.
+ * <p>
+ * Without it they share one thread, a long replay delays the journal sync and the flush. The pool has
+ * scheduler.pool.maintenance.size threads and is not shared with the jobs of services, see {@link SchedulerPools}.
+ *
+ * @author sraj
+ */
+@Configuration
+public class MaintenanceSchedulingConfig implements SchedulingConfigurer {
+
+    /**
+     * Threads of maintenance pool
+     */
+    @Value("${scheduler.pool.maintenance.size:4}")
+    private int poolSize;
+
+    @Bean(name = "maintenanceScheduler")
+    public ThreadPoolTaskScheduler maintenanceScheduler() {
+        ThreadPoolTaskScheduler maintenanceScheduler = new ThreadPoolTaskScheduler();
+        maintenanceScheduler.setPoolSize(this.poolSize);
+        maintenanceScheduler.setThreadNamePrefix("scheduler-maintenance-");
+        return maintenanceScheduler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(maintenanceScheduler());
+    }
+}
@@ -7,6 +7,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 
 
@@ -26,6 +29,15 @@ public class ScheduleManager {
     @Autowired
     private Scheduler scheduler;
 
+    /**
+     * Autowired instance of {@link SchedulerPools}
+     */
+    @Autowired
+    private SchedulerPools schedulerPools;
+
+    // Jobs started, stopped on shutdown
+    private final Set<SchedulerJob> jobs = ConcurrentHashMap.newKeySet();
+
     /**
      * This method is used to start the execution of Service.
      * <p>
@@ -43,10 +55,10 @@ public class ScheduleManager {
      */
     public void start(SchedulerJob job) {
         LOG.info("Service started {} : {}", job.toString(), Thread.currentThread().getName());
-        ScheduledFuture<?> future = scheduler.schedule(
-                () -> job.getService().run(), job.getTrigger()
-        );
+        // Scheduled on the pool of service, see SchedulerPools
+        ScheduledFuture<?> future = schedulerPools.schedule(job);
         job.setFuture(future);
+        jobs.add(job);
     }
 
     /**
@@ -69,5 +81,16 @@ public class ScheduleManager {
         if (job.getFuture() != null) {
             scheduler.cancel(job.getFuture());
         }
+        // Threads of service are created again once started
+        job.getService().stop();
+    }
+
+    /**
+     * Stop all the started services on shutdown, services are prototypes and
+     * not destroyed by the container.
+     */
+    @PreDestroy
+    public void destroy() {
+        jobs.forEach(this::stop);
     }
 }
@@ -1,5 +1,6 @@
 package de.funkedigital.autotagging.scheduler;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
@@ -9,10 +10,26 @@ import java.util.concurrent.ScheduledFuture;
 /**
  * This class extends spring inbuilt {@link ThreadPoolTaskScheduler} and use to
  * schedule and cancel the runs of Service component in class {@link ScheduleManager}
+ * <p>
+ * It has scheduler.pool.size threads, jobs of all services run on it with
+ * {@link de.funkedigital.autotagging.enums.SchedulerModeEnum#Shared}, see {@link SchedulerPools}.
  */
 @Service
 public class Scheduler extends ThreadPoolTaskScheduler {
 
+    public Scheduler() {
+        setThreadNamePrefix("scheduler-");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Value("${scheduler.pool.size:4}")
+    public void setPoolSize(int poolSize) {
+        super.setPoolSize(poolSize);
+    }
+
     /**
      * {@inheritDoc}
      */
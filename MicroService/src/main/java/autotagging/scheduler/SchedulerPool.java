@@ -0,0 +1,131 @@
+package de.funkedigital.autotagging.scheduler;
+
+import de.funkedigital.autotagging.jobs.SchedulerJob;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Threads jobs of {@link SchedulerJob} run on, with metrics of saturation and queue wait.
+ * <p>
+ * A job is rescheduled only after its run completes, so a job occupies at most one thread of pool. With
+ * pool size larger than one, a publication whose run is slow (eg. sitemap download) holds one thread,
+ * the jobs of other publications run on the rest.
+ * <p>
+ * Queue wait of a run is the time between the execution time given by trigger and the start of run,
+ * it grows once all threads are busy.
+ *
+ * @author sraj
+ */
+public class SchedulerPool {
+
+    private final String name;
+
+    private final ThreadPoolTaskScheduler scheduler;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicLong runs = new AtomicLong();
+
+    private final AtomicLong waitTotal = new AtomicLong();
+
+    private final AtomicLong waitMax = new AtomicLong();
+
+    private final AtomicLong waitLast = new AtomicLong();
+
+    public SchedulerPool(String name, ThreadPoolTaskScheduler scheduler) {
+        this.name = name;
+        this.scheduler = scheduler;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ThreadPoolTaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Schedule the service of job with its trigger.
+     *
+     * @param job job to schedule
+     * @return future of job, to cancel it
+     */
+    public ScheduledFuture<?> schedule(SchedulerJob job) {
+        // Execution time of next run, set by trigger before the run is scheduled
+        AtomicLong scheduled = new AtomicLong();
+        Trigger trigger = triggerContext -> {
+            Date next = job.getTrigger().nextExecutionTime(triggerContext);
+            if (next != null) {
+                scheduled.set(next.getTime());
+            }
+            return next;
+        };
+        return scheduler.schedule(() -> {
+            waited(Math.max(0, System.currentTimeMillis() - scheduled.get()));
+            active.incrementAndGet();
+            try {
+                job.getService().run();
+            } finally {
+                active.decrementAndGet();
+                // Before the trigger is asked for the next run
+                job.getTrigger().completed(job.getService().getRunResult());
+            }
+        }, trigger);
+    }
+
+    private void waited(long wait) {
+        runs.incrementAndGet();
+        waitTotal.addAndGet(wait);
+        waitLast.set(wait);
+        waitMax.accumulateAndGet(wait, Math::max);
+    }
+
+    /**
+     * Configured threads of pool, threads are started on demand up to it.
+     *
+     * @return pool size
+     */
+    public int getSize() {
+        return scheduler.getScheduledThreadPoolExecutor().getCorePoolSize();
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * Busy threads in percent of pool size.
+     *
+     * @return saturation, 0 - 100
+     */
+    public int getSaturation() {
+        return active.get() * 100 / Math.max(1, getSize());
+    }
+
+    /**
+     * Add metrics of pool, prefix.{name}.*
+     *
+     * @param prefix  prefix of metrics
+     * @param metrics metrics to add to
+     */
+    public void metrics(String prefix, Collection<Metric<?>> metrics) {
+        String pool = prefix + this.name + ".";
+        long count = runs.get();
+        metrics.add(new Metric<>(pool + "size", getSize()));
+        metrics.add(new Metric<>(pool + "active", active.get()));
+        metrics.add(new Metric<>(pool + "saturation", getSaturation()));
+        metrics.add(new Metric<>(pool + "scheduled", scheduler.getScheduledThreadPoolExecutor().getQueue().size()));
+        metrics.add(new Metric<>(pool + "runs", count));
+        metrics.add(new Metric<>(pool + "wait.last", waitLast.get()));
+        metrics.add(new Metric<>(pool + "wait.max", waitMax.get()));
+        metrics.add(new Metric<>(pool + "wait.avg", count == 0 ? 0 : waitTotal.get() / count));
+    }
+}
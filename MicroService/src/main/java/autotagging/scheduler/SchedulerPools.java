@@ -0,0 +1,141 @@
+package de.funkedigital.autotagging.scheduler;
+
+import de.funkedigital.autotagging.enums.SchedulerModeEnum;
+import de.funkedigital.autotagging.enums.ServiceEnum;
+import de.funkedigital.autotagging.jobs.SchedulerJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Pools the jobs of services are scheduled on, see {@link SchedulerModeEnum}.
+ * <p>
+ * ----> {@link SchedulerModeEnum#Shared}, jobs of all services run on {@link Scheduler}, scheduler.pool.size
+ * threads.
+ * ----> {@link SchedulerModeEnum#Service}, every {@link ServiceEnum} has own pool, scheduler.pool.load.size,
+ * scheduler.pool.pending.size and scheduler.pool.failed.size threads. A sitemap download or the retry wait
+ * of {@link de.funkedigital.autotagging.services.LoadArticleService} does not delay the tagging.
+ * <p>
+ * Within a pool, a job of a publication occupies at most one thread, see {@link SchedulerPool}.
+ *
+ * @author sraj
+ */
+@Component
+public class SchedulerPools implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchedulerPools.class);
+
+    private static final String PREFIX = "scheduler.pool.";
+
+    /**
+     * Autowired instance of {@link Scheduler}
+     */
+    @Autowired
+    private Scheduler scheduler;
+
+    /**
+     * Mode of scheduling, {@link SchedulerModeEnum}
+     */
+    @Value("${scheduler.pool.mode:Service}")
+    private SchedulerModeEnum mode;
+
+    /**
+     * Threads of {@link ServiceEnum#LoadArticleService} pool
+     */
+    @Value("${scheduler.pool.load.size:2}")
+    private int loadPoolSize;
+
+    /**
+     * Threads of {@link ServiceEnum#PendingArticleService} pool
+     */
+    @Value("${scheduler.pool.pending.size:4}")
+    private int pendingPoolSize;
+
+    /**
+     * Threads of {@link ServiceEnum#FailedArticleService} pool
+     */
+    @Value("${scheduler.pool.failed.size:2}")
+    private int failedPoolSize;
+
+    private final Map<ServiceEnum, SchedulerPool> pools = new EnumMap<>(ServiceEnum.class);
+
+    @PostConstruct
+    public void init() {
+        if (this.mode == SchedulerModeEnum.Shared) {
+            SchedulerPool shared = new SchedulerPool("shared", this.scheduler);
+            for (ServiceEnum service : ServiceEnum.values()) {
+                pools.put(service, shared);
+            }
+        } else {
+            pools.put(ServiceEnum.LoadArticleService, pool("load", this.loadPoolSize));
+            pools.put(ServiceEnum.PendingArticleService, pool("pending", this.pendingPoolSize));
+            pools.put(ServiceEnum.FailedArticleService, pool("failed", this.failedPoolSize));
+        }
+        LOG.info("Scheduling services with mode {}", this.mode);
+    }
+
+    private SchedulerPool pool(String name, int poolSize) {
+        ThreadPoolTaskScheduler poolScheduler = new ThreadPoolTaskScheduler();
+        poolScheduler.setPoolSize(poolSize);
+        poolScheduler.setThreadNamePrefix("scheduler-" + name + "-");
+        poolScheduler.setRemoveOnCancelPolicy(true);
+        poolScheduler.initialize();
+        return new SchedulerPool(name, poolScheduler);
+    }
+
+    /**
+     * Get the pool of service.
+     *
+     * @param service service of job
+     * @return {@link SchedulerPool}
+     */
+    public SchedulerPool get(ServiceEnum service) {
+        return pools.get(service);
+    }
+
+    /**
+     * Schedule the job on the pool of its service.
+     *
+     * @param job job to schedule
+     * @return future of job, to cancel it
+     */
+    public ScheduledFuture<?> schedule(SchedulerJob job) {
+        return pools.get(job.getServiceEnum()).schedule(job);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (SchedulerPool pool : new LinkedHashSet<>(pools.values())) {
+            if (pool.getScheduler() != this.scheduler) {
+                pool.getScheduler().shutdown();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (SchedulerPool pool : new LinkedHashSet<>(pools.values())) {
+            pool.metrics(PREFIX, metrics);
+        }
+        return metrics;
+    }
+}
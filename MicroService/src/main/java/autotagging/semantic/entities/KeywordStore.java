@@ -2,12 +2,15 @@ package de.funkedigital.autotagging.semantic.entities;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-public class KeywordStore {
+public class KeywordStore implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final String SEP = ",";
 
@@ -13,6 +13,8 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
@@ -29,13 +31,14 @@ public class RestClient<U, T> {
     private static final Logger LOG = LoggerFactory.getLogger(RestClient.class);
 
     /**
-     * Constructor based Autowired Rest template, using {@link RestTemplateBuilder}
+     * Constructor based Autowired Rest template, using {@link RestTemplateBuilder} and pooled
+     * {@link ClientHttpRequestFactory} from {@link de.funkedigital.autotagging.http.HttpClientConfig}
      */
     private final RestTemplate restTemplate;
 
     @Autowired
-    public RestClient(RestTemplateBuilder restTemplateBuilder) {
-        this.restTemplate = restTemplateBuilder.build();
+    public RestClient(RestTemplateBuilder restTemplateBuilder, ClientHttpRequestFactory clientHttpRequestFactory) {
+        this.restTemplate = restTemplateBuilder.requestFactory(clientHttpRequestFactory).build();
     }
 
     /**
@@ -51,17 +54,24 @@ public class RestClient<U, T> {
             ResponseEntity<T[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, resClass);
             LOG.debug("response received : {} : {}", url, response);
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody().length != 0) {
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null
+                    && response.getBody().length != 0) {
                 // Response is array of Json.
                 return response.getBody()[0];
             } else {
                 throw new RestClientException("Empty response received from rest service : " + url,
                         HttpStatus.UNPROCESSABLE_ENTITY);
             }
+        } catch (RestClientException e) {
+            throw e;
         } catch (HttpClientErrorException e) {
             throw new RestClientException("Error occurred while getting results from Rest service : " + url, e,
                     e.getStatusCode());
         } catch (Exception e) {
+            if (isUnreadable(e)) {
+                throw new RestClientException("Unreadable response received from rest service : " + url + " : "
+                        + ExceptionUtils.getRootCauseMessage(e), e, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
             throw new RestClientException("URL : " + url + " : " + ExceptionUtils.getRootCauseMessage(e)
                     , e
                     , HttpStatus.SERVICE_UNAVAILABLE);
@@ -87,6 +97,11 @@ public class RestClient<U, T> {
                     " and request " + request.toString(), e,
                     e.getStatusCode());
         } catch (Exception e) {
+            if (isUnreadable(e)) {
+                throw new RestClientException("Unreadable response received from rest service : " + url +
+                        " and request " + request.toString() + " : " + ExceptionUtils.getRootCauseMessage(e), e,
+                        HttpStatus.UNPROCESSABLE_ENTITY);
+            }
             throw new RestClientException("URL : " + url + " Request : " + request.toString() + " : "
                     + ExceptionUtils.getRootCauseMessage(e)
                     , e
@@ -94,6 +109,13 @@ public class RestClient<U, T> {
         }
     }
 
+    /**
+     * Response could not be mapped to the response class, the service answered and is not down
+     */
+    private boolean isUnreadable(Exception e) {
+        return ExceptionUtils.indexOfThrowable(e, HttpMessageNotReadableException.class) != -1;
+    }
+
     /**
      * Headers for GET request
      */
@@ -2,6 +2,7 @@ package de.funkedigital.autotagging.semantic.restclients;
 
 import de.funkedigital.autotagging.exceptions.RestClientException;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,8 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
@@ -22,13 +25,14 @@ public class RestClient<T> {
     private static final Logger LOG = LoggerFactory.getLogger(RestClient.class);
 
     /**
-     * Constructor based Autowired Rest template, using {@link RestTemplateBuilder}
+     * Constructor based Autowired Rest template, using {@link RestTemplateBuilder} and pooled
+     * {@link ClientHttpRequestFactory} from {@link de.funkedigital.autotagging.http.HttpClientConfig}
      */
     private final RestTemplate restTemplate;
 
     @Autowired
-    public RestClient(RestTemplateBuilder restTemplateBuilder) {
-        this.restTemplate = restTemplateBuilder.build();
+    public RestClient(RestTemplateBuilder restTemplateBuilder, ClientHttpRequestFactory clientHttpRequestFactory) {
+        this.restTemplate = restTemplateBuilder.requestFactory(clientHttpRequestFactory).build();
     }
 
     /**
@@ -48,16 +52,23 @@ public class RestClient<T> {
             ResponseEntity<T[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, klass);
             LOG.debug("response received : {} : {}", url, response);
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody().length != 0) {
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null
+                    && response.getBody().length != 0) {
                 // Response is array of Json.
                 return response.getBody()[0];
             } else {
                 throw new RestClientException("Empty response received from Semantic engine service : " + url, HttpStatus.UNPROCESSABLE_ENTITY);
             }
+        } catch (RestClientException e) {
+            throw e;
         } catch (HttpClientErrorException e) {
             throw new RestClientException("Error occurred while getting results from Semantic engine service : " + url, e,
                     e.getStatusCode());
         } catch (Exception e) {
+            if (ExceptionUtils.indexOfThrowable(e, HttpMessageNotReadableException.class) != -1) {
+                // Response could not be mapped, the service answered and is not down
+                throw new RestClientException(e.getMessage() + " : " + url, e, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
             throw new RestClientException(e.getMessage() + " : " + url, e, HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
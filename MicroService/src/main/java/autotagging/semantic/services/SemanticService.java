@@ -1,6 +1,9 @@
 package de.funkedigital.autotagging.semantic.services;
 
 import com.google.common.base.Splitter;
+import de.funkedigital.autotagging.cache.SemanticResultCache;
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.enums.UpstreamEnum;
 import de.funkedigital.autotagging.semantic.entities.KeywordStore;
 import de.funkedigital.autotagging.semantic.entities.json.ClientCustomProperties;
 import de.funkedigital.autotagging.semantic.entities.json.Keyword;
@@ -50,6 +53,18 @@ public class SemanticService {
         this.restClient = restClient;
     }
 
+    /**
+     * Autowired instance of {@link SemanticResultCache}
+     */
+    @Autowired
+    private SemanticResultCache semanticResultCache;
+
+    /**
+     * Autowired instance of {@link CircuitBreakers}
+     */
+    @Autowired
+    private CircuitBreakers circuitBreakers;
+
     /**
      * This method fetch keywords from Semantic Service using {@link RestClient}
      * which takes String as Request and return {@link SemanticResponse} as response.
@@ -70,21 +85,34 @@ public class SemanticService {
      * which contains the topics returned by Service
      * ----></li>
      * </ul>
+     * <p>
+     * Keywords of an assetId are cached in {@link SemanticResultCache}, a cached assetId does not call the
+     * Semantic service and does not go through the circuit of {@link CircuitBreakers}. The article is still
+     * saved and counts for the records per month, the record is reserved with
+     * {@link de.funkedigital.autotagging.services.QuotaService#reserve()} before this call.
      *
      * @param assetId assetID returned from {@link UnicornService}
      * @return Collected keywords from Semantic service
      */
     public KeywordStore returnKeywords(String assetId) {
+        KeywordStore cached = semanticResultCache.getKeywords(assetId);
+        if (cached != null) {
+            LOG.debug("Keywords returned from cache for article id {}", assetId);
+            return cached;
+        }
         // Url needs to be formatted before request is sent.
         // Format would be "http://funke.api.lab.watchmi.tv/asset?id=escenic-211714863"
         String url = String.format("%s%s", this.url, assetId);
 
         // Calling RestClient.getRequest for getting the response in Object type.
-        SemanticResponse semanticResponse = this.restClient.getRequest(url, login, password, SemanticResponse[].class);
+        SemanticResponse semanticResponse = circuitBreakers.call(UpstreamEnum.Semantic,
+                () -> this.restClient.getRequest(url, login, password, SemanticResponse[].class));
         LOG.debug("Object returned successfully for article id {}", assetId);
 
         // Create keywordStore to return
-        return getKeywordStore(semanticResponse);
+        KeywordStore keywordStore = getKeywordStore(semanticResponse);
+        semanticResultCache.putKeywords(assetId, keywordStore);
+        return keywordStore;
     }
 
     /**
@@ -1,5 +1,8 @@
 package de.funkedigital.autotagging.semantic.services;
 
+import de.funkedigital.autotagging.cache.SemanticResultCache;
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.enums.UpstreamEnum;
 import de.funkedigital.autotagging.semantic.entities.UnicornStore;
 import de.funkedigital.autotagging.semantic.entities.web.AssetRequest;
 import de.funkedigital.autotagging.semantic.entities.web.AssetResponse;
@@ -44,18 +47,38 @@ public class UnicornService {
         this.restClient = restClient;
     }
 
+    /**
+     * Autowired instance of {@link SemanticResultCache}
+     */
+    @Autowired
+    private SemanticResultCache semanticResultCache;
+
+    /**
+     * Autowired instance of {@link CircuitBreakers}
+     */
+    @Autowired
+    private CircuitBreakers circuitBreakers;
+
     /**
      * This method gets the Article analyzed by Unicorn service.
      * <p>
      * This is pre-step of {@link SemanticService}.
      * As, {@link SemanticService} needs assetId to fetch KeywordStore
      * and {@link this} service is used to fetch assetId from article URL
+     * <p>
+     * AssetId of an url is cached in {@link SemanticResultCache}, only the request to Unicorn service
+     * goes through the circuit of {@link CircuitBreakers}.
      *
      * @param articleUrl url of article to be analyzed by Unicorn service
      * @return {@link UnicornStore} containing returned AssetID
      */
     public UnicornStore analyzeArticle(String articleUrl) {
         LOG.debug("Running analyzeArticle {} : {}", articleUrl, Thread.currentThread().getName());
+        String assetId = semanticResultCache.getAssetId(articleUrl);
+        if (assetId != null) {
+            return new UnicornStore(assetId);
+        }
+        String cacheKey = articleUrl;
         // Prepare request
         AssetRequest request = new AssetRequest();
         // Process for UAT
@@ -63,9 +86,11 @@ public class UnicornService {
         request.setUrl(articleUrl);
 
         // Calling RestClient.getRequest for getting the response in Object type.
-        AssetResponse ar = this.restClient.postRequest(this.url, login, password, request, AssetResponse.class);
+        AssetResponse ar = circuitBreakers.call(UpstreamEnum.Unicorn,
+                () -> this.restClient.postRequest(this.url, login, password, request, AssetResponse.class));
         LOG.debug("Object returned successfuly for article id {}", articleUrl);
 
+        semanticResultCache.putAssetId(cacheKey, ar.getAssetid());
         return new UnicornStore(ar.getAssetid());
     }
 
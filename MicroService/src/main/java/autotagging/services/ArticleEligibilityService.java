@@ -0,0 +1,188 @@
+package de.funkedigital.autotagging.services;
+
+import de.funkedigital.autotagging.cache.ArticleUrlFilter;
+import de.funkedigital.autotagging.entities.repo.DeadArticleEntity;
+import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
+import de.funkedigital.autotagging.repositories.ArticleTransitionRepository;
+import de.funkedigital.autotagging.repositories.DeadArticleRepository;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This service decides which article urls are eligible to be saved to {@link PendingArticleEntity}.
+ * <p>
+ * An url is eligible if it is an article url and it is not present in {@link PendingArticleEntity},
+ * {@link ExecutedArticleEntity}, {@link FailedArticleEntity} and {@link DeadArticleEntity}. The urls are
+ * checked in chunks, with one query per table for the whole chunk, instead of four queries for every url.
+ * Urls definitely not seen by {@link ArticleUrlFilter} are not checked in database at all.
+ * <p>
+ * The filter only knows the urls of this instance since it was built, so the insert of pending articles
+ * checks the tables again, see {@link ArticleTransitionRepository#insertPending(List)}.
+ *
+ * @author sraj
+ */
+@Service
+public class ArticleEligibilityService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleEligibilityService.class);
+
+    /**
+     * Autowired instance of {@link PendingArticleRepository}
+     */
+    @Autowired
+    private PendingArticleRepository pendingArticleRepository;
+
+    /**
+     * Autowired instance of {@link ExecutedArticleRepository}
+     */
+    @Autowired
+    private ExecutedArticleRepository executedArticleRepository;
+
+    /**
+     * Autowired instance of {@link FailedArticleRepository}
+     */
+    @Autowired
+    private FailedArticleRepository failedArticleRepository;
+
+    /**
+     * Autowired instance of {@link DeadArticleRepository}
+     */
+    @Autowired
+    private DeadArticleRepository deadArticleRepository;
+
+    /**
+     * Autowired instance of {@link ArticleTransitionRepository}
+     */
+    @Autowired
+    private ArticleTransitionRepository articleTransitionRepository;
+
+    /**
+     * Autowired instance of {@link ArticleUrlFilter}
+     */
+    @Autowired
+    private ArticleUrlFilter articleUrlFilter;
+
+    /**
+     * Check whether the url is an article url, only those urls are processed.
+     *
+     * @param url Url to be checked
+     * @return true, if url is an article url
+     */
+    public boolean isArticleUrl(String url) {
+        return url != null && url.toLowerCase().contains("article");
+    }
+
+    /**
+     * Return the urls from chunk which are not yet present in {@link PendingArticleRepository},
+     * {@link ExecutedArticleRepository}, {@link FailedArticleRepository} and {@link DeadArticleRepository}.
+     * <p>
+     * Urls which were definitely not seen by {@link ArticleUrlFilter} are eligible without checking
+     * the database, only the rest of urls are checked.
+     * <p>
+     * Caller should keep the chunk size bounded, as all the urls of chunk are sent
+     * in one IN clause per table.
+     *
+     * @param publication publication,for which the service is executing
+     * @param urls        chunk of article urls
+     * @return urls eligible for processing
+     */
+    public Set<String> filterEligible(String publication, Collection<String> urls) {
+        Set<String> eligible = new LinkedHashSet<>();
+        Set<String> mightBeSeen = new LinkedHashSet<>();
+        // Without filter every url is a possible hit, they are not counted for false positives
+        boolean filtered = articleUrlFilter.isBuilt(publication);
+        for (String url : urls) {
+            if (articleUrlFilter.mightContain(publication, url)) {
+                mightBeSeen.add(url);
+            } else {
+                eligible.add(url);
+            }
+        }
+        int possibleHits = mightBeSeen.size();
+        if (!mightBeSeen.isEmpty()) {
+            mightBeSeen.removeAll(pendingArticleRepository.findUrlsByPublicationAndUrlIn(publication, mightBeSeen));
+        }
+        if (!mightBeSeen.isEmpty()) {
+            mightBeSeen.removeAll(executedArticleRepository.findUrlsByPublicationAndUrlIn(publication, mightBeSeen));
+        }
+        if (!mightBeSeen.isEmpty()) {
+            mightBeSeen.removeAll(failedArticleRepository.findUrlsByPublicationAndUrlIn(publication, mightBeSeen));
+        }
+        if (!mightBeSeen.isEmpty()) {
+            mightBeSeen.removeAll(deadArticleRepository.findUrlsByPublicationAndUrlIn(publication, mightBeSeen));
+        }
+        if (filtered) {
+            articleUrlFilter.confirmHits(possibleHits - mightBeSeen.size());
+        }
+        eligible.addAll(mightBeSeen);
+        LOG.debug("Eligible urls {} of {} for {}", eligible.size(), urls.size(), publication);
+        return eligible;
+    }
+
+    /**
+     * Save the eligible urls to {@link PendingArticleRepository} and add them to {@link ArticleUrlFilter}.
+     * <p>
+     * Urls saved meanwhile by another instance to any of the tables are skipped by the insert. If a url
+     * is inserted by another instance at the same time, the batch fails and the urls are inserted one by one,
+     * the duplicate url is skipped.
+     *
+     * @param publication publication,for which the service is executing
+     * @param urls        eligible urls, {@link #filterEligible(String, Collection)}
+     * @return number of saved urls
+     */
+    public int savePending(String publication, Collection<String> urls) {
+        List<PendingArticleEntity> pendingArticles = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            pendingArticles.add(new PendingArticleEntity(publication, url));
+        }
+        int saved;
+        try {
+            saved = ArticleTransitionRepository.inserted(articleTransitionRepository.insertPending(pendingArticles));
+        } catch (DataIntegrityViolationException e) {
+            LOG.warn("Batch of pending articles failed for {}, inserting one by one : {}", publication,
+                    ExceptionUtils.getRootCauseMessage(e));
+            saved = 0;
+            for (PendingArticleEntity pendingArticle : pendingArticles) {
+                try {
+                    saved += ArticleTransitionRepository.inserted(
+                            articleTransitionRepository.insertPending(Collections.singletonList(pendingArticle)));
+                } catch (DataIntegrityViolationException de) {
+                    LOG.warn("Skipped pending article, already saved {} : {}", publication, pendingArticle.getUrl());
+                }
+            }
+        }
+        // Skipped urls are in the database too, they are checked there next time
+        markSeen(publication, urls);
+        LOG.debug("Saved pending urls {} of {} for {}", saved, urls.size(), publication);
+        return saved;
+    }
+
+    /**
+     * Add the urls saved to {@link PendingArticleRepository} to {@link ArticleUrlFilter},
+     * so they are checked in database next time.
+     *
+     * @param publication publication,for which the service is executing
+     * @param urls        urls saved to pending articles
+     */
+    public void markSeen(String publication, Collection<String> urls) {
+        for (String url : urls) {
+            articleUrlFilter.put(publication, url);
+        }
+    }
+}
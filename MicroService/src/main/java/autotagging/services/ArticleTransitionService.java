@@ -0,0 +1,244 @@
+package de.funkedigital.autotagging.services;
+
+import de.funkedigital.autotagging.cache.ArticleUrlFilter;
+import de.funkedigital.autotagging.entities.repo.ArticleTransition;
+import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
+import de.funkedigital.autotagging.interceptors.FailSafeInterceptor;
+import de.funkedigital.autotagging.repositories.ArticleTransitionRepository;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Article transitions, pending article to executed or failed article, with {@link ArticleTransitionRepository}.
+ * An article, or a batch of articles, is moved in one transaction.
+ * <p>
+ * ----> {@link #transition(ArticleTransition)} moves the article right away.
+ * ----> {@link #queue(ArticleTransition)} returns immediately (write-behind). Queued transitions are written
+ * in batches, when article.transition.flush.size transitions are queued or every
+ * article.transition.flush.interval milliseconds.
+ * <p>
+ * ----> If a batch fails, transitions are written one-by-one, each in own transaction.
+ * ----> If a transition fails (DB down), its records are written to the fail-safe files of
+ * {@link ExecutedArticleRepository}, {@link FailedArticleRepository} and {@link PendingArticleRepository}
+ * with {@link FailSafeInterceptor}, and processed from there as before.
+ *
+ * @author sraj
+ */
+@Service
+public class ArticleTransitionService implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleTransitionService.class);
+
+    private static final String PREFIX = "article.transition.";
+
+    /**
+     * Number of queued transitions which triggers a flush
+     */
+    @Value("${article.transition.flush.size:100}")
+    private int flushSize;
+
+    /**
+     * Autowired instance of {@link ArticleTransitionRepository}
+     */
+    @Autowired
+    private ArticleTransitionRepository articleTransitionRepository;
+
+    /**
+     * Autowired instance of {@link FailSafeInterceptor}
+     */
+    @Autowired
+    private FailSafeInterceptor failSafeInterceptor;
+
+    /**
+     * Autowired instance of {@link ArticleUrlFilter}
+     */
+    @Autowired
+    private ArticleUrlFilter articleUrlFilter;
+
+    /**
+     * Autowired instance of {@link QuotaService}
+     */
+    @Autowired
+    private QuotaService quotaService;
+
+    private final ConcurrentLinkedQueue<ArticleTransition> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // Only one flush at a time
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong failSafe = new AtomicLong();
+
+    /**
+     * Move the article now, in one transaction.
+     *
+     * @param transition {@link ArticleTransition} to write
+     */
+    public void transition(ArticleTransition transition) {
+        write(Collections.singletonList(transition));
+    }
+
+    /**
+     * Queue the move of article, it is written with the next batch.
+     *
+     * @param transition {@link ArticleTransition} to write
+     */
+    public void queue(ArticleTransition transition) {
+        add(transition);
+    }
+
+    private void add(ArticleTransition transition) {
+        queue.add(transition);
+        if (queued.incrementAndGet() >= this.flushSize && flushLock.tryLock()) {
+            // This worker writes the batch, others continue.
+            try {
+                flushAll();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write all queued transitions, runs every article.transition.flush.interval milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${article.transition.flush.interval:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private void flushAll() {
+        List<ArticleTransition> batch = drain();
+        while (!batch.isEmpty()) {
+            write(batch);
+            batch = drain();
+        }
+    }
+
+    private List<ArticleTransition> drain() {
+        List<ArticleTransition> batch = new ArrayList<>(this.flushSize);
+        ArticleTransition transition;
+        while (batch.size() < this.flushSize && (transition = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(transition);
+        }
+        return batch;
+    }
+
+    /**
+     * Write one batch in one transaction.
+     * <p>
+     * If the batch fails, each transition is written in own transaction, so one bad record does not fail the
+     * others. A transition which still fails is written to fail-safe files.
+     * <p>
+     * Records of quota reserved for the articles are released once the batch is written.
+     */
+    private void write(List<ArticleTransition> batch) {
+        LOG.debug("Writing {} article transitions : {}", batch.size(), Thread.currentThread().getName());
+        for (ArticleTransition transition : batch) {
+            articleUrlFilter.put(transition.getPublication(), transition.getUrl());
+        }
+        int reserved = (int) batch.stream().filter(ArticleTransition::isQuotaReserved).count();
+        try {
+            quotaService.recorded(articleTransitionRepository.transition(batch));
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            LOG.error("Transition of {} articles failed : {}", batch.size(), ExceptionUtils.getRootCauseMessage(e));
+            if (batch.size() == 1 || !(e instanceof DataIntegrityViolationException)) {
+                // DB is not available, no need to try one-by-one.
+                batch.forEach(this::failSafe);
+            } else {
+                for (ArticleTransition transition : batch) {
+                    try {
+                        quotaService.recorded(articleTransitionRepository.transition(
+                                Collections.singletonList(transition)));
+                        written.incrementAndGet();
+                    } catch (Exception te) {
+                        LOG.error("Transition failed {} : {}", transition, ExceptionUtils.getRootCauseMessage(te));
+                        failSafe(transition);
+                    }
+                }
+            }
+        }
+        // Articles are counted now, or in fail-safe files and counted by FailSafeReplayService once replayed
+        quotaService.release(reserved);
+        flushes.incrementAndGet();
+    }
+
+    /**
+     * Write the transition to fail-safe files of {@link ExecutedArticleRepository}, {@link FailedArticleRepository}
+     * and {@link PendingArticleRepository}
+     */
+    private void failSafe(ArticleTransition transition) {
+        if (transition.getExecutedArticle() != null) {
+            ExecutedArticleEntity executed = transition.getExecutedArticle();
+            failSafe(String.format("%s/%s", executed.getPublication(), ExecutedArticleRepository.SAVE_FAIL_SAFE_FILE),
+                    executed.toRecord());
+        } else {
+            FailedArticleEntity failed = transition.getFailedArticle();
+            failSafe(String.format("%s/%s", failed.getPublication(), FailedArticleRepository.SAVE_FAIL_SAFE_FILE),
+                    failed.toSaveRecord());
+        }
+        PendingArticleEntity pending = transition.getPendingArticle();
+        if (pending != null) {
+            failSafe(String.format("%s/%s", pending.getPublication(), PendingArticleRepository.DELETE_FAIL_SAFE_FILE),
+                    pending.toRecord());
+        }
+    }
+
+    private void failSafe(String fileName, String... record) {
+        failSafe.incrementAndGet();
+        failSafeInterceptor.write(fileName, record);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(PREFIX + "queued", queued.get()));
+        metrics.add(new Metric<>(PREFIX + "flushes", flushes.get()));
+        metrics.add(new Metric<>(PREFIX + "written", written.get()));
+        metrics.add(new Metric<>(PREFIX + "failsafe", failSafe.get()));
+        return metrics;
+    }
+}
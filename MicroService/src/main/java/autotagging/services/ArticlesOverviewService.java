@@ -2,8 +2,6 @@ package de.funkedigital.autotagging.services;
 
 import de.funkedigital.autotagging.enums.ServiceEnum;
 import de.funkedigital.autotagging.jobs.SchedulerJob;
-import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
-import de.funkedigital.autotagging.repositories.FailedArticleRepository;
 import de.funkedigital.autotagging.repositories.PendingArticleRepository;
 import de.funkedigital.autotagging.repositories.PublicationRepository;
 import de.funkedigital.autotagging.scheduler.ScheduleManager;
@@ -39,6 +37,12 @@ public class ArticlesOverviewService implements ServiceInterface {
     @Value("${semantic.records.max.per.month}")
     private Integer maxRecordsPerMonth;
 
+    /**
+     * Autowired instance of {@link QuotaService}
+     */
+    @Autowired
+    private QuotaService quotaService;
+
     @Autowired
     @Qualifier("articlesServices")
     private Map<String, SchedulerJob> articlesServices;
@@ -55,28 +59,16 @@ public class ArticlesOverviewService implements ServiceInterface {
     @Autowired
     private PublicationRepository publicationRepository;
 
-    /**
-     * Autowired instance of {@link ExecutedArticleRepository}
-     */
-    @Autowired
-    private ExecutedArticleRepository executedArticleRepository;
-
     /**
      * Autowired instance of {@link PendingArticleRepository}
      */
     @Autowired
     private PendingArticleRepository pendingArticleRepository;
 
-    /**
-     * Autowired instance of {@link FailedArticleRepository}
-     */
-    @Autowired
-    private FailedArticleRepository failedArticleRepository;
-
     /**
      * This service used to controll the execution if number of execution excceds the limit.
      * <p>
-     * --> Check count from {@link ExecutedArticleRepository} and {@link FailedArticleRepository}
+     * --> Check count of executed and failed articles from {@link QuotaService}
      * ---> If records processed > max number (100,000)
      * -----> Stop all services, if not stopped
      * ---> Else
@@ -94,13 +86,11 @@ public class ArticlesOverviewService implements ServiceInterface {
     public void run() {
         LOG.debug("Executing run() every 24 hour : {}", Thread.currentThread().getName());
         // Get counts
-        int executedArticleCounts = executedArticleRepository.getCountForCurrentMonth();
-        int failedArticlesCount = failedArticleRepository.getCountForCurrentMonth();
         int pendingArticlesCount = pendingArticleRepository.getCountForCurrentMonth();
 
         LOG.info("Total pending records left to be processed {}", pendingArticlesCount);
-        // Total count
-        int totalRecordsProcessedThisMonth = executedArticleCounts + failedArticlesCount;
+        // Total count, kept by counters instead of counting the tables
+        long totalRecordsProcessedThisMonth = quotaService.getCount();
         if (totalRecordsProcessedThisMonth >= maxRecordsPerMonth) {
             LOG.warn("Total count {} for month has exceeded the limit {}", totalRecordsProcessedThisMonth, maxRecordsPerMonth);
             LOG.warn("Stopping the execution of all the scheduled services !!");
@@ -0,0 +1,142 @@
+package de.funkedigital.autotagging.services;
+
+import de.funkedigital.autotagging.entities.web.Response;
+import de.funkedigital.autotagging.exceptions.RejectedRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This service serves the Web request asynchronously, {@link WebService} runs on own bounded pool
+ * instead of the servlet container thread.
+ * <p>
+ * ----> If all threads are busy and the queue is full, the request is rejected with {@link HttpStatus#TOO_MANY_REQUESTS}
+ * ----> If the request is not answered within web.service.async.timeout, it is answered with
+ * {@link HttpStatus#GATEWAY_TIMEOUT} and it is not started, if it still waits in the queue. A started request
+ * is not interrupted, it completes and the article is saved as for the synchronous request.
+ * <p>
+ * This way slow upstream services can not block the threads serving admin pages and actuator.
+ *
+ * @author sraj
+ */
+@Service
+public class AsyncWebService implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncWebService.class);
+
+    private static final String PREFIX = "web.async.";
+
+    @Value("${web.service.async.threads:8}")
+    private int threads;
+
+    @Value("${web.service.async.queue.capacity:50}")
+    private int queueCapacity;
+
+    /**
+     * Deadline of a request in milliseconds
+     */
+    @Value("${web.service.async.timeout:30000}")
+    private long timeout;
+
+    /**
+     * Autowired instance of {@link WebService}
+     */
+    @Autowired
+    private WebService webService;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                r -> new Thread(r, "web-async-" + count.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Get keywords with {@link WebService#returnKeywords(String, String)} on the pool.
+     *
+     * @param publication Publication of article URL
+     * @param articleUrl  url of article to be processed.
+     * @return {@link DeferredResult} completed with {@link Response} or with exception
+     * @throws RejectedRequestException if the pool is full
+     */
+    public DeferredResult<ResponseEntity<Response>> returnKeywords(String publication, String articleUrl) {
+        long deadline = System.currentTimeMillis() + this.timeout;
+        DeferredResult<ResponseEntity<Response>> result = new DeferredResult<>(this.timeout);
+        Future<?> future;
+        try {
+            future = this.executor.submit(() -> {
+                if (System.currentTimeMillis() > deadline) {
+                    // Already answered with timeout, do not call services.
+                    LOG.warn("Skipping expired request {} : {}", publication, articleUrl);
+                    return;
+                }
+                try {
+                    String keywords = this.webService.returnKeywords(publication, articleUrl);
+                    result.setResult(new ResponseEntity<>(new Response(new Date(), HttpStatus.OK, keywords),
+                            HttpStatus.OK));
+                } catch (Throwable th) {
+                    result.setErrorResult(th);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new RejectedRequestException("Too many requests in process, try again later : " + articleUrl,
+                    e, HttpStatus.TOO_MANY_REQUESTS);
+        }
+        result.onTimeout(() -> {
+            timedOut.incrementAndGet();
+            // Only a queued request is cancelled, a running one completes
+            future.cancel(false);
+            result.setErrorResult(new RejectedRequestException("Request not completed in " + this.timeout
+                    + " ms : " + articleUrl, HttpStatus.GATEWAY_TIMEOUT));
+        });
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(PREFIX + "active", this.executor.getActiveCount()));
+        metrics.add(new Metric<>(PREFIX + "queued", this.executor.getQueue().size()));
+        metrics.add(new Metric<>(PREFIX + "rejected", rejected.get()));
+        metrics.add(new Metric<>(PREFIX + "timeout", timedOut.get()));
+        return metrics;
+    }
+}
@@ -0,0 +1,172 @@
+package de.funkedigital.autotagging.services;
+
+import de.funkedigital.autotagging.entities.web.BulkRequest;
+import de.funkedigital.autotagging.entities.web.Response;
+import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import de.funkedigital.autotagging.exceptions.RejectedRequestException;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This service serves the bulk Web request, keywords of many article urls of a publication.
+ * <p>
+ * Urls are processed with {@link WebService#returnKeywords(String, String)}, so executed and failed articles
+ * are saved as for single requests. At most web.service.bulk.concurrency urls of a request are processed at once,
+ * on a pool shared by all bulk requests. Every result is sent to the client as soon as it is completed,
+ * one {@link Response} json per line (NDJSON), in order of completion.
+ *
+ * @author sraj
+ */
+@Service
+public class BulkWebService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkWebService.class);
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    private static final String NEW_LINE = "\n";
+
+    @Value("${web.service.bulk.threads:8}")
+    private int threads;
+
+    @Value("${web.service.bulk.queue.capacity:20}")
+    private int queueCapacity;
+
+    /**
+     * Urls of one request processed at once
+     */
+    @Value("${web.service.bulk.concurrency:4}")
+    private int concurrency;
+
+    @Value("${web.service.bulk.max.urls:500}")
+    private int maxUrls;
+
+    /**
+     * Milliseconds to complete a request
+     */
+    @Value("${web.service.bulk.timeout:600000}")
+    private long timeout;
+
+    /**
+     * Autowired instance of {@link WebService}
+     */
+    @Autowired
+    private WebService webService;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                r -> new Thread(r, "web-bulk-" + count.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Process the urls of request and stream results.
+     * <p>
+     * Workers, up to concurrency, take the next url of the request until all urls are processed,
+     * the last worker completes the response.
+     *
+     * @param request {@link BulkRequest}
+     * @return {@link ResponseBodyEmitter} sending one {@link Response} per url
+     * @throws RejectedRequestException if the pool is full
+     */
+    public ResponseBodyEmitter returnKeywords(BulkRequest request) {
+        List<String> urls = request.getArticleUrls() == null ? new ArrayList<>() : request.getArticleUrls();
+        if (urls.isEmpty() || urls.size() > this.maxUrls) {
+            throw new AutoTaggingException("Number of article urls must be between 1 and " + this.maxUrls
+                    + ", received " + urls.size(), HttpStatus.BAD_REQUEST);
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(this.timeout);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        emitter.onTimeout(() -> cancelled.set(true));
+
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(this.concurrency, urls.size());
+        AtomicInteger running = new AtomicInteger(workers);
+        int submitted = 0;
+        for (int i = 0; i < workers; i++) {
+            try {
+                this.executor.execute(() -> work(request.getPublication(), urls, next, cancelled, running, emitter));
+                submitted++;
+            } catch (RejectedExecutionException e) {
+                // Submitted workers process all urls, with less concurrency.
+                running.decrementAndGet();
+            }
+        }
+        if (submitted == 0) {
+            throw new RejectedRequestException("Too many bulk requests in process, try again later",
+                    HttpStatus.TOO_MANY_REQUESTS);
+        }
+        LOG.info("Processing {} urls of {} with {} workers", urls.size(), request.getPublication(), submitted);
+        return emitter;
+    }
+
+    private void work(String publication, List<String> urls, AtomicInteger next, AtomicBoolean cancelled,
+                      AtomicInteger running, ResponseBodyEmitter emitter) {
+        try {
+            int index;
+            while (!cancelled.get() && (index = next.getAndIncrement()) < urls.size()) {
+                String url = urls.get(index);
+                Response response;
+                try {
+                    String keywords = this.webService.returnKeywords(publication, url);
+                    response = new Response(new Date(), null, url, HttpStatus.OK, keywords);
+                } catch (AutoTaggingException e) {
+                    response = new Response(new Date(), e.getMessage(), url, e.getStatus(), null);
+                } catch (Throwable th) {
+                    response = new Response(new Date(), ExceptionUtils.getRootCauseMessage(th), url,
+                            HttpStatus.INTERNAL_SERVER_ERROR, null);
+                }
+                send(emitter, response, cancelled);
+            }
+        } finally {
+            if (running.decrementAndGet() == 0 && !cancelled.get()) {
+                emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Send one line, a client gone stops the workers of request.
+     */
+    private void send(ResponseBodyEmitter emitter, Response response, AtomicBoolean cancelled) {
+        synchronized (emitter) {
+            try {
+                emitter.send(response, MediaType.APPLICATION_JSON);
+                emitter.send(NEW_LINE, MediaType.TEXT_PLAIN);
+            } catch (IOException | IllegalStateException e) {
+                LOG.warn("Could not send bulk response, stopping request : {}", ExceptionUtils.getRootCauseMessage(e));
+                cancelled.set(true);
+            }
+        }
+    }
+}
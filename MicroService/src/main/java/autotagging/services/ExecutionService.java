@@ -14,6 +14,7 @@ import de.funkedigital.autotagging.entities.web.Sitemaps;
 import de.funkedigital.autotagging.enums.RepositoryEnum;
 import de.funkedigital.autotagging.enums.ServiceEnum;
 import de.funkedigital.autotagging.jobs.SchedulerJob;
+import de.funkedigital.autotagging.journal.FailSafeJournalManager;
 import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
 import de.funkedigital.autotagging.repositories.FailedArticleRepository;
 import de.funkedigital.autotagging.repositories.PendingArticleRepository;
@@ -21,17 +22,16 @@ import de.funkedigital.autotagging.repositories.PublicationRepository;
 import de.funkedigital.autotagging.repositories.SitemapRepository;
 import de.funkedigital.autotagging.scheduler.ScheduleManager;
 import de.funkedigital.autotagging.utils.Constants;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Control the execution of services and fetch details.
@@ -79,6 +79,12 @@ public class ExecutionService {
     @Autowired
     private SitemapRepository sitemapRepository;
 
+    /**
+     * Autowired Instance of {@link FailSafeJournalManager}
+     */
+    @Autowired
+    private FailSafeJournalManager failSafeJournalManager;
+
 
     /**
      * This method enables/disables the services and then store the status in database
@@ -116,10 +122,13 @@ public class ExecutionService {
      * This method return all the records from {@link PublicationEntity} along with
      * {@link PropertyEntity} and {@link ScheduleEntity} and then transfer the details to
      * {@link Detail} to show it on {@link de.funkedigital.autotagging.controllers.ExecutionController}
+     * <p>
+     * The current interval of running services is taken from trigger of their {@link SchedulerJob}.
      *
+     * @param jobs jobs of services, publication_service as key
      * @return {@link Detail}, all the details to show on UI from {@link PublicationEntity}
      */
-    public List<Detail> getDetails() {
+    public List<Detail> getDetails(Map<String, SchedulerJob> jobs) {
         LOG.debug("Executing getDetails {} ", Thread.currentThread().getName());
         // get details from repository
         Iterable<PublicationEntity> publicationEntities = publicationRepository.findAll();
@@ -130,8 +139,15 @@ public class ExecutionService {
                     // Sorted list
                     List<ScheduleEntity> scheduleEntities = publicationEntity.getSortedScheduleEntities();
                     for (ScheduleEntity scheduleEntity : scheduleEntities) {
-                        scheduleDetails.add(new ScheduleDetail(scheduleEntity.getService().getServiceEnum(),
-                                scheduleEntity.getDelay(), scheduleEntity.getEnabled()));
+                        ServiceEnum service = scheduleEntity.getService().getServiceEnum();
+                        ScheduleDetail scheduleDetail = new ScheduleDetail(service, scheduleEntity.getDelay(),
+                                scheduleEntity.getEnabled());
+                        SchedulerJob job = jobs.get(publicationEntity.getPublication() + Constants.NAME_SEPARATOR
+                                + service);
+                        if (job != null && job.getFuture() != null && !job.getFuture().isCancelled()) {
+                            scheduleDetail.setCurrentInterval(job.getTrigger().getCurrentInterval());
+                        }
+                        scheduleDetails.add(scheduleDetail);
                     }
 
                     details.add(new Detail(publicationEntity.getId()
@@ -239,29 +255,28 @@ public class ExecutionService {
 
 
     /**
-     * This method fetch details from Fail-safe files
+     * This method fetch details from Fail-safe journals
      * <p>
-     * FIle location is : /build/classes/java/main/{publication}/files
+     * Journal location is : /build/classes/java/main/{publication}/{journal}
      *
      * @param publication    Publication to be queried
      * @param repositoryEnum enum type
      * @return {@link List<Articles>}
      */
-    public List<Articles> getFailSafeArticleDetails(String publication, RepositoryEnum repositoryEnum, String
-            resourcePath) {
+    public List<Articles> getFailSafeArticleDetails(String publication, RepositoryEnum repositoryEnum) {
         LOG.debug("Executing getFailSafeArticleDetails {} : {} : {} ", publication, repositoryEnum, Thread.currentThread().getName());
 
         List<Articles> articles = new ArrayList<>();
         switch (repositoryEnum) {
             case Executed:
-                savedExecutedArticles(publication, resourcePath, articles);
+                savedExecutedArticles(publication, articles);
                 break;
             case Pending:
-                savedPendingArticles(publication, resourcePath, articles);
+                savedPendingArticles(publication, articles);
                 break;
             case Failed:
-                savedFailedArticles(publication, resourcePath, articles);
-                deletedFailedArticles(publication, resourcePath, articles);
+                savedFailedArticles(publication, articles);
+                deletedFailedArticles(publication, articles);
                 break;
         }
         return articles;
@@ -269,99 +284,87 @@ public class ExecutionService {
 
     /*
      **********************************************
-     * Private methods to GET DATA FROM file-SYSTEM
+     * Private methods to GET DATA FROM journal
      **********************************************
      */
 
 
-    private void savedExecutedArticles(String publication, String resourcePath, List<Articles> articles) {
+    private void savedExecutedArticles(String publication, List<Articles> articles) {
         try {
-            File fileUrl;
             articles.add(new Articles(0L
                     , "----Below are the Fail-safe articles failed to be SAVED because of Database operations----"
                     , "-----------------", null));
-            fileUrl = new File(resourcePath.concat(String.format("%s/%s", publication
-                    , ExecutedArticleRepository.SAVE_FAIL_SAFE_FILE)));
-            Iterable<String> executedFailSafeArticles = FileUtils.readLines(fileUrl, Constants.STRING_ENCODING);
-            executedFailSafeArticles.forEach(executedSaveArticles -> {
-
-                        ExecutedArticleEntity articleEntity = new ExecutedArticleEntity()
-                                .fromString(executedSaveArticles);
-                        setExecutedArticleEntity(articles, articleEntity);
+            failSafeJournalManager.get(publication, ExecutedArticleRepository.SAVE_FAIL_SAFE_FILE).read(record -> {
+
+                        ExecutedArticleEntity articleEntity = new ExecutedArticleEntity().fromRecord(record);
+                        if (articleEntity != null) {
+                            setExecutedArticleEntity(articles, articleEntity);
+                        }
                     }
             );
         } catch (IOException ie) {
-            logFileNotFoundException(ie);
+            logJournalException(ie);
         }
     }
 
 
-    private void savedPendingArticles(String publication, String resourcePath, List<Articles> articles) {
+    private void savedPendingArticles(String publication, List<Articles> articles) {
 
         try {
-            File fileUrl;
             articles.add(new Articles(0L
                     , "----Below are the Fail-safe articles failed to be SAVED because of Database operations----"
                     , "-----------------", null));
-            fileUrl = new File(resourcePath.concat(String.format("%s/%s"
-                    , publication, PendingArticleRepository.DELETE_FAIL_SAFE_FILE)));
-            Iterable<String> pendingFailSafeArticles = FileUtils.readLines(fileUrl, "UTF-8");
-            pendingFailSafeArticles.forEach(pendingSaveArticles -> {
-
-                        PendingArticleEntity articleEntity = new PendingArticleEntity()
-                                .fromString(pendingSaveArticles);
-                        setPendingArticleEntity(articles, articleEntity);
+            failSafeJournalManager.get(publication, PendingArticleRepository.DELETE_FAIL_SAFE_FILE).read(record -> {
+
+                        PendingArticleEntity articleEntity = new PendingArticleEntity().fromRecord(record);
+                        if (articleEntity != null) {
+                            setPendingArticleEntity(articles, articleEntity);
+                        }
                     }
             );
         } catch (IOException ie) {
-            logFileNotFoundException(ie);
+            logJournalException(ie);
         }
     }
 
 
-    private void savedFailedArticles(String publication, String resourcePath, List<Articles> articles) {
-        File fileUrl;
+    private void savedFailedArticles(String publication, List<Articles> articles) {
         try {
             articles.add(new Articles(0L
                     , "----Below are the Fail-safe articles failed to be SAVED because of Database operations----"
                     , "-----------------", null));
-            // Add Article from SAVE fail-safe file
-            fileUrl = new File(resourcePath.concat(String.format("%s/%s"
-                    , publication, FailedArticleRepository.SAVE_FAIL_SAFE_FILE)));
-            Iterable<String> failedSaveFailSafeArticles = FileUtils.readLines(fileUrl, "UTF-8");
-            failedSaveFailSafeArticles.forEach(failedSaveArticles -> {
-
-                        FailedArticleEntity articleEntity = new FailedArticleEntity()
-                                .fromSaveString(failedSaveArticles);
-                        setFailedArticleEntity(articles, articleEntity);
+            // Add Article from SAVE fail-safe journal
+            failSafeJournalManager.get(publication, FailedArticleRepository.SAVE_FAIL_SAFE_FILE).read(record -> {
+
+                        FailedArticleEntity articleEntity = new FailedArticleEntity().fromSaveRecord(record);
+                        if (articleEntity != null) {
+                            setFailedArticleEntity(articles, articleEntity);
+                        }
                     }
             );
         } catch (IOException ie) {
-            logFileNotFoundException(ie);
+            logJournalException(ie);
         }
     }
 
 
-    private void deletedFailedArticles(String publication, String resourcePath, List<Articles> articles) {
-        File fileUrl;
+    private void deletedFailedArticles(String publication, List<Articles> articles) {
         try {
             articles.add(new Articles(0L
                     , "----Below are the Fail-safe articles failed to be DELETED because of Database operations----"
                     , "-----------------", null));
 
-            // Add Article from DELETE fail-safe file
-            fileUrl = new File(resourcePath.concat(String.format("%s/%s"
-                    , publication, FailedArticleRepository.DELETE_FAIL_SAFE_FILE)));
-            Iterable<String> failedDeleteFailSafeArticles = FileUtils.readLines(fileUrl, "UTF-8");
-            failedDeleteFailSafeArticles.forEach(failedSaveArticles -> {
+            // Add Article from DELETE fail-safe journal
+            failSafeJournalManager.get(publication, FailedArticleRepository.DELETE_FAIL_SAFE_FILE).read(record -> {
 
-                        FailedArticleEntity articleEntity = new FailedArticleEntity()
-                                .fromDeleteString(failedSaveArticles);
-                        setFailedArticleEntity(articles, articleEntity);
+                        FailedArticleEntity articleEntity = new FailedArticleEntity().fromDeleteRecord(record);
+                        if (articleEntity != null) {
+                            setFailedArticleEntity(articles, articleEntity);
+                        }
                     }
             );
         } catch (IOException ie) {
-            logFileNotFoundException(ie);
+            logJournalException(ie);
         }
     }
 
@@ -388,7 +391,7 @@ public class ExecutionService {
                 , articleEntity.getExecutionDate()));
     }
 
-    private void logFileNotFoundException(IOException ie) {
-        LOG.warn("There is no file to access so it is OK !!" + ExceptionUtils.getRootCauseMessage(ie));
+    private void logJournalException(IOException ie) {
+        LOG.warn("Could not read fail-safe journal " + ExceptionUtils.getRootCauseMessage(ie));
     }
 }
@@ -0,0 +1,221 @@
+package de.funkedigital.autotagging.services;
+
+import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
+import de.funkedigital.autotagging.journal.FailSafeJournal;
+import de.funkedigital.autotagging.journal.FailSafeJournalManager;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.utils.Constants;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Replays the fail-safe journals in the background, instead of checking them before every article.
+ * <p>
+ * ----> {@link FailSafeJournalManager} notifies the service with the fail-safe file of journal whenever
+ * records are appended to it, the file is noted as pending. Nothing else is done on thread of writer.
+ * ----> Every failsafe.replay.interval milliseconds the pending journals are replayed to their repository.
+ * Without pending journals it does nothing, no file is accessed.
+ * ----> A journal with records left after replay, eg. database still down, is replayed again after
+ * failsafe.replay.retry.interval milliseconds.
+ * ----> On first run, the journals left by a previous run are opened and noted as pending.
+ * ----> Executed and failed articles inserted by the replay are counted in {@link QuotaService}, records
+ * skipped as duplicates are not.
+ *
+ * @author sraj
+ */
+@Service
+public class FailSafeReplayService implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FailSafeReplayService.class);
+
+    private static final String PREFIX = "failsafe.replay.";
+
+    /**
+     * Autowired instance of {@link FailSafeJournalManager}
+     */
+    @Autowired
+    private FailSafeJournalManager failSafeJournalManager;
+
+    /**
+     * Autowired instance of {@link ExecutedArticleRepository}
+     */
+    @Autowired
+    private ExecutedArticleRepository executedArticleRepository;
+
+    /**
+     * Autowired instance of {@link FailedArticleRepository}
+     */
+    @Autowired
+    private FailedArticleRepository failedArticleRepository;
+
+    /**
+     * Autowired instance of {@link PendingArticleRepository}
+     */
+    @Autowired
+    private PendingArticleRepository pendingArticleRepository;
+
+    /**
+     * Autowired instance of {@link QuotaService}
+     */
+    @Autowired
+    private QuotaService quotaService;
+
+    /**
+     * Time to wait before a journal which could not be replayed completely is replayed again
+     */
+    @Value("${failsafe.replay.retry.interval:60000}")
+    private long retryInterval;
+
+    // Replay of fail-safe file, saves are replayed before deletes
+    private final Map<String, ToIntFunction<FailSafeJournal>> replays = new LinkedHashMap<>();
+
+    // Pending fail-safe files, "publication/file.txt", with time of next replay
+    private final ConcurrentMap<String, Long> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean initialized;
+
+    private final AtomicLong runs = new AtomicLong();
+
+    private final AtomicLong replayed = new AtomicLong();
+
+    private final AtomicLong retries = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        replays.put(ExecutedArticleRepository.SAVE_FAIL_SAFE_FILE,
+                journal -> executedArticleRepository.saveFromJournal(journal, this::countExecuted));
+        replays.put(FailedArticleRepository.SAVE_FAIL_SAFE_FILE,
+                journal -> failedArticleRepository.saveFromJournal(journal, this::countFailed));
+        replays.put(FailedArticleRepository.DELETE_FAIL_SAFE_FILE, failedArticleRepository::deleteFromJournal);
+        replays.put(PendingArticleRepository.DELETE_FAIL_SAFE_FILE, pendingArticleRepository::deleteFromJournal);
+        failSafeJournalManager.addListener(this::appended);
+    }
+
+    /**
+     * Note the fail-safe file as pending, called by {@link FailSafeJournalManager} after records are appended.
+     * A file waiting for retry keeps its time.
+     *
+     * @param fileName fail-safe file, "publication/file.txt"
+     */
+    public void appended(String fileName) {
+        pending.putIfAbsent(fileName, 0L);
+    }
+
+    /**
+     * Replay the pending journals whose time has come.
+     */
+    @Scheduled(fixedDelayString = "${failsafe.replay.interval:5000}")
+    public void replay() {
+        if (!this.initialized) {
+            initialize();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (String fileName : replays.keySet()) {
+            for (Map.Entry<String, Long> entry : pending.entrySet()) {
+                if (entry.getValue() <= now && fileName.equals(fileName(entry.getKey()))) {
+                    replay(entry.getKey(), replays.get(fileName));
+                }
+            }
+        }
+    }
+
+    private void replay(String fileName, ToIntFunction<FailSafeJournal> replay) {
+        LOG.debug("Replaying fail-safe journal {} : {}", fileName, Thread.currentThread().getName());
+        // Removed first, so records appended meanwhile note it again.
+        pending.remove(fileName);
+        FailSafeJournal journal = failSafeJournalManager.get(fileName);
+        runs.incrementAndGet();
+        int count = replay.applyAsInt(journal);
+        replayed.addAndGet(count);
+        if (journal.hasRecords()) {
+            retries.incrementAndGet();
+            pending.putIfAbsent(fileName, System.currentTimeMillis() + this.retryInterval);
+            LOG.warn("Fail-safe journal {} is not replayed completely, retry in {} ms", fileName, this.retryInterval);
+        } else if (count > 0) {
+            LOG.info("Replayed {} records of fail-safe journal {}", count, fileName);
+        }
+    }
+
+    /**
+     * Count the executed articles inserted by replay
+     */
+    private void countExecuted(Collection<ExecutedArticleEntity> executedArticles) {
+        Map<String, Integer> counts = new HashMap<>();
+        executedArticles.forEach(executed -> counts.merge(executed.getPublication(), 1, Integer::sum));
+        counts.forEach((publication, count) -> count(publication, count, 0));
+    }
+
+    /**
+     * Count the failed articles inserted by replay
+     */
+    private void countFailed(Collection<FailedArticleEntity> failedArticles) {
+        Map<String, Integer> counts = new HashMap<>();
+        failedArticles.forEach(failed -> counts.merge(failed.getPublication(), 1, Integer::sum));
+        counts.forEach((publication, count) -> count(publication, 0, count));
+    }
+
+    private void count(String publication, int executed, int failed) {
+        try {
+            quotaService.increment(publication, executed, failed);
+        } catch (Exception e) {
+            // Articles are saved and the chunk is replayed, counter is only behind.
+            LOG.error("Error occurred while counting replayed articles of {} : {}", publication,
+                    ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * Open the journals which exist already, they may have records of a previous run.
+     */
+    private void initialize() {
+        this.initialized = true;
+        for (String fileName : failSafeJournalManager.openExisting(replays.keySet().toArray(new String[0]))) {
+            if (failSafeJournalManager.get(fileName).hasRecords()) {
+                appended(fileName);
+            }
+        }
+    }
+
+    private static String fileName(String file) {
+        return StringUtils.substringAfterLast(file, Constants.FOLDER_SEPARATOR);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(PREFIX + "runs", runs.get()));
+        metrics.add(new Metric<>(PREFIX + "records", replayed.get()));
+        metrics.add(new Metric<>(PREFIX + "retries", retries.get()));
+        metrics.add(new Metric<>(PREFIX + "pending", pending.size()));
+        return metrics;
+    }
+}
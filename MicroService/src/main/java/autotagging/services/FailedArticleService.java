@@ -1,9 +1,15 @@
 package de.funkedigital.autotagging.services;
 
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.entities.repo.DeadArticleEntity;
 import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
 import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
+import de.funkedigital.autotagging.enums.UpstreamEnum;
 import de.funkedigital.autotagging.escenic.services.EscenicService;
+import de.funkedigital.autotagging.exceptions.CircuitOpenException;
+import de.funkedigital.autotagging.exceptions.QuotaExceededException;
 import de.funkedigital.autotagging.jobs.SchedulerJob;
+import de.funkedigital.autotagging.repositories.DeadArticleRepository;
 import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
 import de.funkedigital.autotagging.repositories.FailedArticleRepository;
 import de.funkedigital.autotagging.semantic.entities.KeywordStore;
@@ -16,16 +22,24 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+
 /**
  * This class is to process articles from {@link FailedArticleEntity} one-by-one.
  * <p>
- * It picks the top record from {@link FailedArticleEntity}, process it with {@link UnicornService} and
- * {@link SemanticService} then save it to {@link ExecutedArticleEntity} if return success else saves
- * it to {@link FailedArticleEntity} and then deletes it from {@link FailedArticleEntity} afterwards.
+ * It picks the top record from {@link FailedArticleEntity} whose backoff has elapsed, process it with
+ * {@link UnicornService} and {@link SemanticService} then save it to {@link ExecutedArticleEntity} and
+ * delete it from {@link FailedArticleEntity} if return success.
+ * <p>
+ * A failed retry is noted on the record, it is retried again after failed.article.retry.backoff.millis,
+ * doubled with every attempt up to failed.article.retry.backoff.max.millis. After
+ * failed.article.retry.max.attempts the article is moved to {@link DeadArticleEntity} and not retried anymore,
+ * so broken urls do not spend the quota of semantic calls forever.
  *
  * @author sraj
  */
@@ -65,10 +79,40 @@ public class FailedArticleService implements ServiceInterface {
     private EscenicService escenicService;
 
     /**
-     * Path of resource folder
+     * Autowired instance of {@link QuotaService}
      */
     @Autowired
-    private String resourcePath;
+    private QuotaService quotaService;
+
+    /**
+     * Autowired instance of {@link DeadArticleRepository}
+     */
+    @Autowired
+    private DeadArticleRepository deadArticleRepository;
+
+    /**
+     * Autowired instance of {@link CircuitBreakers}
+     */
+    @Autowired
+    private CircuitBreakers circuitBreakers;
+
+    /**
+     * Retries of article before it is moved to {@link DeadArticleEntity}
+     */
+    @Value("${failed.article.retry.max.attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Time to wait before the first retry of article, doubled with every attempt
+     */
+    @Value("${failed.article.retry.backoff.millis:600000}")
+    private long backoff;
+
+    /**
+     * Longest time to wait before a retry of article
+     */
+    @Value("${failed.article.retry.backoff.max.millis:86400000}")
+    private long maxBackoff;
 
     // Publication property
     private String publication;
@@ -87,30 +131,30 @@ public class FailedArticleService implements ServiceInterface {
     /**
      * This method is triggered on schedule : after 1 second of completion of previous run.
      * <p>
-     * -> delete all the data from fail-safe file from {@link FailedArticleEntity}
-     * -> Get the top record from {@link FailedArticleEntity}
+     * -> If quota of month is exceeded ({@link QuotaService}), do nothing
+     * -> If circuit of an upstream service is open ({@link CircuitBreakers}), do nothing
+     * -> Get the top record from {@link FailedArticleEntity} whose backoff has elapsed
      * ----> If Fails:
      * ----------> DB might be down, Log the error an try again
      * ----> If Success:
      * ----------> Get urk and then get asset ID from {@link UnicornService}
-     * ----------> Execute {@link SemanticService} and push keywords to {@link EscenicService}
+     * ----------> Reserve quota, execute {@link SemanticService} and push keywords to {@link EscenicService}
      * --------------> If Success:
-     * ---------------------->Save the article in {@link ExecutedArticleEntity}
+     * ---------------------->Save the article in {@link ExecutedArticleEntity}, it replaces the failed
+     * article in the count of {@link QuotaService}
      * --------------------------> If Fails:
      * -------------------------------> If {@link DataIntegrityViolationException}
      * -------------------------------------> Log the warning and do nothing, as data is already there
      * -------------------------------> If {@link Exception}
      * -------------------------------------> Save the failed record to file
+     * ---------------------->Delete the article from {@link FailedArticleEntity}
      * --------------> If Fails:
-     * ---------------------->Save the article in {@link FailedArticleEntity}, this is done to rotate
-     * the Artciles from top to bottom
-     * --------------------------> If Fails:
-     * -------------------------------> If {@link DataIntegrityViolationException}
-     * -------------------------------------> Log the warning and do nothing, as data is already there
-     * -------------------------------> If {@link Exception}
-     * -------------------------------------> Save the failed record to file
-     * --------------> In both cases, finally block
-     * --------------> Delete the article from {@link FailedArticleEntity}
+     * ---------------------->Below failed.article.retry.max.attempts, update attempts and next attempt date
+     * of article in {@link FailedArticleEntity}, it is picked again once the backoff has elapsed
+     * ---------------------->Else save the article in {@link DeadArticleEntity} and delete it from
+     * {@link FailedArticleEntity}
+     * ---------------------->Failures of upstream service are backed off without counting the attempt
+     * --------------> Delete from {@link FailedArticleEntity}
      * --------------------------> If Fails:
      * -------------------------------> If {@link EmptyResultDataAccessException}
      * -------------------------------------> Log the warning and do nothing, as data does not exists
@@ -126,30 +170,52 @@ public class FailedArticleService implements ServiceInterface {
     public void run() {
         LOG.info("Executing run() {} : {}", this.publication, Thread.currentThread().getName());
         try {
-            executeFailSafe();
-            FailedArticleEntity failedArticle = failedArticleRepository.findTopArticle(this.publication);
+            if (quotaService.isExceeded()) {
+                LOG.warn("Quota of month is exceeded, failed records of {} are not processed !!", this.publication);
+                return;
+            }
+            UpstreamEnum openUpstream = circuitBreakers.getOpenUpstream();
+            if (openUpstream != null) {
+                LOG.warn("Circuit of {} is open, failed records of {} are not processed !!", openUpstream,
+                        this.publication);
+                return;
+            }
+            FailedArticleEntity failedArticle = failedArticleRepository.findTopEligibleArticle(this.publication,
+                    new Date());
             if (failedArticle != null) {
                 String publication = failedArticle.getPublication();
                 String url = failedArticle.getUrl();
 
+                boolean quotaReserved = false;
                 try {
                     // Execute services
                     UnicornStore unicornStore = unicornService.analyzeArticle(url);
+                    quotaService.reserve();
+                    quotaReserved = true;
                     KeywordStore keywords = semanticService.returnKeywords(unicornStore.getAssetId());
                     escenicService.pushKeywords(keywords.toString(), unicornStore.getArticleId());
                     // If everything goes well, mark the record as executed.
                     executedArticleRepository.save(publication, unicornStore.getAssetId(), url);
                     // delete the data from table, it avoid re-run for same record again and again.
                     failedArticleRepository.delete(failedArticle, ArrayUtils.EMPTY_LONG_OBJECT_ARRAY);
+                    // Executed article is counted, the failed one is not counted anymore.
+                    quotaService.removeFailed(publication, failedArticle.getExecutionDate());
+                } catch (QuotaExceededException | CircuitOpenException e) {
+                    // Article stays where it is, no attempt is counted. It is processed once the quota or
+                    // upstream is available again.
+                    LOG.warn("Article is not processed {} : {} : {}", publication, url, e.getMessage());
                 } catch (Exception e) {
                     LOG.error("Error occurred while processing {} : {} : {}", publication, url,
                             ExceptionUtils.getRootCauseMessage(e), e);
-                    // If exception occurred, we delete the data and save the same data again at the last record of table.
-                    failedArticleRepository.delete(failedArticle, ArrayUtils.EMPTY_LONG_OBJECT_ARRAY);
-                    failedArticleRepository.save(failedArticle.getPublication(), failedArticle.getUrl());
+                    // Upstream service is down, the article is not to blame
+                    retryLater(failedArticle, !CircuitBreakers.isFailure(e));
+                } finally {
+                    if (quotaReserved) {
+                        quotaService.release(1);
+                    }
                 }
             } else {
-                LOG.warn("No failed records to process for {} !!", this.publication);
+                LOG.warn("No failed records to retry for {} !!", this.publication);
             }
         } catch (Throwable th) {
             LOG.error("Database seem to be down... {} : {} !!", this.publication, ExceptionUtils.getRootCauseMessage(th), th);
@@ -157,15 +223,39 @@ public class FailedArticleService implements ServiceInterface {
     }
 
     /**
-     * This method is to delete failed {@link FailedArticleEntity} articles from Fail-safe files to
-     * database before processing next record.
+     * Note the failed attempt on the article and back off, or move it to {@link DeadArticleEntity} after
+     * {@link #maxAttempts}.
      * <p>
-     * it takes care of records failed while being processed previously.
+     * Failures of upstream service, {@link CircuitBreakers#isFailure(Throwable)}, back off without counting
+     * the attempt, an outage does not move articles to {@link DeadArticleEntity}.
+     *
+     * @param failedArticle article whose retry failed
+     * @param counted       whether the attempt counts for {@link #maxAttempts}
+     */
+    private void retryLater(FailedArticleEntity failedArticle, boolean counted) {
+        int attempts = counted ? failedArticle.getAttempts() + 1 : failedArticle.getAttempts();
+        if (counted && attempts >= this.maxAttempts) {
+            LOG.warn("Article failed {} times, it is not retried anymore {} : {}", attempts,
+                    failedArticle.getPublication(), failedArticle.getUrl());
+            deadArticleRepository.save(failedArticle.getPublication(), failedArticle.getUrl(), attempts);
+            failedArticleRepository.delete(failedArticle, ArrayUtils.EMPTY_LONG_OBJECT_ARRAY);
+        } else {
+            Date nextAttempt = new Date(System.currentTimeMillis() + backoff(Math.max(attempts, 1)));
+            LOG.info("Article is retried after {} : {} : {}", nextAttempt, failedArticle.getPublication(),
+                    failedArticle.getUrl());
+            failedArticleRepository.scheduleRetry(failedArticle.getId(), attempts, nextAttempt);
+        }
+    }
+
+    /**
+     * Backoff after the attempt, {@link #backoff} doubled for every previous attempt up to {@link #maxBackoff}
+     *
+     * @param attempts retries which failed, 1 or more
+     * @return time to wait in milliseconds
      */
-    private void executeFailSafe() {
-        LOG.debug("Executing executeFailSafe() {} : {} : {}", this.resourcePath, this.publication,
-                Thread.currentThread().getName());
-        failedArticleRepository.deleteFromFile(this.resourcePath, this.publication);
+    private long backoff(int attempts) {
+        long backoff = this.backoff << Math.min(attempts - 1, 30);
+        return backoff < 0 ? this.maxBackoff : Math.min(this.maxBackoff, backoff);
     }
 
     /**
@@ -5,20 +5,20 @@ import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
 import de.funkedigital.autotagging.entities.repo.SitemapEntity;
 import de.funkedigital.autotagging.entities.xml.Sitemap;
 import de.funkedigital.autotagging.entities.xml.SitemapIndex;
-import de.funkedigital.autotagging.entities.xml.Url;
-import de.funkedigital.autotagging.entities.xml.UrlSet;
 import de.funkedigital.autotagging.jobs.SchedulerJob;
-import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
 import de.funkedigital.autotagging.repositories.FailedArticleRepository;
 import de.funkedigital.autotagging.repositories.PendingArticleRepository;
 import de.funkedigital.autotagging.repositories.SitemapRepository;
 import de.funkedigital.autotagging.services.interfaces.ServiceInterface;
+import de.funkedigital.autotagging.utils.Constants;
 import de.funkedigital.autotagging.utils.JaxbUtils;
+import de.funkedigital.autotagging.utils.UrlSetReader;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
@@ -26,7 +26,7 @@ import org.springframework.stereotype.Service;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
@@ -50,22 +50,10 @@ public class LoadArticleService implements ServiceInterface {
     private static final Logger LOG = LoggerFactory.getLogger(LoadArticleService.class);
 
     /**
-     * Autowired instance of {@link PendingArticleRepository}
+     * Autowired instance of {@link ArticleEligibilityService}
      */
     @Autowired
-    private PendingArticleRepository pendingArticleRepository;
-
-    /**
-     * Autowired instance of {@link FailedArticleRepository}
-     */
-    @Autowired
-    private FailedArticleRepository failedArticleRepository;
-
-    /**
-     * Autowired instance of {@link ExecutedArticleRepository}
-     */
-    @Autowired
-    private ExecutedArticleRepository executedArticleRepository;
+    private ArticleEligibilityService articleEligibilityService;
 
     /**
      * Autowired instance of {@link SitemapRepository}
@@ -74,10 +62,11 @@ public class LoadArticleService implements ServiceInterface {
     private SitemapRepository sitemapRepository;
 
     /**
-     * Path of resource folder
+     * Number of article urls checked and saved to {@link PendingArticleRepository} at once while
+     * reading a sitemap file.
      */
-    @Autowired
-    private String resourcePath;
+    @Value("${sitemap.load.chunk.size:500}")
+    private int chunkSize;
 
     // Properties
     private String filename;
@@ -110,11 +99,10 @@ public class LoadArticleService implements ServiceInterface {
      * --------------------> If fails:
      * -------------------------> Try every 5 minutes WHILE its successful
      * ------------> IF YES:
-     * -------------> Save the data from fail-safe file to {@link ExecutedArticleEntity} and {@link FailedArticleRepository}
-     * --------------------> fetch the data from GZIP file and map them to Objects using Jaxb.
-     * --------------------> Check for url in {@link ExecutedArticleEntity} and {@link FailedArticleRepository}, if present
+     * --------------------> stream the urls from GZIP file one by one using {@link UrlSetReader}.
+     * --------------------> Check chunk of urls in {@link ExecutedArticleEntity} and {@link FailedArticleRepository}, if present
      * --------------------> IF, not present:
-     * -------------------------->Save the articles along with asset ID in {@link PendingArticleEntity}
+     * -------------------------->Save the articles in {@link PendingArticleEntity}, in chunks of {@link #chunkSize}
      * --------------------------> If Success:
      * ------------------------------> Mark the file as executed in {@link SitemapEntity}
      * --------------------------> If Fails:
@@ -154,26 +142,29 @@ public class LoadArticleService implements ServiceInterface {
                     sitemapEntity = sitemapRepository.findTopSitemap(this.publication);
                 }
             }
-            // process records from fail safe file before any further processing.
-            executeFailSafe();
             // ZIP files are stored in archive sitemaps and to process them we use Gzip and
-            // Then jaxb to map the extracted xml file to objects.
-            try (InputStreamReader stream =
-                         new InputStreamReader(
-                                 new GZIPInputStream(
-                                         new URL(sitemapEntity.getUrl()).openStream()))) {
-                //Populate xml.
-                UrlSet urlSet = JaxbUtils.getXmlEntityFromStream(stream, UrlSet.class);
-                // Populate pending list
-                Set<PendingArticleEntity> pendingArticles = new HashSet<>();
-                for (Url url : urlSet.getUrls()) {
-                    String urlLoc = url.getLoc();
-                    if (isEligibleForProcessing(urlLoc)) {
-                        pendingArticles.add(new PendingArticleEntity(publication, urlLoc));
+            // then StAX to read the extracted xml file url by url, instead of loading whole file in memory.
+            try (UrlSetReader urls =
+                         new UrlSetReader(
+                                 new InputStreamReader(
+                                         new GZIPInputStream(
+                                                 new URL(sitemapEntity.getUrl()).openStream()),
+                                         Constants.STRING_ENCODING))) {
+                // Collect article urls chunk by chunk, and check the whole chunk at once.
+                Set<String> candidateUrls = new LinkedHashSet<>();
+                while (urls.hasNext()) {
+                    String urlLoc = urls.next().getLoc();
+                    if (articleEligibilityService.isArticleUrl(urlLoc)) {
+                        candidateUrls.add(urlLoc);
+                    }
+                    if (candidateUrls.size() >= this.chunkSize) {
+                        // Save the chunk to pending list, so the heap does not grow with the file.
+                        savePendingArticles(candidateUrls);
+                        candidateUrls.clear();
                     }
                 }
-                // Save all the records to pending list
-                pendingArticleRepository.save(pendingArticles);
+                // Save rest of the records to pending list
+                savePendingArticles(candidateUrls);
                 // Change the status of executed record and change the status.
                 sitemapRepository.markExecuted(sitemapEntity);
             } catch (Exception e) {
@@ -190,41 +181,24 @@ public class LoadArticleService implements ServiceInterface {
     }
 
     /**
-     * Before Saving the articles to {@link PendingArticleEntity}, we check whether that
-     * article is valid article url and was already processed by checking the article in
-     * {@link ExecutedArticleEntity}, {@link FailedArticleRepository}, {@link PendingArticleRepository}
-     * to avoid processing wrong url and duplication.
+     * Before Saving the articles to {@link PendingArticleEntity}, we check whether those
+     * articles were already processed by checking the chunk in {@link ExecutedArticleEntity},
+     * {@link FailedArticleRepository}, {@link PendingArticleRepository} to avoid duplication.
+     * <p>
+     * Checking is done by {@link ArticleEligibilityService#filterEligible(String, java.util.Collection)}
+     * with one query per table for whole chunk, the insert skips urls saved meanwhile by other instances,
+     * {@link ArticleEligibilityService#savePending(String, java.util.Collection)}.
      *
-     * @param url Url to be processed
-     * @return Whether the article present in {@link ExecutedArticleEntity},
-     * {@link FailedArticleRepository} and {@link PendingArticleRepository}
+     * @param candidateUrls chunk of article urls read from sitemap
      */
-    private boolean isEligibleForProcessing(String url) {
-
-        boolean isValidArticleUrl = (url != null && url.toLowerCase().contains("article"));
-        // Don't check further if url is not article URL.
-        if (isValidArticleUrl) {
-            boolean isPending = pendingArticleRepository.findByPublicationAndUrl(this.publication, url);
-            boolean isExecuted = executedArticleRepository.findByPublicationAndUrl(this.publication, url);
-            boolean isFailed = failedArticleRepository.findByPublicationAndUrl(this.publication, url);
-            return (!isPending && !isExecuted && !isFailed);
+    private void savePendingArticles(Set<String> candidateUrls) {
+        if (candidateUrls.isEmpty()) {
+            return;
+        }
+        Set<String> eligibleUrls = articleEligibilityService.filterEligible(this.publication, candidateUrls);
+        if (!eligibleUrls.isEmpty()) {
+            articleEligibilityService.savePending(this.publication, eligibleUrls);
         }
-        return isValidArticleUrl;
-    }
-
-
-    /**
-     * This method is to load failed articles from Fail-safe files to database before
-     * processing next record.
-     * <p>
-     * it takes care of records failed while being processed previously.
-     */
-    private void executeFailSafe() {
-        LOG.debug("Executing executeFailSafe() {} : {} : {}", this.resourcePath, this.publication,
-                Thread.currentThread().getName());
-        // Save articles.
-        executedArticleRepository.saveFromFile(this.resourcePath, publication);
-        failedArticleRepository.saveFromFile(this.resourcePath, publication);
     }
 
     /**
@@ -1,36 +1,85 @@
 package de.funkedigital.autotagging.services;
 
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.entities.repo.ArticleTransition;
 import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
 import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
 import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
+import de.funkedigital.autotagging.enums.ExecutionModeEnum;
+import de.funkedigital.autotagging.enums.RunResultEnum;
+import de.funkedigital.autotagging.enums.UpstreamEnum;
 import de.funkedigital.autotagging.escenic.services.EscenicService;
+import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import de.funkedigital.autotagging.exceptions.CircuitOpenException;
+import de.funkedigital.autotagging.exceptions.QuotaExceededException;
 import de.funkedigital.autotagging.jobs.SchedulerJob;
-import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
-import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.pipeline.Pipeline;
+import de.funkedigital.autotagging.pipeline.PipelineStage;
 import de.funkedigital.autotagging.repositories.PendingArticleRepository;
 import de.funkedigital.autotagging.semantic.entities.KeywordStore;
 import de.funkedigital.autotagging.semantic.entities.UnicornStore;
 import de.funkedigital.autotagging.semantic.services.SemanticService;
 import de.funkedigital.autotagging.semantic.services.UnicornService;
 import de.funkedigital.autotagging.services.interfaces.ServiceInterface;
-import org.apache.commons.lang3.ArrayUtils;
+import de.funkedigital.autotagging.utils.VirtualThreads;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.context.annotation.Scope;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.funkedigital.autotagging.utils.Constants.NAME_SEPARATOR;
+
 
 /**
- * This class is to process articles from {@link PendingArticleEntity} one-by-one.
+ * This class is to process articles from {@link PendingArticleEntity}.
  * <p>
  * It picks the top record from {@link PendingArticleEntity}, process it with {@link SemanticService}
  * then save it to {@link ExecutedArticleEntity} if return success else saves it to
  * {@link FailedArticleEntity} and then deletes it from {@link PendingArticleEntity} afterwards.
+ * <p>
+ * In {@link ExecutionModeEnum#Parallel} mode, it picks the top batch of records and processes them
+ * concurrently, with at most pending.article.parallelism articles of the publication at once.
+ * <p>
+ * In {@link ExecutionModeEnum#Pipeline} mode, {@link UnicornService}, {@link SemanticService} and
+ * {@link EscenicService} are stages of a {@link Pipeline}, each with own threads and bounded queue,
+ * at most pending.article.batch.size articles of the publication are in the pipeline at once.
+ * <p>
+ * In {@link ExecutionModeEnum#Virtual} mode, it picks the top pending.article.virtual.batch.size records and
+ * processes every one on a virtual thread, the calls to upstream services are limited by {@link UpstreamLimiter}
+ * instead of the number of threads. It needs virtual threads (JDK 21 and later, see {@link VirtualThreads}), the
+ * service does not start on an older runtime.
+ * <p>
+ * Records are claimed for pending.article.lease.seconds before processing, so threads and instances
+ * sharing the database never process the same record. Claims of stopped instances expire and the
+ * records are picked again.
+ * <p>
+ * While the circuit of an upstream service is open ({@link CircuitBreakers}) the service pauses, articles
+ * rejected by an open circuit stay pending.
+ * <p>
+ * Every run reports a {@link RunResultEnum}, with scheduler.trigger.mode Adaptive the interval of next run
+ * is adapted to it, see {@link de.funkedigital.autotagging.triggers.AdaptiveServiceTrigger}.
  *
  * @author sraj
  */
@@ -41,12 +90,6 @@ public class PendingArticleService implements ServiceInterface {
     private static final Logger LOG = LoggerFactory.getLogger(PendingArticleService.class);
 
 
-    /**
-     * Autowired instance of {@link ExecutedArticleRepository}
-     */
-    @Autowired
-    private ExecutedArticleRepository executedArticleRepository;
-
     /**
      * Autowired instance of {@link PendingArticleRepository}
      */
@@ -54,10 +97,10 @@ public class PendingArticleService implements ServiceInterface {
     private PendingArticleRepository pendingArticleRepository;
 
     /**
-     * Autowired instance of {@link FailedArticleRepository}
+     * Autowired instance of {@link ArticleTransitionService}
      */
     @Autowired
-    private FailedArticleRepository failedArticleRepository;
+    private ArticleTransitionService articleTransitionService;
 
     /**
      * Autowired instance of {@link UnicornService}
@@ -78,14 +121,119 @@ public class PendingArticleService implements ServiceInterface {
     private EscenicService escenicService;
 
     /**
-     * Path of resource folder
+     * Mode of processing, {@link ExecutionModeEnum}
+     */
+    @Value("${pending.article.execution.mode:Sequential}")
+    private ExecutionModeEnum executionMode;
+
+    /**
+     * Number of articles picked per run in {@link ExecutionModeEnum#Parallel} mode
+     */
+    @Value("${pending.article.batch.size:20}")
+    private int batchSize;
+
+    /**
+     * Number of articles picked per run in {@link ExecutionModeEnum#Virtual} mode
+     */
+    @Value("${pending.article.virtual.batch.size:500}")
+    private int virtualBatchSize;
+
+    /**
+     * Number of articles of publication processed at once in {@link ExecutionModeEnum#Parallel} mode
+     */
+    @Value("${pending.article.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * Threads of Unicorn stage in {@link ExecutionModeEnum#Pipeline} mode
+     */
+    @Value("${pending.article.pipeline.unicorn.concurrency:2}")
+    private int unicornConcurrency;
+
+    /**
+     * Threads of Semantic stage in {@link ExecutionModeEnum#Pipeline} mode
+     */
+    @Value("${pending.article.pipeline.semantic.concurrency:2}")
+    private int semanticConcurrency;
+
+    /**
+     * Threads of Escenic stage in {@link ExecutionModeEnum#Pipeline} mode
+     */
+    @Value("${pending.article.pipeline.escenic.concurrency:2}")
+    private int escenicConcurrency;
+
+    /**
+     * Articles waiting before each stage in {@link ExecutionModeEnum#Pipeline} mode
+     */
+    @Value("${pending.article.pipeline.queue.capacity:10}")
+    private int queueCapacity;
+
+    /**
+     * Write executed/failed articles and delete pending articles in batches, with {@link ArticleTransitionService}
+     */
+    @Value("${article.transition.write.behind:false}")
+    private boolean writeBehind;
+
+    /**
+     * Seconds the claimed articles are reserved for this instance, it should be longer than processing a batch
+     */
+    @Value("${pending.article.lease.seconds:300}")
+    private int leaseSeconds;
+
+    /**
+     * Autowired instance of {@link QuotaService}
+     */
+    @Autowired
+    private QuotaService quotaService;
+
+    /**
+     * Autowired instance of {@link UpstreamLimiter}, limits calls in {@link ExecutionModeEnum#Virtual} mode
+     */
+    @Autowired
+    private UpstreamLimiter upstreamLimiter;
+
+    /**
+     * Autowired instance of {@link CircuitBreakers}
+     */
+    @Autowired
+    private CircuitBreakers circuitBreakers;
+
+    /**
+     * Autowired instance of {@link GaugeService}, for metrics of pipeline
+     */
+    @Autowired(required = false)
+    private GaugeService gaugeService;
+
+    /**
+     * Id of this instance, {@link de.funkedigital.autotagging.AppConfig#instanceId()}
      */
     @Autowired
-    private String resourcePath;
+    private String instanceId;
 
     // Publication propeprty
     private String publication;
 
+    // Stages of publication, only in Pipeline mode
+    private Pipeline<ArticleInProcess> pipeline;
+
+    // Articles claimed and not yet completed by pipeline
+    private final AtomicInteger inPipeline = new AtomicInteger();
+
+    // Claim of articles in pipeline, only in Pipeline mode
+    private ClaimRenewal pipelineClaim;
+
+    // Sequence of claims, makes the claim token unique
+    private final AtomicLong claims = new AtomicLong();
+
+    // Workers of publication, only in Parallel mode
+    private ThreadPoolTaskExecutor executor;
+
+    // Virtual thread per article, only in Virtual mode
+    private ExecutorService virtualExecutor;
+
+    // Result of last run
+    private volatile RunResultEnum runResult;
+
     /**
      * This method is to set the property, ie publication.
      * As we have publication specific properties, diff files for
@@ -95,18 +243,95 @@ public class PendingArticleService implements ServiceInterface {
      */
     public void setProperties(String publication) {
         this.publication = publication;
+        if (this.executionMode == ExecutionModeEnum.Virtual && !VirtualThreads.isAvailable()) {
+            // Fail at start up, there is no virtual executor on this runtime
+            throw new AutoTaggingException(String.format("pending.article.execution.mode %s needs Java 21 or " +
+                    "later, running on Java %s", this.executionMode, System.getProperty("java.version")),
+                    HttpStatus.PRECONDITION_FAILED);
+        }
+        startExecutors();
+    }
+
+    /**
+     * Create the threads of {@link #executionMode}, if not created yet or released by {@link #stop()}.
+     */
+    private synchronized void startExecutors() {
+        if (this.executionMode == ExecutionModeEnum.Parallel && this.executor == null) {
+            this.executor = new ThreadPoolTaskExecutor();
+            this.executor.setCorePoolSize(this.parallelism);
+            this.executor.setMaxPoolSize(this.parallelism);
+            this.executor.setDaemon(true);
+            // Claimed articles are completed on stop
+            this.executor.setWaitForTasksToCompleteOnShutdown(true);
+            this.executor.setThreadNamePrefix(this.publication + "-pending-");
+            this.executor.initialize();
+        }
+        if (this.executionMode == ExecutionModeEnum.Virtual && this.virtualExecutor == null) {
+            this.virtualExecutor = VirtualThreads.newThreadPerTaskExecutor(this.publication + "-pending-virtual-");
+        }
+        if (this.executionMode == ExecutionModeEnum.Pipeline && this.pipeline == null) {
+            String prefix = this.publication + NAME_SEPARATOR;
+            ClaimRenewal claim = new ClaimRenewal(newClaim());
+            this.pipelineClaim = claim;
+            // Every stage renews the claim when it is due, articles may wait in the stages longer than the lease
+            this.pipeline = new Pipeline<ArticleInProcess>(this::completeArticle)
+                    .addStage(new PipelineStage<>(prefix + "unicorn",
+                            article -> {
+                                claim.renewIfDue();
+                                article.unicornStore = unicornService.analyzeArticle(article.getUrl());
+                            },
+                            this.unicornConcurrency, this.queueCapacity, this.gaugeService))
+                    .addStage(new PipelineStage<>(prefix + "semantic",
+                            article -> {
+                                claim.renewIfDue();
+                                quotaService.reserve();
+                                article.quotaReserved = true;
+                                article.keywords = semanticService.returnKeywords(article.unicornStore.getAssetId());
+                            },
+                            this.semanticConcurrency, this.queueCapacity, this.gaugeService))
+                    .addStage(new PipelineStage<>(prefix + "escenic",
+                            article -> {
+                                claim.renewIfDue();
+                                escenicService.pushKeywords(article.keywords.toString(),
+                                        article.unicornStore.getArticleId());
+                            },
+                            this.escenicConcurrency, this.queueCapacity, this.gaugeService));
+        }
+    }
+
+    /**
+     * Shut down the threads of {@link #executionMode}, articles already claimed are completed on them.
+     * They are created again on next {@link #run()}.
+     */
+    @Override
+    public synchronized void stop() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+        if (this.virtualExecutor != null) {
+            this.virtualExecutor.shutdown();
+            this.virtualExecutor = null;
+        }
+        if (this.pipeline != null) {
+            this.pipeline.shutdown();
+            this.pipeline = null;
+            this.pipelineClaim = null;
+        }
+        LOG.info("Released threads of {} : {}", this.publication, this.executionMode);
     }
 
     /**
      * This method is triggered on schedule : after 1 second of completion of previous run.
      * <p>
-     * -> delete all the data from fail-safe file from {@link PendingArticleEntity}
-     * -> Get the top record from {@link PendingArticleEntity}
+     * -> If quota of month is exceeded ({@link QuotaService}), do nothing
+     * -> If circuit of an upstream service is open ({@link CircuitBreakers}), do nothing
+     * -> Claim the top record from {@link PendingArticleEntity}
      * ----> If Fails:
      * ----------> DB might be down, Log the error an try again
      * ----> If Success:
      * ----------> Get urk and then get asset ID from {@link UnicornService}
-     * ----------> Execute {@link SemanticService} and push keywords to {@link EscenicService}
+     * ----------> Reserve quota, execute {@link SemanticService} and push keywords to {@link EscenicService}
      * --------------> If Success:
      * ---------------------->Save the article in {@link ExecutedArticleEntity}
      * --------------------------> If Fails:
@@ -129,62 +354,384 @@ public class PendingArticleService implements ServiceInterface {
      * -------------------------------> If {@link Exception}
      * -------------------------------------> Save the failed record to file
      * <p>
+     * In {@link ExecutionModeEnum#Parallel} mode the top batch of records is fetched and every record
+     * is processed as above on the workers of publication. {@link ExecutionModeEnum#Virtual} mode does
+     * the same with a virtual thread per record.
+     * <p>
+     * In {@link ExecutionModeEnum#Pipeline} mode the records are fetched as long as there is space in
+     * the pipeline and the method returns without waiting for them.
+     * <p>
      * This method can be triggered from {@link de.funkedigital.autotagging.scheduler.ScheduleManager#start(SchedulerJob)}
      * and the future runs can be cancelled {@link de.funkedigital.autotagging.scheduler.ScheduleManager#stop(SchedulerJob)}
      * <p>
      * There is {@link de.funkedigital.autotagging.controllers.ExecutionController} to start and stop the execution.
+     * <p>
+     * The result of run is {@link #getRunResult()}.
      */
     @Override
     public void run() {
         LOG.info("Executing run() {} : {}", this.publication, Thread.currentThread().getName());
         try {
-            // process records from fail safe file before any further processing.
-            executeFailSafe();
-            // Fetch the top pending article from DB to process.
-            PendingArticleEntity pendingArticle = pendingArticleRepository.findTopArticle(this.publication);
-            if (pendingArticle != null) {
-                String publication = pendingArticle.getPublication();
-                String url = pendingArticle.getUrl();
-
-                try {
-                    // Execute services.
-                    UnicornStore unicornStore = unicornService.analyzeArticle(url);
-                    KeywordStore keywords = semanticService.returnKeywords(unicornStore.getAssetId());
-                    escenicService.pushKeywords(keywords.toString(), unicornStore.getArticleId());
-                    // Saves the record to executed list.
-                    executedArticleRepository.save(publication, unicornStore.getAssetId(), url);
-                } catch (Exception ex) {
-                    LOG.error("Error occurred while processing {} : {} : {}", publication, url,
-                            ExceptionUtils.getRootCauseMessage(ex), ex);
-                    // If record fails, save the record to failed list.
-                    failedArticleRepository.save(publication, url);
-                } finally {
-                    // delete the data from table, it avoid re-run for same record again and again.
-                    pendingArticleRepository.delete(pendingArticle, ArrayUtils.EMPTY_LONG_OBJECT_ARRAY);
-                }
+            if (quotaService.isExceeded()) {
+                LOG.warn("Quota of month is exceeded, pending records of {} are not processed !!", this.publication);
+                this.runResult = RunResultEnum.Empty;
+                return;
+            }
+            UpstreamEnum openUpstream = circuitBreakers.getOpenUpstream();
+            if (openUpstream != null) {
+                LOG.warn("Circuit of {} is open, pending records of {} are not processed !!", openUpstream,
+                        this.publication);
+                this.runResult = RunResultEnum.Failed;
+                return;
+            }
+            startExecutors();
+            if (this.executionMode == ExecutionModeEnum.Parallel) {
+                this.runResult = processBatch(this.executor.getThreadPoolExecutor(), this.batchSize);
+            } else if (this.executionMode == ExecutionModeEnum.Virtual) {
+                this.runResult = processBatch(this.virtualExecutor, this.virtualBatchSize);
+            } else if (this.executionMode == ExecutionModeEnum.Pipeline) {
+                this.runResult = feedPipeline();
             } else {
-                // If no record found from pending articles, just log the warning and proceed.
-                LOG.warn("No pending records for processing from {} !!", this.publication);
+                // Claim the top pending article from DB to process.
+                List<PendingArticleEntity> pendingArticles = claimArticles(1);
+                if (!pendingArticles.isEmpty()) {
+                    if (!processArticle(pendingArticles.get(0))) {
+                        this.runResult = RunResultEnum.Failed;
+                    } else {
+                        // Backlog only if another article is waiting, a single article does not speed up the trigger
+                        this.runResult = pendingArticleRepository.hasClaimableArticles(this.publication)
+                                ? RunResultEnum.Backlog : RunResultEnum.Processed;
+                    }
+                } else {
+                    // If no record found from pending articles, just log the warning and proceed.
+                    LOG.warn("No pending records for processing from {} !!", this.publication);
+                    this.runResult = RunResultEnum.Empty;
+                }
             }
         } catch (Throwable th) {
             // This situation should only happen when the fetching of record fails from Pending articles.
             // Which means DB is down.
+            this.runResult = RunResultEnum.Failed;
             LOG.error("Database seem to be down {} : {} !!", this.publication,
                     ExceptionUtils.getRootCauseMessage(th), th);
         }
     }
 
     /**
-     * This method is to delete failed {@link PendingArticleEntity} articles from Fail-safe files to
-     * database before processing next record.
+     * Claim the top pending articles, so that other threads and instances skip them.
+     *
+     * @param limit maximum number of articles
+     * @return claimed {@link PendingArticleEntity}
+     */
+    private List<PendingArticleEntity> claimArticles(int limit) {
+        return claimArticles(newClaim(), limit);
+    }
+
+    /**
+     * Claim the top pending articles with the claim token.
+     *
+     * @param claim claim token, {@link #newClaim()}
+     * @param limit maximum number of articles
+     * @return claimed {@link PendingArticleEntity}
+     */
+    private List<PendingArticleEntity> claimArticles(String claim, int limit) {
+        return pendingArticleRepository.claimArticles(this.publication, claim, limit, this.leaseSeconds);
+    }
+
+    /**
+     * @return claim token, unique per instance, publication and claim
+     */
+    private String newClaim() {
+        return this.instanceId + NAME_SEPARATOR + this.publication + NAME_SEPARATOR + claims.incrementAndGet();
+    }
+
+    /**
+     * Claim the top batch of pending articles and process them on executor, {@link #executor} or
+     * {@link #virtualExecutor}.
+     * <p>
+     * It waits for the whole batch, so the next run starts once the batch is done and the
+     * number of articles in process never exceeds the batch. The claim is renewed while waiting.
+     *
+     * @param executor  executor articles are processed on
+     * @param batchSize maximum number of articles
+     * @return {@link RunResultEnum#Failed} if all articles failed, {@link RunResultEnum#Backlog} for a full batch
+     */
+    private RunResultEnum processBatch(ExecutorService executor, int batchSize) throws InterruptedException {
+        ClaimRenewal renewal = new ClaimRenewal(newClaim());
+        List<PendingArticleEntity> pendingArticles = claimArticles(renewal.claim, batchSize);
+        if (pendingArticles.isEmpty()) {
+            LOG.warn("No pending records for processing from {} !!", this.publication);
+            return RunResultEnum.Empty;
+        }
+        List<Future<Boolean>> futures = new ArrayList<>(pendingArticles.size());
+        int failed = 0;
+        for (PendingArticleEntity pendingArticle : pendingArticles) {
+            try {
+                futures.add(executor.submit(() -> processArticle(pendingArticle)));
+            } catch (RejectedExecutionException e) {
+                // Service is stopped, article stays pending
+                failed++;
+                complete(pendingArticle, null, e, false);
+            }
+        }
+        for (Future<Boolean> future : futures) {
+            try {
+                if (!await(future, renewal)) {
+                    failed++;
+                }
+            } catch (ExecutionException e) {
+                failed++;
+                LOG.error("Error occurred while processing batch {} : {}", this.publication,
+                        ExceptionUtils.getRootCauseMessage(e), e);
+            }
+        }
+        LOG.info("Processed {} pending records from {}, {} failed", pendingArticles.size(), this.publication, failed);
+        if (failed == pendingArticles.size()) {
+            return RunResultEnum.Failed;
+        }
+        return pendingArticles.size() == batchSize ? RunResultEnum.Backlog : RunResultEnum.Processed;
+    }
+
+    /**
+     * Wait for the article of batch. The claim of batch is renewed every half lease, no matter which
+     * article is waited for, the upstream permits are shared by all publications, so a batch can take longer
+     * than the lease and its articles must not be claimed and processed again meanwhile.
+     *
+     * @param future  article in process
+     * @param renewal claim of batch
+     * @return result of article
+     */
+    private boolean await(Future<Boolean> future, ClaimRenewal renewal) throws InterruptedException,
+            ExecutionException {
+        while (true) {
+            renewal.renewIfDue();
+            try {
+                return future.get(renewal.millisUntilDue(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Renewal is due
+            }
+        }
+    }
+
+    /**
+     * Claim pending articles up to the free space of {@link #pipeline} and submit them. Submitting
+     * blocks while the first stage is full, it does not wait for the articles to complete.
+     * <p>
+     * All articles in pipeline share {@link #pipelineClaim}, it is renewed by every run and by the stages,
+     * so articles waiting in the stages are not claimed and processed again.
+     *
+     * @return {@link RunResultEnum#Backlog} if the free space was filled, results of articles are not known yet
+     */
+    private RunResultEnum feedPipeline() throws InterruptedException {
+        ClaimRenewal claim = this.pipelineClaim;
+        claim.renewIfDue();
+        int free = this.batchSize - inPipeline.get();
+        if (free <= 0) {
+            LOG.debug("Pipeline is full {} : {}", this.publication, this.pipeline.getDetails());
+            return RunResultEnum.Processed;
+        }
+        List<PendingArticleEntity> pendingArticles = claimArticles(claim.claim, free);
+        if (pendingArticles.isEmpty()) {
+            LOG.warn("No pending records for processing from {} !!", this.publication);
+            return RunResultEnum.Empty;
+        }
+        for (PendingArticleEntity pendingArticle : pendingArticles) {
+            ArticleInProcess article = new ArticleInProcess(pendingArticle);
+            inPipeline.incrementAndGet();
+            try {
+                this.pipeline.submit(article);
+            } catch (RejectedExecutionException e) {
+                // Service is stopped, article stays pending
+                completeArticle(article, e);
+            }
+        }
+        LOG.info("Submitted {} pending records from {} : {}", pendingArticles.size(), this.publication,
+                this.pipeline.getDetails());
+        return pendingArticles.size() == free ? RunResultEnum.Backlog : RunResultEnum.Processed;
+    }
+
+    /**
+     * Save the article completed by {@link #pipeline} to executed or failed articles and delete it from
+     * pending articles.
+     *
+     * @param article   article completed by the last stage or failed
+     * @param exception exception of failed stage, or null
+     */
+    private void completeArticle(ArticleInProcess article, Exception exception) {
+        try {
+            complete(article.pendingArticle, exception == null ? article.unicornStore.getAssetId() : null, exception,
+                    article.quotaReserved);
+        } finally {
+            inPipeline.decrementAndGet();
+        }
+    }
+
+    /**
+     * Process one pending article, save it to executed or failed articles and delete it from
+     * pending articles.
+     *
+     * @param pendingArticle {@link PendingArticleEntity} to process
+     * @return true if processed, false if an exception occurred
+     */
+    private boolean processArticle(PendingArticleEntity pendingArticle) {
+        String assetId = null;
+        Exception exception = null;
+        boolean quotaReserved = false;
+        try {
+            // Execute services.
+            UnicornStore unicornStore = upstream(UpstreamEnum.Unicorn,
+                    () -> unicornService.analyzeArticle(pendingArticle.getUrl()));
+            quotaService.reserve();
+            quotaReserved = true;
+            KeywordStore keywords = upstream(UpstreamEnum.Semantic,
+                    () -> semanticService.returnKeywords(unicornStore.getAssetId()));
+            upstream(UpstreamEnum.Escenic, () -> {
+                escenicService.pushKeywords(keywords.toString(), unicornStore.getArticleId());
+                return null;
+            });
+            assetId = unicornStore.getAssetId();
+        } catch (Exception ex) {
+            exception = ex;
+        }
+        complete(pendingArticle, assetId, exception, quotaReserved);
+        return exception == null;
+    }
+
+    /**
+     * Call the upstream service, in {@link ExecutionModeEnum#Virtual} mode once {@link UpstreamLimiter}
+     * has a permit for it.
+     */
+    private <T> T upstream(UpstreamEnum upstream, Callable<T> call) throws Exception {
+        return this.executionMode == ExecutionModeEnum.Virtual ? upstreamLimiter.call(upstream, call) : call.call();
+    }
+
+    /**
+     * Save the processed article to executed articles, or to failed articles if exception occurred,
+     * and delete it from pending articles, in one transaction with {@link ArticleTransitionService}.
+     * <p>
+     * With article.transition.write.behind the move is queued and written in batch with other articles.
      * <p>
-     * it takes care of records failed while being processed previously.
+     * If the quota of month was exceeded before the semantic call, the circuit of an upstream service was
+     * open or the service was stopped, the article stays pending and its claim is released.
+     * <p>
+     * The record of quota reserved for the article is released once the article is counted, see
+     * {@link QuotaService#reserve()}.
+     *
+     * @param pendingArticle processed {@link PendingArticleEntity}
+     * @param assetId        asset id of article, if processed successfully
+     * @param exception      exception occurred while processing, or null
+     * @param quotaReserved  whether a record of quota is reserved for the article
+     */
+    private void complete(PendingArticleEntity pendingArticle, String assetId, Exception exception,
+                          boolean quotaReserved) {
+        String publication = pendingArticle.getPublication();
+        String url = pendingArticle.getUrl();
+        if (exception instanceof QuotaExceededException || exception instanceof CircuitOpenException
+                || exception instanceof RejectedExecutionException) {
+            // Article stays pending, it is processed once the quota or upstream is available again,
+            // or once the stopped service is started again.
+            LOG.warn("Article is not processed {} : {} : {}", publication, url, exception.getMessage());
+            if (quotaReserved) {
+                quotaService.release(1);
+            }
+            pendingArticleRepository.release(pendingArticle.getId());
+            return;
+        }
+        if (exception != null) {
+            LOG.error("Error occurred while processing {} : {} : {}", publication, url,
+                    ExceptionUtils.getRootCauseMessage(exception), exception);
+        }
+        ArticleTransition transition = exception == null
+                ? ArticleTransition.executed(pendingArticle, publication, assetId, url)
+                : ArticleTransition.failed(pendingArticle, publication, url);
+        transition.setQuotaReserved(quotaReserved);
+        if (this.writeBehind) {
+            articleTransitionService.queue(transition);
+        } else {
+            articleTransitionService.transition(transition);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RunResultEnum getRunResult() {
+        return runResult;
+    }
+
+    /**
+     * Claim of articles in process, it is renewed once half of the lease passed since the claim or the last
+     * renewal, see {@link PendingArticleRepository#renew(String, Date)}.
+     */
+    private class ClaimRenewal {
+
+        private final String claim;
+
+        private long renewedAt = System.currentTimeMillis();
+
+        private ClaimRenewal(String claim) {
+            this.claim = claim;
+        }
+
+        private long renewMillis() {
+            return TimeUnit.SECONDS.toMillis(leaseSeconds) / 2;
+        }
+
+        /**
+         * @return milliseconds until the renewal is due, at least 1
+         */
+        private synchronized long millisUntilDue() {
+            return Math.max(1, this.renewedAt + renewMillis() - System.currentTimeMillis());
+        }
+
+        /**
+         * Renew the claim, if the renewal is due. Articles already completed are deleted or released
+         * and not renewed.
+         */
+        private synchronized void renewIfDue() {
+            long now = System.currentTimeMillis();
+            if (now - this.renewedAt < renewMillis()) {
+                return;
+            }
+            this.renewedAt = now;
+            try {
+                int renewed = pendingArticleRepository.renew(this.claim,
+                        new Date(now + TimeUnit.SECONDS.toMillis(leaseSeconds)));
+                LOG.info("Renewed the claim of {} pending records from {}", renewed, publication);
+            } catch (Exception e) {
+                // Claim expires at the end of lease, articles may be claimed again after that.
+                LOG.error("Error occurred while renewing the claim {} : {}", this.claim,
+                        ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    /**
+     * Pending article with results of stages of {@link #pipeline}
      */
-    private void executeFailSafe() {
-        LOG.debug("Executing executeFailSafe() {} : {} : {}", this.resourcePath, this.publication,
-                Thread.currentThread().getName());
-        // Pick articles from file and delete them.
-        pendingArticleRepository.deleteFromFile(this.resourcePath, this.publication);
+    private static class ArticleInProcess {
+
+        private final PendingArticleEntity pendingArticle;
+
+        private UnicornStore unicornStore;
+
+        private KeywordStore keywords;
+
+        private boolean quotaReserved;
+
+        private ArticleInProcess(PendingArticleEntity pendingArticle) {
+            this.pendingArticle = pendingArticle;
+        }
+
+        private String getUrl() {
+            return pendingArticle.getUrl();
+        }
+
+        @Override
+        public String toString() {
+            return pendingArticle.toString();
+        }
     }
 
     /**
@@ -194,6 +741,7 @@ public class PendingArticleService implements ServiceInterface {
     public String toString() {
         return "PendingArticleService{" +
                 "publication='" + publication + '\'' +
+                ", executionMode=" + executionMode +
                 '}';
     }
 }
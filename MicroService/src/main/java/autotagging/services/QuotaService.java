@@ -0,0 +1,200 @@
+package de.funkedigital.autotagging.services;
+
+import de.funkedigital.autotagging.exceptions.QuotaExceededException;
+import de.funkedigital.autotagging.repositories.ArticleCounterRepository;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monthly quota of semantic records, executed and failed articles of all publications.
+ * <p>
+ * The number of articles of month is kept in memory, it is read from {@link ArticleCounterRepository}
+ * every semantic.quota.refresh.interval milliseconds (to include other instances) and increased
+ * with every article saved by this instance in between. So the quota can be checked before every
+ * semantic call, without counting the article tables.
+ * <p>
+ * Workers reserve one record with {@link #reserve()} before the semantic call, the reservation is part of
+ * the count until the article is saved and counted, so parallel workers do not exceed the quota.
+ *
+ * @author sraj
+ */
+@Service
+public class QuotaService implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuotaService.class);
+
+    private static final String PREFIX = "semantic.quota.";
+
+    /**
+     * Max record is 80,000 as, we have set 20,000 records to be accessed
+     * as duplicate from {@link WebService}
+     */
+    @Value("${semantic.records.max.per.month}")
+    private long maxRecordsPerMonth;
+
+    /**
+     * Autowired instance of {@link ArticleCounterRepository}
+     */
+    @Autowired
+    private ArticleCounterRepository articleCounterRepository;
+
+    // Month of count, null until the counters are read first time
+    private volatile String month;
+
+    // Executed and failed articles of month, including reserved records
+    private final AtomicLong count = new AtomicLong();
+
+    // Records reserved for articles in process, not saved yet
+    private final AtomicLong reserved = new AtomicLong();
+
+    // Articles not sent to semantic service, because quota was exceeded
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Number of executed and failed articles of current month, and records reserved for articles in process.
+     *
+     * @return count of month
+     */
+    public long getCount() {
+        if (!ArticleCounterRepository.month(new Date()).equals(this.month)) {
+            refresh();
+        }
+        return count.get();
+    }
+
+    /**
+     * Check whether the quota of month is used up.
+     *
+     * @return true, if no more articles should be processed this month
+     */
+    public boolean isExceeded() {
+        return getCount() >= this.maxRecordsPerMonth;
+    }
+
+    /**
+     * Reserve one record of the quota before sending an article to semantic service. The check and
+     * reservation are one atomic step, so workers running at the same time never exceed the quota.
+     * <p>
+     * Reservation is released with {@link #release(int)} once the article is saved and counted, or once
+     * it is known that the article is not saved.
+     *
+     * @throws QuotaExceededException if the quota of month is used up
+     */
+    public void reserve() {
+        // Read the counters of month first
+        getCount();
+        // Reserved first, a refresh in between counts the record twice rather than not at all
+        reserved.incrementAndGet();
+        if (count.incrementAndGet() > this.maxRecordsPerMonth) {
+            release(1);
+            rejected.incrementAndGet();
+            throw new QuotaExceededException(String.format("Quota of %d records for month %s is exceeded",
+                    this.maxRecordsPerMonth, this.month));
+        }
+    }
+
+    /**
+     * Release the records reserved with {@link #reserve()}, after the articles are counted with
+     * {@link #recorded(int)}.
+     *
+     * @param articles number of reserved records
+     */
+    public void release(int articles) {
+        if (articles > 0) {
+            reserved.addAndGet(-articles);
+            count.addAndGet(-articles);
+        }
+    }
+
+    /**
+     * Add the articles saved by this instance, they are already added to {@link ArticleCounterRepository}.
+     *
+     * @param articles number of executed and failed articles
+     */
+    public void recorded(int articles) {
+        count.addAndGet(articles);
+    }
+
+    /**
+     * Add executed and failed articles to counter of publication and to the count of month.
+     *
+     * @param publication publication of articles
+     * @param executed    number of executed articles
+     * @param failed      number of failed articles
+     */
+    public void increment(String publication, int executed, int failed) {
+        articleCounterRepository.increment(new Date(), publication, executed, failed);
+        recorded(executed + failed);
+    }
+
+    /**
+     * Remove a failed article from the counters, once its retry is saved as executed article. The executed
+     * article is counted instead, so the article is counted once. The failed article is removed from the
+     * month it failed in.
+     *
+     * @param publication   publication of article
+     * @param executionDate date the article failed
+     */
+    public void removeFailed(String publication, Date executionDate) {
+        Date date = executionDate == null ? new Date() : executionDate;
+        try {
+            articleCounterRepository.increment(date, publication, 0, -1);
+            if (ArticleCounterRepository.month(date).equals(this.month)) {
+                recorded(-1);
+            }
+        } catch (Exception e) {
+            // Article is executed, counter is only ahead.
+            LOG.error("Error occurred while removing failed article of {} : {}", publication,
+                    ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * Read the count of month from {@link ArticleCounterRepository}, counters are created from article
+     * tables for publications without counter of month.
+     */
+    @Scheduled(fixedDelayString = "${semantic.quota.refresh.interval:60000}")
+    public synchronized void refresh() {
+        Date now = new Date();
+        String current = ArticleCounterRepository.month(now);
+        try {
+            if (!current.equals(this.month) && articleCounterRepository.initialize(now)) {
+                LOG.info("Created article counters of {} from article tables", current);
+            }
+            Map<String, Long> counters = articleCounterRepository.findByMonth(now);
+            count.set(counters.values().stream().mapToLong(Long::longValue).sum() + reserved.get());
+            this.month = current;
+            LOG.debug("Records of month {} : {} of {}", current, count.get(), this.maxRecordsPerMonth);
+        } catch (Exception e) {
+            // Keep the last count, it is read again with next refresh.
+            LOG.error("Error occurred while reading article counters : {}", ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(PREFIX + "count", count.get()));
+        metrics.add(new Metric<>(PREFIX + "max", this.maxRecordsPerMonth));
+        metrics.add(new Metric<>(PREFIX + "reserved", reserved.get()));
+        metrics.add(new Metric<>(PREFIX + "rejected", rejected.get()));
+        return metrics;
+    }
+}
@@ -0,0 +1,112 @@
+package de.funkedigital.autotagging.services;
+
+import de.funkedigital.autotagging.enums.UpstreamEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the concurrent calls to every {@link UpstreamEnum}, of all publications together.
+ * <p>
+ * With {@link de.funkedigital.autotagging.enums.ExecutionModeEnum#Virtual} thousands of articles can be
+ * in process at once, the number of threads does not limit the calls anymore. A call waits for a permit
+ * of its upstream, upstream.[name].concurrency permits, so the upstream services see a bounded load.
+ * <p>
+ * Metrics, prefix is upstream.[name]
+ * ----> limit : permits of upstream
+ * ----> active : calls in progress
+ * ----> waiting : calls waiting for a permit
+ * ----> calls : calls completed
+ *
+ * @author sraj
+ */
+@Service
+public class UpstreamLimiter implements PublicMetrics {
+
+    private static final String PREFIX = "upstream.";
+
+    /**
+     * Concurrent calls to {@link UpstreamEnum#Unicorn}
+     */
+    @Value("${upstream.unicorn.concurrency:16}")
+    private int unicornConcurrency;
+
+    /**
+     * Concurrent calls to {@link UpstreamEnum#Semantic}
+     */
+    @Value("${upstream.semantic.concurrency:16}")
+    private int semanticConcurrency;
+
+    /**
+     * Concurrent calls to {@link UpstreamEnum#Escenic}
+     */
+    @Value("${upstream.escenic.concurrency:16}")
+    private int escenicConcurrency;
+
+    private final Map<UpstreamEnum, Semaphore> permits = new EnumMap<>(UpstreamEnum.class);
+
+    private final Map<UpstreamEnum, Integer> limits = new EnumMap<>(UpstreamEnum.class);
+
+    private final Map<UpstreamEnum, AtomicLong> calls = new EnumMap<>(UpstreamEnum.class);
+
+    @PostConstruct
+    public void init() {
+        limit(UpstreamEnum.Unicorn, this.unicornConcurrency);
+        limit(UpstreamEnum.Semantic, this.semanticConcurrency);
+        limit(UpstreamEnum.Escenic, this.escenicConcurrency);
+    }
+
+    private void limit(UpstreamEnum upstream, int concurrency) {
+        permits.put(upstream, new Semaphore(concurrency, true));
+        limits.put(upstream, concurrency);
+        calls.put(upstream, new AtomicLong());
+    }
+
+    /**
+     * Call the upstream once a permit is available.
+     *
+     * @param upstream {@link UpstreamEnum} called
+     * @param call     the call
+     * @param <T>      result of call
+     * @return result of call
+     * @throws Exception exception of call, or {@link InterruptedException} while waiting
+     */
+    public <T> T call(UpstreamEnum upstream, Callable<T> call) throws Exception {
+        Semaphore semaphore = permits.get(upstream);
+        semaphore.acquire();
+        try {
+            return call.call();
+        } finally {
+            semaphore.release();
+            calls.get(upstream).incrementAndGet();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (Map.Entry<UpstreamEnum, Semaphore> entry : permits.entrySet()) {
+            String upstream = PREFIX + entry.getKey().name().toLowerCase() + ".";
+            int limit = limits.get(entry.getKey());
+            metrics.add(new Metric<>(upstream + "limit", limit));
+            metrics.add(new Metric<>(upstream + "active", limit - entry.getValue().availablePermits()));
+            metrics.add(new Metric<>(upstream + "waiting", entry.getValue().getQueueLength()));
+            metrics.add(new Metric<>(upstream + "calls", calls.get(entry.getKey()).get()));
+        }
+        return metrics;
+    }
+}
@@ -1,6 +1,24 @@
 package de.funkedigital.autotagging.services.interfaces;
 
+import de.funkedigital.autotagging.enums.RunResultEnum;
+
 public interface ServiceInterface {
 
     void run();
+
+    /**
+     * Result of the last {@link #run()}, read by scheduler once the run completes.
+     *
+     * @return {@link RunResultEnum}, null if service does not report results
+     */
+    default RunResultEnum getRunResult() {
+        return null;
+    }
+
+    /**
+     * Release the threads of service, called once the service is stopped. Service creates
+     * them again on next {@link #run()}.
+     */
+    default void stop() {
+    }
 }
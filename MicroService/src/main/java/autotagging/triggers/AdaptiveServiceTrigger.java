@@ -0,0 +1,127 @@
+package de.funkedigital.autotagging.triggers;
+
+import de.funkedigital.autotagging.enums.RunResultEnum;
+import de.funkedigital.autotagging.services.interfaces.ServiceInterface;
+import org.springframework.scheduling.TriggerContext;
+
+import java.util.Date;
+
+/**
+ * Trigger whose interval adapts to the results of service, {@link ServiceInterface#getRunResult()}.
+ * <p>
+ * ----> {@link RunResultEnum#Backlog} : interval is divided by factor, down to floor
+ * ----> {@link RunResultEnum#Processed} : interval is reset to the interval of schedule
+ * ----> {@link RunResultEnum#Empty} and {@link RunResultEnum#Failed} : interval is multiplied by factor,
+ * up to ceiling, so an empty queue or a service which is down is polled exponentially less often
+ * ----> No result : interval is kept
+ * <p>
+ * Unlike {@link ServiceTrigger}, the next run is timed from the completion of last run, a backed off
+ * interval is a real pause between runs.
+ *
+ * @author sraj
+ */
+public class AdaptiveServiceTrigger extends ServiceTrigger {
+
+    /**
+     * Shortest interval in milliseconds
+     */
+    private final long floor;
+
+    /**
+     * Longest interval in milliseconds
+     */
+    private final long ceiling;
+
+    /**
+     * Factor interval is shortened or backed off with
+     */
+    private final int factor;
+
+    private volatile long currentInterval;
+
+    private volatile RunResultEnum lastResult;
+
+    public AdaptiveServiceTrigger(int interval, long floor, long ceiling, int factor) {
+        super(interval);
+        this.floor = Math.max(1, floor);
+        this.ceiling = Math.max(this.floor, ceiling);
+        this.factor = Math.max(2, factor);
+        this.currentInterval = clamp(super.getCurrentInterval());
+    }
+
+    /**
+     * Set the interval of schedule, the current interval starts from it again.
+     *
+     * @param interval interval in seconds
+     */
+    @Override
+    public void setInterval(int interval) {
+        super.setInterval(interval);
+        this.currentInterval = clamp(super.getCurrentInterval());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCurrentInterval() {
+        return currentInterval;
+    }
+
+    public RunResultEnum getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void completed(RunResultEnum result) {
+        if (result == null) {
+            return;
+        }
+        this.lastResult = result;
+        switch (result) {
+            case Backlog:
+                this.currentInterval = clamp(this.currentInterval / this.factor);
+                break;
+            case Processed:
+                this.currentInterval = clamp(super.getCurrentInterval());
+                break;
+            case Empty:
+            case Failed:
+                this.currentInterval = clamp(this.currentInterval * this.factor);
+                break;
+        }
+    }
+
+    private long clamp(long interval) {
+        return Math.min(this.ceiling, Math.max(this.floor, interval));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Date nextExecutionTime(TriggerContext triggerContext) {
+        Date lastCompletion = triggerContext.lastCompletionTime();
+        if (lastCompletion == null) {
+            return new Date();
+        }
+        return new Date(lastCompletion.getTime() + this.currentInterval);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "AdaptiveServiceTrigger{" +
+                "interval=" + getInterval() +
+                ", currentInterval=" + currentInterval +
+                ", floor=" + floor +
+                ", ceiling=" + ceiling +
+                ", factor=" + factor +
+                '}';
+    }
+}
@@ -1,5 +1,6 @@
 package de.funkedigital.autotagging.triggers;
 
+import de.funkedigital.autotagging.enums.RunResultEnum;
 import de.funkedigital.autotagging.services.interfaces.ServiceInterface;
 import de.funkedigital.autotagging.utils.Utils;
 import org.springframework.scheduling.Trigger;
@@ -26,6 +27,28 @@ public class ServiceTrigger implements Trigger {
         this.interval = interval;
     }
 
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Interval the next run is triggered with.
+     *
+     * @return interval in milliseconds
+     */
+    public long getCurrentInterval() {
+        return this.interval * 1000L;
+    }
+
+    /**
+     * Called once {@link ServiceInterface#run()} completes, before the next run is triggered.
+     * The fixed interval ignores the result.
+     *
+     * @param result {@link ServiceInterface#getRunResult()}, may be null
+     */
+    public void completed(RunResultEnum result) {
+    }
+
     /**
      * {@inheritDoc}
      */
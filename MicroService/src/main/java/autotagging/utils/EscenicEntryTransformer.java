@@ -0,0 +1,233 @@
+package de.funkedigital.autotagging.utils;
+
+import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.http.HttpStatus;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streaming rewrite of Escenic atom entry.
+ * <p>
+ * The entry is copied event by event with StAX, without building a document, only
+ * ----> the first vdf:value of the first element with name="auto_Keywords" gets the keywords as text,
+ * a vdf:value is added if the element has none.
+ * ----> the first app:control element gets the attribute keep-last-modified="true", for silent update.
+ * <p>
+ * Elements are matched on prefix and local name, as the tag names used with Jsoup.
+ *
+ * @author sraj
+ */
+public final class EscenicEntryTransformer {
+
+    private static final String KEYWORDS = "auto_Keywords";
+
+    private static final String NAME = "name";
+
+    private static final String VALUE_PREFIX = "vdf";
+
+    private static final String VALUE = "value";
+
+    private static final String CONTROL_PREFIX = "app";
+
+    private static final String CONTROL = "control";
+
+    private static final String KEEP_LAST_MODIFIED = "keep-last-modified";
+
+    private static final XMLInputFactory INPUT_FACTORY = createFactory();
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newInstance();
+
+    private EscenicEntryTransformer() {
+    }
+
+    /**
+     * Copy the entry from in to out, with keywords and silent update set.
+     *
+     * @param in       entry received from Escenic
+     * @param out      entry to be put to Escenic, written as UTF-8
+     * @param keywords keywords, text of vdf:value
+     * @return {@link Result} with the elements found
+     */
+    public static Result transform(InputStream in, OutputStream out, String keywords) {
+        Result result = new Result();
+        XMLEventReader reader = null;
+        XMLEventWriter writer = null;
+        try {
+            reader = INPUT_FACTORY.createXMLEventReader(in);
+            writer = OUTPUT_FACTORY.createXMLEventWriter(out, StandardCharsets.UTF_8.name());
+            // Depth of the current element, and of keywords element while inside it, else -1
+            int depth = 0;
+            int keywordsDepth = -1;
+            StartElement keywordsElement = null;
+            boolean valueWritten = false;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartDocument()) {
+                    StartDocument startDocument = (StartDocument) event;
+                    writer.add(EVENT_FACTORY.createStartDocument(StandardCharsets.UTF_8.name(),
+                            startDocument.getVersion()));
+                } else if (event.isStartElement()) {
+                    depth++;
+                    StartElement element = event.asStartElement();
+                    if (keywordsDepth < 0 && !result.keywordsFound && isKeywords(element)) {
+                        result.keywordsFound = true;
+                        keywordsDepth = depth;
+                        keywordsElement = element;
+                        writer.add(element);
+                    } else if (keywordsDepth > 0 && !valueWritten && is(element, VALUE_PREFIX, VALUE)) {
+                        // Replace content of value with keywords.
+                        writer.add(element);
+                        writer.add(EVENT_FACTORY.createCharacters(keywords));
+                        skipElement(reader);
+                        writer.add(EVENT_FACTORY.createEndElement(element.getName(), null));
+                        depth--;
+                        valueWritten = true;
+                    } else if (!result.controlFound && is(element, CONTROL_PREFIX, CONTROL)) {
+                        result.controlFound = true;
+                        writer.add(keepLastModified(element));
+                    } else {
+                        writer.add(element);
+                    }
+                } else if (event.isEndElement()) {
+                    if (depth == keywordsDepth) {
+                        if (!valueWritten) {
+                            writeValue(writer, keywordsElement.getNamespaceContext()
+                                    .getNamespaceURI(VALUE_PREFIX), keywords);
+                            valueWritten = true;
+                        }
+                        keywordsDepth = -1;
+                    }
+                    depth--;
+                    writer.add(event);
+                } else {
+                    writer.add(event);
+                }
+            }
+            writer.flush();
+            return result;
+        } catch (XMLStreamException | RuntimeException e) {
+            throw new AutoTaggingException("Could not transform Escenic entry : " +
+                    ExceptionUtils.getRootCauseMessage(e), e, HttpStatus.UNPROCESSABLE_ENTITY);
+        } finally {
+            close(reader, writer);
+        }
+    }
+
+    private static boolean isKeywords(StartElement element) {
+        Attribute name = element.getAttributeByName(new QName(NAME));
+        return name != null && KEYWORDS.equals(name.getValue());
+    }
+
+    private static boolean is(StartElement element, String prefix, String localPart) {
+        QName name = element.getName();
+        return prefix.equals(name.getPrefix()) && localPart.equals(name.getLocalPart());
+    }
+
+    /**
+     * Copy of the element, with keep-last-modified="true"
+     */
+    @SuppressWarnings("unchecked")
+    private static StartElement keepLastModified(StartElement element) {
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<Attribute> iterator = element.getAttributes();
+        while (iterator.hasNext()) {
+            Attribute attribute = iterator.next();
+            if (!KEEP_LAST_MODIFIED.equals(attribute.getName().getLocalPart())) {
+                attributes.add(attribute);
+            }
+        }
+        attributes.add(EVENT_FACTORY.createAttribute(KEEP_LAST_MODIFIED, "true"));
+        QName name = element.getName();
+        return EVENT_FACTORY.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+                attributes.iterator(), element.getNamespaces(), element.getNamespaceContext());
+    }
+
+    /**
+     * Write a new vdf:value element with keywords.
+     */
+    private static void writeValue(XMLEventWriter writer, String namespaceUri, String keywords)
+            throws XMLStreamException {
+        String uri = namespaceUri == null ? "" : namespaceUri;
+        writer.add(EVENT_FACTORY.createStartElement(VALUE_PREFIX, uri, VALUE));
+        writer.add(EVENT_FACTORY.createCharacters(keywords));
+        writer.add(EVENT_FACTORY.createEndElement(VALUE_PREFIX, uri, VALUE));
+    }
+
+    /**
+     * Skip all events up to and including end of the current element.
+     */
+    private static void skipElement(XMLEventReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+        }
+    }
+
+    private static void close(XMLEventReader reader, XMLEventWriter writer) {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            // Streams are closed by caller.
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Elements found while transforming
+     */
+    public static class Result {
+
+        private boolean keywordsFound;
+
+        private boolean controlFound;
+
+        /**
+         * @return true, if element with name="auto_Keywords" was found and updated
+         */
+        public boolean isKeywordsFound() {
+            return keywordsFound;
+        }
+
+        /**
+         * @return true, if app:control was found and updated
+         */
+        public boolean isControlFound() {
+            return controlFound;
+        }
+    }
+}
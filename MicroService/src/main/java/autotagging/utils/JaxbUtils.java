@@ -6,28 +6,96 @@ import javax.xml.bind.Unmarshaller;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Util class to perform {@link javax.xml.bind.JAXB} operations
+ * <p>
+ * {@link JAXBContext} is thread safe and expensive to create, so one context is created per class
+ * and cached. {@link Unmarshaller} is not thread safe, so unmarshallers are pooled per class, borrowed
+ * for one call and returned to the pool afterwards. At most {@link #MAX_IDLE_UNMARSHALLERS} idle unmarshallers
+ * are kept per class, so a burst of parallel calls does not keep its unmarshallers forever.
  *
  * @author sraj
  */
 public class JaxbUtils {
 
+    /**
+     * Idle {@link Unmarshaller} kept per bound class, more are dropped when they are returned
+     */
+    private static final int MAX_IDLE_UNMARSHALLERS = 16;
+
+    /**
+     * Cached {@link JAXBContext} per bound class
+     */
+    private static final ConcurrentMap<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    /**
+     * Idle {@link Unmarshaller} per bound class
+     */
+    private static final ConcurrentMap<Class<?>, Queue<Unmarshaller>> UNMARSHALLERS = new ConcurrentHashMap<>();
+
     public static <T> T getXmlEntityFromUrl(String url, Class<T> cls) throws MalformedURLException, JAXBException {
         URL u = new URL(url);
-        JAXBContext jaxbContext = JAXBContext.newInstance(cls);
-
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        T t = (T) jaxbUnmarshaller.unmarshal(u);
-        return t;
+        Unmarshaller jaxbUnmarshaller = borrowUnmarshaller(cls);
+        try {
+            return cls.cast(jaxbUnmarshaller.unmarshal(u));
+        } finally {
+            returnUnmarshaller(cls, jaxbUnmarshaller);
+        }
     }
 
     public static <T> T getXmlEntityFromStream(InputStreamReader stream, Class<T> cls) throws JAXBException {
-        JAXBContext jaxbContext = JAXBContext.newInstance(cls);
+        Unmarshaller jaxbUnmarshaller = borrowUnmarshaller(cls);
+        try {
+            return cls.cast(jaxbUnmarshaller.unmarshal(stream));
+        } finally {
+            returnUnmarshaller(cls, jaxbUnmarshaller);
+        }
+    }
+
+    /**
+     * Return the cached {@link JAXBContext} for class, creating it on first access.
+     *
+     * @param cls class bound to the context
+     * @return {@link JAXBContext}
+     */
+    public static JAXBContext getContext(Class<?> cls) throws JAXBException {
+        JAXBContext context = CONTEXTS.get(cls);
+        if (context == null) {
+            // Two threads may create a context at the same time, only the first one is kept.
+            JAXBContext created = JAXBContext.newInstance(cls);
+            context = CONTEXTS.putIfAbsent(cls, created);
+            if (context == null) {
+                context = created;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Take an idle {@link Unmarshaller} from the pool or create a new one.
+     */
+    private static Unmarshaller borrowUnmarshaller(Class<?> cls) throws JAXBException {
+        Unmarshaller unmarshaller = pool(cls).poll();
+        if (unmarshaller == null) {
+            unmarshaller = getContext(cls).createUnmarshaller();
+        }
+        return unmarshaller;
+    }
+
+    /**
+     * Put the {@link Unmarshaller} back to the pool, once the call is finished. If the pool is full, the
+     * unmarshaller is dropped and garbage collected.
+     */
+    private static void returnUnmarshaller(Class<?> cls, Unmarshaller unmarshaller) {
+        pool(cls).offer(unmarshaller);
+    }
 
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        T t = (T) jaxbUnmarshaller.unmarshal(stream);
-        return t;
+    private static Queue<Unmarshaller> pool(Class<?> cls) {
+        return UNMARSHALLERS.computeIfAbsent(cls, k -> new ArrayBlockingQueue<>(MAX_IDLE_UNMARSHALLERS));
     }
 }
@@ -0,0 +1,132 @@
+package de.funkedigital.autotagging.utils;
+
+import de.funkedigital.autotagging.entities.xml.Url;
+import de.funkedigital.autotagging.entities.xml.UrlSet;
+import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.http.HttpStatus;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull based reader of sitemap {@link UrlSet} files.
+ * <p>
+ * Instead of unmarshalling the whole document with {@link JaxbUtils}, this reader walks the
+ * stream with StAX and returns one {@link Url} at a time, so the heap used while loading a
+ * sitemap does not depend on the number of &lt;url&gt; entries in the file.
+ * <p>
+ * Elements are matched on their local name, so the reader works with and without the
+ * sitemap namespace. The underlying {@link Reader} is closed with {@link #close()}.
+ *
+ * @author sraj
+ */
+public class UrlSetReader implements Iterator<Url>, Closeable {
+
+    private static final String URL = "url";
+
+    private static final String LOC = "loc";
+
+    private static final String LASTMOD = "lastmod";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final Reader stream;
+
+    private final XMLStreamReader reader;
+
+    // Url read ahead by hasNext(), returned on next()
+    private Url next;
+
+    public UrlSetReader(Reader stream) throws XMLStreamException {
+        this.stream = stream;
+        this.reader = FACTORY.createXMLStreamReader(stream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        if (this.next == null) {
+            this.next = readNext();
+        }
+        return this.next != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Url next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more url entries in sitemap");
+        }
+        Url url = this.next;
+        this.next = null;
+        return url;
+    }
+
+    /**
+     * Move the cursor to the next &lt;url&gt; element and map its children.
+     *
+     * @return next {@link Url} or null if the end of document is reached.
+     */
+    private Url readNext() {
+        try {
+            Url url = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (URL.equals(name)) {
+                        url = new Url();
+                    } else if (url != null && LOC.equals(name)) {
+                        url.setLoc(reader.getElementText().trim());
+                    } else if (url != null && LASTMOD.equals(name)) {
+                        url.setLastmod(reader.getElementText().trim());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && url != null
+                        && URL.equals(reader.getLocalName())) {
+                    return url;
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new AutoTaggingException("Error occurred while reading sitemap : "
+                    + ExceptionUtils.getRootCauseMessage(e), e, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            this.stream.close();
+        }
+    }
+
+    /**
+     * Sitemaps are fetched from remote hosts, so DTDs and external entities are not resolved.
+     */
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+}
@@ -99,4 +99,31 @@ public class Utils {
         }
         return nextExecutionTime.getTime();
     }
+
+    /**
+     * Return the first moment of month of the date.
+     *
+     * @param date date in month
+     * @return first day of month, 00:00:00.000
+     */
+    public static Date getStartOfMonth(@NotNull Date date) {
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTime(date);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+
+    /**
+     * Return the first moment of month after the month of date.
+     *
+     * @param date date in month
+     * @return first day of next month, 00:00:00.000
+     */
+    public static Date getStartOfNextMonth(@NotNull Date date) {
+        return getNextExecution(getStartOfMonth(date), Calendar.MONTH, 1);
+    }
 }
@@ -0,0 +1,56 @@
+package de.funkedigital.autotagging.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executors with a virtual thread per task, on JDK 21 and later.
+ * <p>
+ * The application is compiled for Java 8, so the virtual thread API is looked up by reflection. Callers check
+ * {@link #isAvailable()} first, there is no fallback to platform threads.
+ *
+ * @author sraj
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Check whether the runtime has virtual threads.
+     *
+     * @return true, on JDK 21 and later
+     */
+    public static boolean isAvailable() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create an executor which starts a new virtual thread for every task, threads are named prefix + number.
+     *
+     * @param prefix prefix of thread names
+     * @return {@link ExecutorService}
+     * @throws IllegalStateException if the runtime has no virtual threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method executor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) executor.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(String.format("Virtual threads are not available on Java %s",
+                    System.getProperty("java.version")), e);
+        }
+    }
+}
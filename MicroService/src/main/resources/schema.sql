@@ -71,15 +71,64 @@ CREATE TABLE IF NOT EXISTS `pending_articles` (
   `publication` VARCHAR unsigned NOT NULL,
   `url` VARCHAR unsigned NOT NULL,
   `execution_date` TIMESTAMP unsigned NOT NULL,
+  `claimed_by` VARCHAR,
+  `claimed_until` TIMESTAMP NULL,
   PRIMARY KEY (`id`),
   UNIQUE KEY (`url`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+-- Claim of pending articles, for tables created before the columns were added
+ALTER TABLE `pending_articles` ADD COLUMN IF NOT EXISTS `claimed_by` VARCHAR;
+ALTER TABLE `pending_articles` ADD COLUMN IF NOT EXISTS `claimed_until` TIMESTAMP NULL;
+
 CREATE TABLE IF NOT EXISTS `failed_articles` (
   `id` int unsigned NOT NULL AUTO_INCREMENT,
   `publication` VARCHAR unsigned NOT NULL,
   `url` VARCHAR unsigned NOT NULL,
   `execution_date` TIMESTAMP unsigned NOT NULL,
+  `attempts` int unsigned NOT NULL default 0,
+  `next_attempt_date` TIMESTAMP NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY (`url`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Retries of failed articles, for tables created before the columns were added
+ALTER TABLE `failed_articles` ADD COLUMN IF NOT EXISTS `attempts` int unsigned NOT NULL default 0;
+ALTER TABLE `failed_articles` ADD COLUMN IF NOT EXISTS `next_attempt_date` TIMESTAMP NULL;
+
+-- Failed articles which are not retried anymore, after failed.article.retry.max.attempts
+CREATE TABLE IF NOT EXISTS `dead_articles` (
+  `id` int unsigned NOT NULL AUTO_INCREMENT,
+  `publication` VARCHAR unsigned NOT NULL,
+  `url` VARCHAR unsigned NOT NULL,
+  `attempts` int unsigned NOT NULL default 0,
+  `execution_date` TIMESTAMP unsigned NOT NULL,
   PRIMARY KEY (`id`),
   UNIQUE KEY (`url`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8;
\ No newline at end of file
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+
+-- Executed and failed articles per month and publication, for the monthly quota
+CREATE TABLE IF NOT EXISTS `article_counters` (
+  `count_month` VARCHAR unsigned NOT NULL,
+  `publication` VARCHAR unsigned NOT NULL,
+  `executed` int unsigned NOT NULL default 0,
+  `failed` int unsigned NOT NULL default 0,
+  PRIMARY KEY (`count_month`, `publication`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Indexes of article tables, for lookups by publication and url and counts by execution date
+
+CREATE INDEX IF NOT EXISTS `idx_pending_articles_publication` ON `pending_articles` (`publication`, `id`);
+CREATE INDEX IF NOT EXISTS `idx_pending_articles_claimed_by` ON `pending_articles` (`claimed_by`);
+CREATE INDEX IF NOT EXISTS `idx_pending_articles_execution_date` ON `pending_articles` (`execution_date`);
+
+CREATE INDEX IF NOT EXISTS `idx_executed_articles_publication` ON `executed_articles` (`publication`, `id`);
+CREATE INDEX IF NOT EXISTS `idx_executed_articles_url` ON `executed_articles` (`url`);
+CREATE INDEX IF NOT EXISTS `idx_executed_articles_execution_date` ON `executed_articles` (`execution_date`);
+
+CREATE INDEX IF NOT EXISTS `idx_failed_articles_publication` ON `failed_articles` (`publication`, `id`);
+CREATE INDEX IF NOT EXISTS `idx_failed_articles_execution_date` ON `failed_articles` (`execution_date`);
+CREATE INDEX IF NOT EXISTS `idx_failed_articles_next_attempt_date` ON `failed_articles` (`publication`, `next_attempt_date`);
+
+CREATE INDEX IF NOT EXISTS `idx_dead_articles_publication` ON `dead_articles` (`publication`, `id`);
@@ -0,0 +1,59 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.enums.RunResultEnum;
+import de.funkedigital.autotagging.triggers.AdaptiveServiceTrigger;
+import org.junit.Test;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveServiceTriggerTest {
+
+    @Test
+    public void testBacklogShortensIntervalDownToFloor() {
+        AdaptiveServiceTrigger trigger = new AdaptiveServiceTrigger(1, 250, 60000, 2);
+        assertEquals(1000, trigger.getCurrentInterval());
+
+        trigger.completed(RunResultEnum.Backlog);
+        assertEquals(500, trigger.getCurrentInterval());
+        trigger.completed(RunResultEnum.Backlog);
+        trigger.completed(RunResultEnum.Backlog);
+        assertEquals(250, trigger.getCurrentInterval());
+
+        // Backlog drained, back to interval of schedule
+        trigger.completed(RunResultEnum.Processed);
+        assertEquals(1000, trigger.getCurrentInterval());
+    }
+
+    @Test
+    public void testEmptyAndFailedBackOffUpToCeiling() {
+        AdaptiveServiceTrigger trigger = new AdaptiveServiceTrigger(1, 250, 10000, 2);
+        trigger.completed(RunResultEnum.Empty);
+        assertEquals(2000, trigger.getCurrentInterval());
+        trigger.completed(RunResultEnum.Failed);
+        assertEquals(4000, trigger.getCurrentInterval());
+        for (int i = 0; i < 10; i++) {
+            trigger.completed(RunResultEnum.Failed);
+        }
+        assertEquals(10000, trigger.getCurrentInterval());
+        // Unknown result keeps the interval
+        trigger.completed(null);
+        assertEquals(10000, trigger.getCurrentInterval());
+
+        // Changed schedule starts again
+        trigger.setInterval(3);
+        assertEquals(3000, trigger.getCurrentInterval());
+    }
+
+    @Test
+    public void testNextRunIsTimedFromCompletion() {
+        AdaptiveServiceTrigger trigger = new AdaptiveServiceTrigger(1, 250, 60000, 2);
+        trigger.completed(RunResultEnum.Empty);
+        Date completion = new Date(100000);
+        SimpleTriggerContext context = new SimpleTriggerContext(new Date(90000), new Date(95000), completion);
+
+        assertEquals(102000, trigger.nextExecutionTime(context).getTime());
+    }
+}
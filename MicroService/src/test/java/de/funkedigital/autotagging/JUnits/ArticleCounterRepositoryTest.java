@@ -0,0 +1,89 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.repositories.ArticleCounterRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Statements of {@link ArticleCounterRepository} on H2 in MySQL mode, with the tables of schema.sql
+ */
+public class ArticleCounterRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ArticleCounterRepository articleCounterRepository;
+
+    @Before
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:article_counters;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        articleCounterRepository = new ArticleCounterRepository();
+        ReflectionTestUtils.setField(articleCounterRepository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testCounterIsCreatedFromArticleTables() {
+        executed("morgenpost", "/article1/");
+        executed("morgenpost", "/article2/");
+        failed("morgenpost", "/article3/");
+
+        // Last saved article is already in the tables and is not added twice
+        articleCounterRepository.increment(new Date(), "morgenpost", 1, 0);
+
+        assertEquals(Long.valueOf(3), articleCounterRepository.findByMonth(new Date()).get("morgenpost"));
+    }
+
+    @Test
+    public void testExistingCounterIsIncremented() {
+        executed("morgenpost", "/article1/");
+        articleCounterRepository.increment(new Date(), "morgenpost", 1, 0);
+        failed("morgenpost", "/article2/");
+        articleCounterRepository.increment(new Date(), "morgenpost", 0, 1);
+
+        assertEquals(Long.valueOf(2), articleCounterRepository.findByMonth(new Date()).get("morgenpost"));
+    }
+
+    @Test
+    public void testInitializeCreatesMissingCountersOnly() {
+        executed("morgenpost", "/article1/");
+        articleCounterRepository.increment(new Date(), "morgenpost", 1, 0);
+        executed("abendblatt", "/article2/");
+        failed("abendblatt", "/article3/");
+
+        // Counter of abendblatt is missing although the month has a counter already
+        assertTrue(articleCounterRepository.initialize(new Date()));
+        assertEquals(Long.valueOf(1), articleCounterRepository.findByMonth(new Date()).get("morgenpost"));
+        assertEquals(Long.valueOf(2), articleCounterRepository.findByMonth(new Date()).get("abendblatt"));
+
+        assertFalse(articleCounterRepository.initialize(new Date()));
+    }
+
+    private void executed(String publication, String url) {
+        jdbcTemplate.update("INSERT INTO executed_articles (publication, asset_id, url, execution_date) " +
+                "VALUES (?, ?, ?, NOW())", publication, url, url);
+    }
+
+    private void failed(String publication, String url) {
+        jdbcTemplate.update("INSERT INTO failed_articles (publication, url, execution_date) " +
+                "VALUES (?, ?, NOW())", publication, url);
+    }
+}
@@ -0,0 +1,153 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.cache.ArticleUrlFilter;
+import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
+import de.funkedigital.autotagging.repositories.ArticleTransitionRepository;
+import de.funkedigital.autotagging.repositories.DeadArticleRepository;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.services.ArticleEligibilityService;
+import org.hamcrest.Matcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ArticleEligibilityServiceTest {
+
+    private static final String PUBLICATION = "morgenpost";
+
+    @Mock
+    private PendingArticleRepository pendingArticleRepository;
+
+    @Mock
+    private ExecutedArticleRepository executedArticleRepository;
+
+    @Mock
+    private FailedArticleRepository failedArticleRepository;
+
+    @Mock
+    private DeadArticleRepository deadArticleRepository;
+
+    @Mock
+    private ArticleTransitionRepository articleTransitionRepository;
+
+    @Mock
+    private ArticleUrlFilter articleUrlFilter;
+
+    @InjectMocks
+    private ArticleEligibilityService articleEligibilityService = new ArticleEligibilityService();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(articleUrlFilter.isBuilt(PUBLICATION)).thenReturn(true);
+        when(articleUrlFilter.mightContain(eq(PUBLICATION), anyString())).thenReturn(true);
+        when(pendingArticleRepository.findUrlsByPublicationAndUrlIn(eq(PUBLICATION), anyCollectionOf(String.class)))
+                .thenReturn(Collections.emptyList());
+        when(executedArticleRepository.findUrlsByPublicationAndUrlIn(eq(PUBLICATION), anyCollectionOf(String.class)))
+                .thenReturn(Collections.emptyList());
+        when(failedArticleRepository.findUrlsByPublicationAndUrlIn(eq(PUBLICATION), anyCollectionOf(String.class)))
+                .thenReturn(Collections.emptyList());
+        when(deadArticleRepository.findUrlsByPublicationAndUrlIn(eq(PUBLICATION), anyCollectionOf(String.class)))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void testUrlsNotSeenAreNotChecked() {
+        when(articleUrlFilter.mightContain(eq(PUBLICATION), anyString())).thenReturn(false);
+
+        Set<String> eligible = articleEligibilityService.filterEligible(PUBLICATION, urls("/article1/", "/article2/"));
+
+        assertEquals(urls("/article1/", "/article2/"), eligible);
+        verify(pendingArticleRepository, never()).findUrlsByPublicationAndUrlIn(anyString(),
+                anyCollectionOf(String.class));
+        verify(deadArticleRepository, never()).findUrlsByPublicationAndUrlIn(anyString(),
+                anyCollectionOf(String.class));
+    }
+
+    @Test
+    public void testSeenUrlsAreExcluded() {
+        when(executedArticleRepository.findUrlsByPublicationAndUrlIn(eq(PUBLICATION), anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList("/article1/"));
+        when(deadArticleRepository.findUrlsByPublicationAndUrlIn(eq(PUBLICATION), anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList("/dead-article/"));
+
+        Set<String> eligible = articleEligibilityService.filterEligible(PUBLICATION,
+                urls("/article1/", "/dead-article/", "/article2/"));
+
+        assertEquals(urls("/article2/"), eligible);
+        // Two out of three possible hits were seen, the third was a false positive
+        verify(articleUrlFilter).confirmHits(2);
+    }
+
+    @Test
+    public void testHitsAreNotConfirmedWithoutFilter() {
+        when(articleUrlFilter.isBuilt(PUBLICATION)).thenReturn(false);
+        when(deadArticleRepository.findUrlsByPublicationAndUrlIn(eq(PUBLICATION), anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList("/dead-article/"));
+
+        Set<String> eligible = articleEligibilityService.filterEligible(PUBLICATION, urls("/dead-article/"));
+
+        assertEquals(Collections.emptySet(), eligible);
+        verify(articleUrlFilter, never()).confirmHits(1);
+    }
+
+    @Test
+    public void testSavePending() {
+        when(articleTransitionRepository.insertPending(anyListOf(PendingArticleEntity.class)))
+                .thenReturn(new int[]{1, 0});
+
+        // Second url was saved by another instance meanwhile and is skipped by the insert
+        assertEquals(1, articleEligibilityService.savePending(PUBLICATION, urls("/article1/", "/article2/")));
+        verify(articleUrlFilter).put(PUBLICATION, "/article1/");
+        verify(articleUrlFilter).put(PUBLICATION, "/article2/");
+    }
+
+    @Test
+    public void testDuplicateFailsBatchAndIsSkipped() {
+        doThrow(new DuplicateKeyException("Duplicate url")).when(articleTransitionRepository)
+                .insertPending(anyListOf(PendingArticleEntity.class));
+        doReturn(new int[]{1}).when(articleTransitionRepository).insertPending(argThat(hasUrl("/article1/")));
+
+        assertEquals(1, articleEligibilityService.savePending(PUBLICATION, urls("/article1/", "/article2/")));
+        verify(articleUrlFilter).put(PUBLICATION, "/article2/");
+    }
+
+    private static Set<String> urls(String... urls) {
+        return new LinkedHashSet<>(Arrays.asList(urls));
+    }
+
+    private static Matcher<List<PendingArticleEntity>> hasUrl(String url) {
+        return new ArgumentMatcher<List<PendingArticleEntity>>() {
+            @Override
+            public boolean matches(Object argument) {
+                Collection<?> articles = (Collection<?>) argument;
+                return articles.size() == 1 && url.equals(((PendingArticleEntity) articles.iterator().next()).getUrl());
+            }
+        };
+    }
+}
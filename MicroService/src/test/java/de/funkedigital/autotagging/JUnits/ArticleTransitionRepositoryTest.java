@@ -0,0 +1,193 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.entities.repo.ArticleTransition;
+import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
+import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
+import de.funkedigital.autotagging.repositories.ArticleCounterRepository;
+import de.funkedigital.autotagging.repositories.ArticleTransitionRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Statements of {@link ArticleTransitionRepository} on H2 in MySQL mode, with the tables of schema.sql
+ */
+public class ArticleTransitionRepositoryTest {
+
+    private static final String PUBLICATION = "morgenpost";
+
+    @Mock
+    private ArticleCounterRepository articleCounterRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ArticleTransitionRepository articleTransitionRepository;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:article_transitions;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        articleTransitionRepository = new ArticleTransitionRepository();
+        ReflectionTestUtils.setField(articleTransitionRepository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(articleTransitionRepository, "articleCounterRepository",
+                articleCounterRepository);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testInsertPendingSkipsSeenUrls() {
+        jdbcTemplate.update("INSERT INTO pending_articles (publication, url, execution_date) " +
+                "VALUES (?, '/pending/', NOW())", PUBLICATION);
+        jdbcTemplate.update("INSERT INTO executed_articles (publication, asset_id, url, execution_date) " +
+                "VALUES (?, 'asset', '/executed/', NOW())", PUBLICATION);
+        jdbcTemplate.update("INSERT INTO failed_articles (publication, url, execution_date) " +
+                "VALUES (?, '/failed/', NOW())", PUBLICATION);
+        jdbcTemplate.update("INSERT INTO dead_articles (publication, url, execution_date) " +
+                "VALUES (?, '/dead/', NOW())", PUBLICATION);
+
+        int[] inserted = articleTransitionRepository.insertPending(Arrays.asList(pending("/pending/"),
+                pending("/executed/"), pending("/failed/"), pending("/dead/"), pending("/new/")));
+
+        assertEquals(1, ArticleTransitionRepository.inserted(inserted));
+        assertEquals(Integer.valueOf(2), count("pending_articles"));
+        assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pending_articles WHERE url = '/new/'", Integer.class));
+    }
+
+    @Test
+    public void testInsertPendingSkipsDuplicateOfBatch() {
+        int[] inserted = articleTransitionRepository.insertPending(Arrays.asList(pending("/new/"), pending("/new/")));
+
+        assertEquals(1, ArticleTransitionRepository.inserted(inserted));
+        assertEquals(Integer.valueOf(1), count("pending_articles"));
+    }
+
+    @Test
+    public void testInsertPendingOfEmptyList() {
+        assertEquals(0, articleTransitionRepository.insertPending(Collections.emptyList()).length);
+    }
+
+    @Test
+    public void testInsertExecutedSkipsExistingAssets() {
+        articleTransitionRepository.insertExecuted(Collections.singletonList(executed("asset1", "/article1/")));
+
+        int[] inserted = articleTransitionRepository.insertExecuted(Arrays.asList(executed("asset1", "/article1/"),
+                executed("asset2", "/article2/")));
+
+        assertEquals(1, ArticleTransitionRepository.inserted(inserted));
+        assertEquals(Integer.valueOf(2), count("executed_articles"));
+    }
+
+    @Test
+    public void testInsertFailedSkipsExistingUrls() {
+        articleTransitionRepository.insertFailed(Collections.singletonList(failed("/article1/")));
+
+        int[] inserted = articleTransitionRepository.insertFailed(Arrays.asList(failed("/article1/"),
+                failed("/article2/"), failed("/article2/")));
+
+        assertEquals(1, ArticleTransitionRepository.inserted(inserted));
+        assertEquals(Integer.valueOf(2), count("failed_articles"));
+    }
+
+    @Test
+    public void testDeletePendingIgnoresDeletedArticles() {
+        PendingArticleEntity article1 = savedPending("/article1/");
+        PendingArticleEntity article2 = savedPending("/article2/");
+        savedPending("/article3/");
+        jdbcTemplate.update("DELETE FROM pending_articles WHERE id = ?", article2.getId());
+
+        articleTransitionRepository.deletePending(Arrays.asList(article1, article2));
+
+        assertEquals(Integer.valueOf(1), count("pending_articles"));
+        assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pending_articles WHERE url = '/article3/'", Integer.class));
+    }
+
+    @Test
+    public void testTransitionCountsInsertedArticles() {
+        PendingArticleEntity article1 = savedPending("/article1/");
+        PendingArticleEntity article2 = savedPending("/article2/");
+        PendingArticleEntity article3 = savedPending("/article3/");
+        articleTransitionRepository.insertExecuted(Collections.singletonList(executed("asset1", "/article1/")));
+
+        // Article1 was executed already, by another instance, its pending article is deleted but not counted
+        int inserted = articleTransitionRepository.transition(Arrays.asList(
+                ArticleTransition.executed(article1, PUBLICATION, "asset1", "/article1/"),
+                ArticleTransition.executed(article2, PUBLICATION, "asset2", "/article2/"),
+                ArticleTransition.failed(article3, PUBLICATION, "/article3/")));
+
+        assertEquals(2, inserted);
+        assertEquals(Integer.valueOf(0), count("pending_articles"));
+        assertEquals(Integer.valueOf(2), count("executed_articles"));
+        assertEquals(Integer.valueOf(1), count("failed_articles"));
+        verify(articleCounterRepository).increment(any(Date.class), eq(PUBLICATION), eq(1), eq(1));
+    }
+
+    @Test
+    public void testTransitionOfDuplicatesIsNotCounted() {
+        articleTransitionRepository.insertFailed(Collections.singletonList(failed("/article1/")));
+
+        assertEquals(0, articleTransitionRepository.transition(Collections.singletonList(
+                ArticleTransition.failed(null, PUBLICATION, "/article1/"))));
+        verify(articleCounterRepository, never()).increment(any(Date.class), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testInsertedCountsSuccessWithoutInfo() {
+        // Drivers may report a row of batch as inserted without count, failed rows are not counted
+        assertEquals(2, ArticleTransitionRepository.inserted(new int[]{Statement.SUCCESS_NO_INFO, 0, 1,
+                Statement.EXECUTE_FAILED}));
+    }
+
+    private PendingArticleEntity savedPending(String url) {
+        articleTransitionRepository.insertPending(Collections.singletonList(pending(url)));
+        PendingArticleEntity pending = pending(url);
+        ReflectionTestUtils.setField(pending, "id", jdbcTemplate.queryForObject(
+                "SELECT id FROM pending_articles WHERE url = ?", Long.class, url));
+        return pending;
+    }
+
+    private Integer count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static PendingArticleEntity pending(String url) {
+        return new PendingArticleEntity(PUBLICATION, url);
+    }
+
+    private static ExecutedArticleEntity executed(String assetId, String url) {
+        return new ExecutedArticleEntity(PUBLICATION, assetId, url);
+    }
+
+    private static FailedArticleEntity failed(String url) {
+        return new FailedArticleEntity(PUBLICATION, url);
+    }
+}
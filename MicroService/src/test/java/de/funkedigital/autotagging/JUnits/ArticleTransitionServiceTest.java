@@ -0,0 +1,145 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.cache.ArticleUrlFilter;
+import de.funkedigital.autotagging.entities.repo.ArticleTransition;
+import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
+import de.funkedigital.autotagging.interceptors.FailSafeInterceptor;
+import de.funkedigital.autotagging.repositories.ArticleTransitionRepository;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.services.ArticleTransitionService;
+import de.funkedigital.autotagging.services.QuotaService;
+import org.hamcrest.Matcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Matchers;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ArticleTransitionServiceTest {
+
+    private static final String PUBLICATION = "morgenpost";
+
+    private static final String EXECUTED_FILE = PUBLICATION + "/" + ExecutedArticleRepository.SAVE_FAIL_SAFE_FILE;
+
+    private static final String FAILED_FILE = PUBLICATION + "/" + FailedArticleRepository.SAVE_FAIL_SAFE_FILE;
+
+    private static final String PENDING_FILE = PUBLICATION + "/" + PendingArticleRepository.DELETE_FAIL_SAFE_FILE;
+
+    @Mock
+    private ArticleTransitionRepository articleTransitionRepository;
+
+    @Mock
+    private FailSafeInterceptor failSafeInterceptor;
+
+    @Mock
+    private ArticleUrlFilter articleUrlFilter;
+
+    @Mock
+    private QuotaService quotaService;
+
+    @InjectMocks
+    private ArticleTransitionService articleTransitionService = new ArticleTransitionService();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(articleTransitionService, "flushSize", 100);
+    }
+
+    @Test
+    public void testQueuedTransitionsAreWrittenInOneBatch() {
+        doReturn(2).when(articleTransitionRepository).transition(anyListOf(ArticleTransition.class));
+
+        articleTransitionService.queue(executed("/article1/"));
+        articleTransitionService.queue(failed("/article2/"));
+        articleTransitionService.flush();
+
+        verify(articleTransitionRepository).transition(argThat(hasSize(2)));
+        verify(quotaService).recorded(2);
+        verify(articleUrlFilter).put(PUBLICATION, "/article1/");
+        verify(articleUrlFilter).put(PUBLICATION, "/article2/");
+        verify(failSafeInterceptor, never()).write(Matchers.anyString(), Matchers.<String>anyVararg());
+    }
+
+    @Test
+    public void testFailedBatchIsWrittenOneByOne() {
+        ArticleTransition article1 = executed("/article1/");
+        ArticleTransition article2 = failed("/article2/");
+        // Batch fails with a bad record, article1 is written alone and the bad article2 goes to fail-safe files
+        doThrow(new DataIntegrityViolationException("Bad record")).when(articleTransitionRepository)
+                .transition(anyListOf(ArticleTransition.class));
+        doReturn(1).when(articleTransitionRepository).transition(argThat(isOnly(article1)));
+
+        articleTransitionService.queue(article1);
+        articleTransitionService.queue(article2);
+        articleTransitionService.flush();
+
+        verify(articleTransitionRepository).transition(argThat(isOnly(article2)));
+        verify(quotaService).recorded(1);
+        verify(failSafeInterceptor, never()).write(eq(EXECUTED_FILE), Matchers.<String>anyVararg());
+        verify(failSafeInterceptor).write(eq(FAILED_FILE), Matchers.<String>anyVararg());
+        verify(failSafeInterceptor).write(eq(PENDING_FILE), Matchers.<String>anyVararg());
+    }
+
+    @Test
+    public void testBatchIsWrittenToFailSafeFilesWhenDatabaseIsDown() {
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(articleTransitionRepository)
+                .transition(anyListOf(ArticleTransition.class));
+
+        articleTransitionService.queue(executed("/article1/"));
+        articleTransitionService.queue(executed("/article2/"));
+        articleTransitionService.flush();
+
+        // No need to try one-by-one
+        verify(articleTransitionRepository, times(1)).transition(anyListOf(ArticleTransition.class));
+        verify(failSafeInterceptor, times(2)).write(eq(EXECUTED_FILE), Matchers.<String>anyVararg());
+        verify(failSafeInterceptor, times(2)).write(eq(PENDING_FILE), Matchers.<String>anyVararg());
+        verify(quotaService, never()).recorded(Matchers.anyInt());
+    }
+
+    private static ArticleTransition executed(String url) {
+        return ArticleTransition.executed(new PendingArticleEntity(PUBLICATION, url), PUBLICATION, "asset" + url,
+                url);
+    }
+
+    private static ArticleTransition failed(String url) {
+        return ArticleTransition.failed(new PendingArticleEntity(PUBLICATION, url), PUBLICATION, url);
+    }
+
+    private static Matcher<List<ArticleTransition>> hasSize(int size) {
+        return new ArgumentMatcher<List<ArticleTransition>>() {
+            @Override
+            public boolean matches(Object argument) {
+                return ((List<?>) argument).size() == size;
+            }
+        };
+    }
+
+    private static Matcher<List<ArticleTransition>> isOnly(ArticleTransition transition) {
+        return new ArgumentMatcher<List<ArticleTransition>>() {
+            @Override
+            public boolean matches(Object argument) {
+                List<?> transitions = (List<?>) argument;
+                return transitions.size() == 1 && transitions.get(0) == transition;
+            }
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.cache.ArticleUrlFilter;
+import de.funkedigital.autotagging.entities.repo.PublicationEntity;
+import de.funkedigital.autotagging.repositories.DeadArticleRepository;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.repositories.PublicationRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+public class ArticleUrlFilterTest {
+
+    private static final String PUBLICATION = "morgenpost";
+
+    @Mock
+    private PublicationRepository publicationRepository;
+
+    @Mock
+    private PendingArticleRepository pendingArticleRepository;
+
+    @Mock
+    private ExecutedArticleRepository executedArticleRepository;
+
+    @Mock
+    private FailedArticleRepository failedArticleRepository;
+
+    @Mock
+    private DeadArticleRepository deadArticleRepository;
+
+    @InjectMocks
+    private ArticleUrlFilter articleUrlFilter = new ArticleUrlFilter();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(articleUrlFilter, "enabled", true);
+        ReflectionTestUtils.setField(articleUrlFilter, "expectedInsertions", 1000);
+        ReflectionTestUtils.setField(articleUrlFilter, "fpp", 0.001);
+        ReflectionTestUtils.setField(articleUrlFilter, "pageSize", 10);
+
+        PublicationEntity publication = new PublicationEntity();
+        publication.setPublication(PUBLICATION);
+        when(publicationRepository.findAll()).thenReturn(Collections.singletonList(publication));
+        when(pendingArticleRepository.findIdAndUrlByPublicationAfterId(anyString(), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        when(executedArticleRepository.findIdAndUrlByPublicationAfterId(anyString(), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        when(failedArticleRepository.findIdAndUrlByPublicationAfterId(anyString(), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        when(deadArticleRepository.findIdAndUrlByPublicationAfterId(anyString(), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void testEveryUrlMightBeSeenUntilBuilt() {
+        assertFalse(articleUrlFilter.isBuilt(PUBLICATION));
+        assertTrue(articleUrlFilter.mightContain(PUBLICATION, "/article1/"));
+
+        // Not added to a filter which is not built
+        articleUrlFilter.put(PUBLICATION, "/article1/");
+        articleUrlFilter.rebuild();
+        assertFalse(articleUrlFilter.mightContain(PUBLICATION, "/article1/"));
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        when(executedArticleRepository.findIdAndUrlByPublicationAfterId(eq(PUBLICATION), eq(0L), any(Pageable.class)))
+                .thenReturn(rows(1L, "/article1/"));
+        articleUrlFilter.rebuild();
+
+        assertTrue(articleUrlFilter.isBuilt(PUBLICATION));
+        assertTrue(articleUrlFilter.mightContain(PUBLICATION, "/article1/"));
+        assertFalse(articleUrlFilter.mightContain(PUBLICATION, "/article2/"));
+
+        // Saved url is a hit right away
+        articleUrlFilter.put(PUBLICATION, "/article2/");
+        assertTrue(articleUrlFilter.mightContain(PUBLICATION, "/article2/"));
+    }
+
+    @Test
+    public void testDeadArticlesAreLoaded() {
+        when(deadArticleRepository.findIdAndUrlByPublicationAfterId(eq(PUBLICATION), eq(0L), any(Pageable.class)))
+                .thenReturn(rows(7L, "/dead-article/"));
+        articleUrlFilter.rebuild();
+
+        assertTrue(articleUrlFilter.mightContain(PUBLICATION, "/dead-article/"));
+    }
+
+    @Test
+    public void testUrlSavedWhileRebuildingIsKept() {
+        articleUrlFilter.rebuild();
+        when(pendingArticleRepository.findIdAndUrlByPublicationAfterId(eq(PUBLICATION), eq(0L), any(Pageable.class)))
+                .thenAnswer(i -> {
+                    // Url saved after the pending articles were read, it is not in the pages of rebuild
+                    articleUrlFilter.put(PUBLICATION, "/article3/");
+                    return rows(1L, "/article1/");
+                });
+        articleUrlFilter.rebuild();
+
+        assertTrue(articleUrlFilter.mightContain(PUBLICATION, "/article1/"));
+        assertTrue(articleUrlFilter.mightContain(PUBLICATION, "/article3/"));
+    }
+
+    @Test
+    public void testDisabled() {
+        ReflectionTestUtils.setField(articleUrlFilter, "enabled", false);
+        articleUrlFilter.rebuild();
+
+        assertFalse(articleUrlFilter.isBuilt(PUBLICATION));
+        assertTrue(articleUrlFilter.mightContain(PUBLICATION, "/article1/"));
+    }
+
+    private static List<Object[]> rows(Long id, String url) {
+        return Collections.singletonList(new Object[]{id, url});
+    }
+}
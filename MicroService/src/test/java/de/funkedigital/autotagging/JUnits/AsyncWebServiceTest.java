@@ -0,0 +1,151 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.controllers.WebController;
+import de.funkedigital.autotagging.services.AsyncWebService;
+import de.funkedigital.autotagging.services.BulkWebService;
+import de.funkedigital.autotagging.services.WebService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link AsyncWebService} behind the async endpoint of {@link WebController}
+ */
+public class AsyncWebServiceTest {
+
+    private static final String PUBLICATION = "morgenpost";
+
+    @Mock
+    private WebService webService;
+
+    private AsyncWebService asyncWebService;
+
+    private MockMvc mockMvc;
+
+    // Blocks the calls of WebService until released
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        asyncWebService = new AsyncWebService();
+        ReflectionTestUtils.setField(asyncWebService, "threads", 1);
+        ReflectionTestUtils.setField(asyncWebService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(asyncWebService, "timeout", 30000L);
+        ReflectionTestUtils.setField(asyncWebService, "webService", webService);
+        asyncWebService.init();
+
+        WebController webController = new WebController(webService);
+        ReflectionTestUtils.setField(webController, "asyncService", asyncWebService);
+        ReflectionTestUtils.setField(webController, "bulkService", new BulkWebService());
+        mockMvc = MockMvcBuilders.standaloneSetup(webController).build();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        asyncWebService.destroy();
+    }
+
+    @Test
+    public void testKeywordsAreReturned() throws Exception {
+        when(webService.returnKeywords(PUBLICATION, "/article1/")).thenReturn("Berlin,Hamburg");
+
+        MvcResult result = mockMvc.perform(keywordsRequest("/article1/"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keywords").value("Berlin,Hamburg"));
+    }
+
+    @Test
+    public void testRequestIsRejectedWhenPoolIsFull() throws Exception {
+        when(webService.returnKeywords(eq(PUBLICATION), anyString())).thenAnswer(i -> {
+            release.await();
+            return "Berlin";
+        });
+
+        // One request runs, one waits in the queue
+        mockMvc.perform(keywordsRequest("/article1/")).andExpect(request().asyncStarted());
+        verify(webService, timeout(5000)).returnKeywords(PUBLICATION, "/article1/");
+        mockMvc.perform(keywordsRequest("/article2/")).andExpect(request().asyncStarted());
+
+        mockMvc.perform(keywordsRequest("/article3/"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void testRunningRequestIsNotInterruptedOnDeadline() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch completed = new CountDownLatch(1);
+        when(webService.returnKeywords(PUBLICATION, "/article1/")).thenAnswer(i -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            completed.countDown();
+            return "Berlin";
+        });
+
+        MvcResult result = mockMvc.perform(keywordsRequest("/article1/"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        verify(webService, timeout(5000)).returnKeywords(PUBLICATION, "/article1/");
+        expire(result);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isGatewayTimeout());
+
+        // The article is still processed and saved
+        release.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+    }
+
+    private static RequestBuilder keywordsRequest(String url) {
+        return post("/auto-tagging/async/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"publication\": \"%s\", \"articleUrl\": \"%s\"}", PUBLICATION, url));
+    }
+
+    /**
+     * Deadline of request passed, as the servlet container does
+     */
+    private static void expire(MvcResult result) throws Exception {
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+    }
+}
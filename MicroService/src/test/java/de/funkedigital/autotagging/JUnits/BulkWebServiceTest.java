@@ -0,0 +1,113 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.controllers.WebController;
+import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import de.funkedigital.autotagging.services.AsyncWebService;
+import de.funkedigital.autotagging.services.BulkWebService;
+import de.funkedigital.autotagging.services.WebService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link BulkWebService} behind the bulk endpoint of {@link WebController}
+ */
+public class BulkWebServiceTest {
+
+    private static final String PUBLICATION = "morgenpost";
+
+    @Mock
+    private WebService webService;
+
+    private BulkWebService bulkWebService;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        bulkWebService = new BulkWebService();
+        ReflectionTestUtils.setField(bulkWebService, "threads", 2);
+        ReflectionTestUtils.setField(bulkWebService, "queueCapacity", 2);
+        ReflectionTestUtils.setField(bulkWebService, "concurrency", 2);
+        ReflectionTestUtils.setField(bulkWebService, "maxUrls", 10);
+        ReflectionTestUtils.setField(bulkWebService, "timeout", 30000L);
+        ReflectionTestUtils.setField(bulkWebService, "webService", webService);
+        bulkWebService.init();
+
+        WebController webController = new WebController(webService);
+        ReflectionTestUtils.setField(webController, "asyncService", new AsyncWebService());
+        ReflectionTestUtils.setField(webController, "bulkService", bulkWebService);
+        mockMvc = MockMvcBuilders.standaloneSetup(webController).build();
+    }
+
+    @After
+    public void tearDown() {
+        bulkWebService.destroy();
+    }
+
+    @Test
+    public void testOneLinePerUrlIsStreamed() throws Exception {
+        when(webService.returnKeywords(eq(PUBLICATION), anyString()))
+                .thenAnswer(i -> "keywords of " + i.getArguments()[1]);
+        when(webService.returnKeywords(PUBLICATION, "/article3/"))
+                .thenThrow(new AutoTaggingException("Article not found", HttpStatus.NOT_FOUND));
+
+        MvcResult result = mockMvc.perform(bulkRequest("/article1/", "/article2/", "/article3/"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        assertTrue(result.getResponse().getContentType().startsWith("application/x-ndjson"));
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        Set<String> urls = new HashSet<>();
+        for (String line : lines) {
+            // Every line is one complete json, lines are in order of completion
+            assertTrue(line, line.startsWith("{") && line.endsWith("}"));
+            urls.add(line.replaceAll(".*\"details\":\"([^\"]*)\".*", "$1"));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("/article1/", "/article2/", "/article3/")), urls);
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content, content.contains("keywords of /article1/"));
+        assertTrue(content, content.contains("\"status\":\"NOT_FOUND\""));
+    }
+
+    @Test
+    public void testTooManyUrlsAreRejected() throws Exception {
+        String[] urls = new String[11];
+        Arrays.fill(urls, "/article1/");
+
+        mockMvc.perform(bulkRequest(urls))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    private static RequestBuilder bulkRequest(String... urls) {
+        return post("/auto-tagging/bulk/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"publication\": \"%s\", \"articleUrls\": [\"%s\"]}", PUBLICATION,
+                        String.join("\", \"", urls)));
+    }
+}
@@ -0,0 +1,139 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.cache.SemanticResultCache;
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreaker;
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.enums.CircuitStateEnum;
+import de.funkedigital.autotagging.enums.UpstreamEnum;
+import de.funkedigital.autotagging.escenic.exceptions.EscenicServiceException;
+import de.funkedigital.autotagging.exceptions.CircuitOpenException;
+import de.funkedigital.autotagging.semantic.entities.web.AssetRequest;
+import de.funkedigital.autotagging.semantic.entities.web.AssetResponse;
+import de.funkedigital.autotagging.semantic.exceptions.RestClientException;
+import de.funkedigital.autotagging.semantic.rest.RestClient;
+import de.funkedigital.autotagging.semantic.services.UnicornService;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testCircuitOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(UpstreamEnum.Semantic, 3, 60000, 1);
+        failures(breaker, 2);
+        // Success resets the consecutive failures
+        breaker.acquire();
+        breaker.onSuccess();
+        failures(breaker, 2);
+        assertEquals(CircuitStateEnum.Closed, breaker.getState());
+
+        failures(breaker, 1);
+        assertEquals(CircuitStateEnum.Open, breaker.getState());
+        assertTrue(breaker.isOpen());
+        try {
+            breaker.acquire();
+            fail("Call is permitted while circuit is open");
+        } catch (CircuitOpenException e) {
+            assertEquals(UpstreamEnum.Semantic, e.getUpstream());
+        }
+        assertEquals(1, breaker.getRejected());
+    }
+
+    @Test
+    public void testHalfOpenProbeClosesOrOpensCircuit() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(UpstreamEnum.Escenic, 1, 50, 1);
+        failures(breaker, 1);
+        Thread.sleep(60);
+        assertFalse(breaker.isOpen());
+
+        // One probe, the second call is rejected until the probe completes
+        breaker.acquire();
+        assertEquals(CircuitStateEnum.HalfOpen, breaker.getState());
+        try {
+            breaker.acquire();
+            fail("Second probe is permitted");
+        } catch (CircuitOpenException e) {
+            // expected
+        }
+        breaker.onFailure();
+        assertEquals(CircuitStateEnum.Open, breaker.getState());
+        assertEquals(2, breaker.getOpened());
+
+        Thread.sleep(60);
+        breaker.acquire();
+        breaker.onSuccess();
+        assertEquals(CircuitStateEnum.Closed, breaker.getState());
+    }
+
+    @Test
+    public void testOnlyServerErrorsAreFailures() {
+        assertTrue(CircuitBreakers.isFailure(new RestClientException("down", HttpStatus.SERVICE_UNAVAILABLE)));
+        assertFalse(CircuitBreakers.isFailure(new RestClientException("not found", HttpStatus.NOT_FOUND)));
+        assertFalse(CircuitBreakers.isFailure(new EscenicServiceException("no app:control", HttpStatus.NOT_ACCEPTABLE)));
+        assertFalse(CircuitBreakers.isFailure(new IllegalStateException("bug")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCacheHitDoesNotReachCircuit() throws InterruptedException {
+        CircuitBreakers circuitBreakers = new CircuitBreakers();
+        ReflectionTestUtils.setField(circuitBreakers, "enabled", true);
+        ReflectionTestUtils.setField(circuitBreakers, "failureThreshold", 2);
+        ReflectionTestUtils.setField(circuitBreakers, "openMillis", 50L);
+        ReflectionTestUtils.setField(circuitBreakers, "halfOpenProbes", 1);
+        circuitBreakers.init();
+        CircuitBreaker breaker = circuitBreakers.get(UpstreamEnum.Unicorn);
+
+        RestClient<AssetRequest, AssetResponse> restClient = Mockito.mock(RestClient.class);
+        when(restClient.postRequest(anyString(), anyString(), anyString(), any(AssetRequest.class),
+                eq(AssetResponse.class))).thenThrow(new RestClientException("down", HttpStatus.SERVICE_UNAVAILABLE));
+        SemanticResultCache semanticResultCache = Mockito.mock(SemanticResultCache.class);
+        when(semanticResultCache.getAssetId("/cached/")).thenReturn("10");
+        UnicornService unicornService = new UnicornService(restClient);
+        ReflectionTestUtils.setField(unicornService, "semanticResultCache", semanticResultCache);
+        ReflectionTestUtils.setField(unicornService, "circuitBreakers", circuitBreakers);
+        ReflectionTestUtils.setField(unicornService, "url", "http://unicorn/");
+
+        analyzeArticle(unicornService, "/down/");
+        // Cache hit does not reset the consecutive failures
+        assertEquals("10", unicornService.analyzeArticle("/cached/").getAssetId());
+        assertEquals(1, breaker.getFailures());
+        analyzeArticle(unicornService, "/down/");
+        assertEquals(CircuitStateEnum.Open, breaker.getState());
+
+        // Cache hit is served while open
+        assertEquals("10", unicornService.analyzeArticle("/cached/").getAssetId());
+        Thread.sleep(60);
+        // Probe is in flight, cache hit does not close the circuit
+        breaker.acquire();
+        assertEquals("10", unicornService.analyzeArticle("/cached/").getAssetId());
+        assertEquals(CircuitStateEnum.HalfOpen, breaker.getState());
+    }
+
+    private void analyzeArticle(UnicornService unicornService, String url) {
+        try {
+            unicornService.analyzeArticle(url);
+            fail("Unicorn is down");
+        } catch (RestClientException e) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        }
+    }
+
+    private void failures(CircuitBreaker breaker, int count) {
+        for (int i = 0; i < count; i++) {
+            breaker.acquire();
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.utils.EscenicEntryTransformer;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EscenicEntryTransformerTest {
+
+    private static final String ENTRY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<entry xmlns=\"http://www.w3.org/2005/Atom\" xmlns:app=\"http://www.w3.org/2007/app\" " +
+            "xmlns:vdf=\"http://www.vizrt.com/types\">" +
+            "<app:control><app:draft>no</app:draft></app:control>" +
+            "<content><vdf:payload>" +
+            "<vdf:field name=\"body\"><vdf:value>&lt;p&gt;Text &amp; more&lt;/p&gt;</vdf:value></vdf:field>" +
+            "%s" +
+            "</vdf:payload></content></entry>";
+
+    @Test
+    public void testReplaceValue() {
+        String entry = String.format(ENTRY, "<vdf:field name=\"auto_Keywords\"><vdf:value>old<b>x</b></vdf:value></vdf:field>");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        EscenicEntryTransformer.Result result = transform(entry, out, "Berlin,Hamburg");
+
+        String transformed = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(result.isKeywordsFound());
+        assertTrue(result.isControlFound());
+        assertTrue(transformed, transformed.contains(
+                "<vdf:field name=\"auto_Keywords\"><vdf:value>Berlin,Hamburg</vdf:value></vdf:field>"));
+        assertTrue(transformed, transformed.contains("<app:control keep-last-modified=\"true\"><app:draft>no</app:draft>"));
+        assertTrue(transformed, transformed.contains("<vdf:value>&lt;p&gt;Text &amp; more&lt;/p&gt;</vdf:value>"));
+        assertFalse(transformed, transformed.contains("old"));
+    }
+
+    @Test
+    public void testAddValue() {
+        String entry = String.format(ENTRY, "<vdf:field name=\"auto_Keywords\"></vdf:field>");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        transform(entry, out, "Berlin");
+
+        String transformed = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(transformed, transformed.contains(
+                "<vdf:field name=\"auto_Keywords\"><vdf:value>Berlin</vdf:value></vdf:field>"));
+    }
+
+    @Test
+    public void testNoKeywordsField() {
+        String entry = String.format(ENTRY, "");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        EscenicEntryTransformer.Result result = transform(entry, out, "Berlin");
+
+        assertFalse(result.isKeywordsFound());
+        assertTrue(result.isControlFound());
+        assertEquals(-1, new String(out.toByteArray(), StandardCharsets.UTF_8).indexOf("Berlin"));
+    }
+
+    private static EscenicEntryTransformer.Result transform(String entry, ByteArrayOutputStream out, String keywords) {
+        return EscenicEntryTransformer.transform(new ByteArrayInputStream(entry.getBytes(StandardCharsets.UTF_8)),
+                out, keywords);
+    }
+}
@@ -0,0 +1,190 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.enums.FsyncPolicyEnum;
+import de.funkedigital.autotagging.journal.FailSafeJournal;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FailSafeJournalTest {
+
+    private static final long SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplayReturnsRecordsUnchanged() throws IOException {
+        File directory = folder.newFolder("morgenpost");
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Always, 100)) {
+            journal.append("1", "morgenpost", "https://www.morgenpost.de/article1,2,3.html", null);
+            journal.append("2", "morgenpost", "https://www.morgenpost.de/article4.html", "ü");
+            assertTrue(journal.hasRecords());
+
+            List<String[]> records = new ArrayList<>();
+            assertEquals(2, journal.replay(records::addAll));
+            assertArrayEquals(new String[]{"1", "morgenpost", "https://www.morgenpost.de/article1,2,3.html", null},
+                    records.get(0));
+            assertEquals("ü", records.get(1)[3]);
+            assertFalse(journal.hasRecords());
+            assertEquals(0, journal.replay(records::addAll));
+        }
+    }
+
+    @Test
+    public void testConcurrentAppendsAreAllCommitted() throws Exception {
+        File directory = folder.newFolder("abendblatt");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Always, 100)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int writer = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        journal.append(String.valueOf(writer), String.valueOf(j));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(800, journal.getAppended());
+            assertTrue(journal.getCommits() <= 800);
+            assertEquals(800, journal.replay(records -> {
+            }));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTornRecordIsCutOffOnOpen() throws IOException {
+        File directory = folder.newFolder("waz");
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Always, 100)) {
+            journal.append("first");
+            journal.append("second");
+        }
+        File segment = new File(directory, "00000001.seg");
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Always, 100)) {
+            journal.append("third");
+            List<String[]> records = new ArrayList<>();
+            journal.replay(records::addAll);
+            assertEquals(2, records.size());
+            assertEquals("first", records.get(0)[0]);
+            assertEquals("third", records.get(1)[0]);
+        }
+    }
+
+    @Test
+    public void testFailedReplayIsRepeatedAndCheckpointSurvivesReopen() throws IOException {
+        File directory = folder.newFolder("nrz");
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Never, 100)) {
+            journal.append("first");
+            try {
+                journal.replay(records -> {
+                    throw new IllegalStateException("Database is down");
+                });
+            } catch (IllegalStateException e) {
+                // Checkpoint is not moved
+            }
+            assertEquals(1, journal.replay(records -> {
+            }));
+            journal.append("second");
+        }
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Never, 100)) {
+            List<String[]> records = new ArrayList<>();
+            journal.read(records::add);
+            assertEquals(1, records.size());
+            assertEquals("second", records.get(0)[0]);
+        }
+    }
+
+    @Test
+    public void testSegmentsAreRolledAndDeletedAfterReplay() throws IOException {
+        File directory = folder.newFolder("ikz");
+        try (FailSafeJournal journal = open(directory, 64, FsyncPolicyEnum.Interval, 100)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append("https://www.ikz-online.de/article" + i + ".html");
+            }
+            journal.sync();
+            assertEquals(10, countSegments(directory));
+
+            List<String[]> records = new ArrayList<>();
+            assertEquals(10, journal.replay(records::addAll));
+            assertEquals("https://www.ikz-online.de/article9.html", records.get(9)[0]);
+            assertEquals(1, countSegments(directory));
+        }
+        try (FailSafeJournal journal = open(directory, 64, FsyncPolicyEnum.Interval, 100)) {
+            assertFalse(journal.hasRecords());
+            journal.append("next");
+            List<String[]> records = new ArrayList<>();
+            journal.read(records::add);
+            assertEquals(1, records.size());
+            assertEquals(1, journal.replay(list -> {
+            }));
+        }
+    }
+
+    @Test
+    public void testReplayIsCheckpointedPerChunk() throws IOException {
+        File directory = folder.newFolder("wp");
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Always, 3)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(String.valueOf(i));
+            }
+            List<Integer> sizes = new ArrayList<>();
+            try {
+                journal.replay(records -> {
+                    if (sizes.size() == 2) {
+                        throw new IllegalStateException("Database is down");
+                    }
+                    sizes.add(records.size());
+                });
+            } catch (IllegalStateException e) {
+                // Third chunk is not replayed
+            }
+            assertEquals(6, journal.getReplayed());
+            assertEquals(2, journal.getChunks());
+        }
+        try (FailSafeJournal journal = open(directory, SEGMENT_SIZE, FsyncPolicyEnum.Always, 3)) {
+            List<String> replayed = new ArrayList<>();
+            List<Integer> sizes = new ArrayList<>();
+            assertEquals(4, journal.replay(records -> {
+                sizes.add(records.size());
+                records.forEach(record -> replayed.add(record[0]));
+            }));
+            assertEquals(Arrays.asList(3, 1), sizes);
+            assertEquals(Arrays.asList("6", "7", "8", "9"), replayed);
+            assertEquals(0, journal.getBacklog());
+        }
+    }
+
+    private FailSafeJournal open(File directory, long segmentSize, FsyncPolicyEnum fsyncPolicy, int chunkSize)
+            throws IOException {
+        return new FailSafeJournal(directory.getName(), directory, segmentSize, fsyncPolicy, chunkSize);
+    }
+
+    private int countSegments(File directory) {
+        String[] segments = directory.list((dir, name) -> name.endsWith(".seg"));
+        return segments == null ? 0 : segments.length;
+    }
+}
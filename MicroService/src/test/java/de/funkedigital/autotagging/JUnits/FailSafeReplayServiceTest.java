@@ -0,0 +1,116 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.entities.repo.ExecutedArticleEntity;
+import de.funkedigital.autotagging.journal.FailSafeJournal;
+import de.funkedigital.autotagging.journal.FailSafeJournalManager;
+import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
+import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.services.FailSafeReplayService;
+import de.funkedigital.autotagging.services.QuotaService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FailSafeReplayServiceTest {
+
+    private static final String EXECUTED_FILE = "morgenpost/" + ExecutedArticleRepository.SAVE_FAIL_SAFE_FILE;
+
+    @Mock
+    private FailSafeJournalManager failSafeJournalManager;
+
+    @Mock
+    private ExecutedArticleRepository executedArticleRepository;
+
+    @Mock
+    private FailedArticleRepository failedArticleRepository;
+
+    @Mock
+    private PendingArticleRepository pendingArticleRepository;
+
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private FailSafeJournal journal;
+
+    @InjectMocks
+    private FailSafeReplayService failSafeReplayService = new FailSafeReplayService();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(failSafeReplayService, "retryInterval", 60000L);
+        when(failSafeJournalManager.get(anyString())).thenReturn(journal);
+        failSafeReplayService.init();
+    }
+
+    @Test
+    public void testNothingIsReplayedWithoutAppends() {
+        failSafeReplayService.replay();
+
+        verify(failSafeJournalManager, never()).get(anyString());
+        verify(executedArticleRepository, never()).saveFromJournal(any(FailSafeJournal.class), any());
+    }
+
+    @Test
+    public void testAppendedJournalIsReplayedOnce() {
+        when(executedArticleRepository.saveFromJournal(eq(journal), any())).thenReturn(2);
+        when(journal.hasRecords()).thenReturn(false);
+
+        failSafeReplayService.appended(EXECUTED_FILE);
+        failSafeReplayService.replay();
+        failSafeReplayService.replay();
+
+        verify(executedArticleRepository, times(1)).saveFromJournal(eq(journal), any());
+        verify(pendingArticleRepository, never()).deleteFromJournal(any(FailSafeJournal.class));
+    }
+
+    @Test
+    public void testJournalWithRecordsLeftWaitsForRetry() {
+        when(journal.hasRecords()).thenReturn(true);
+
+        failSafeReplayService.appended(EXECUTED_FILE);
+        failSafeReplayService.replay();
+        // Appends during retry interval do not replay it earlier
+        failSafeReplayService.appended(EXECUTED_FILE);
+        failSafeReplayService.replay();
+
+        verify(executedArticleRepository, times(1)).saveFromJournal(eq(journal), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInsertedArticlesAreCounted() {
+        doAnswer(i -> {
+            // Third record of journal is a duplicate and skipped
+            ((Consumer<Collection<ExecutedArticleEntity>>) i.getArguments()[1]).accept(Arrays.asList(
+                    new ExecutedArticleEntity("morgenpost", "asset1", "/article1/"),
+                    new ExecutedArticleEntity("morgenpost", "asset2", "/article2/")));
+            return 3;
+        }).when(executedArticleRepository).saveFromJournal(eq(journal), any());
+
+        failSafeReplayService.appended(EXECUTED_FILE);
+        failSafeReplayService.replay();
+
+        verify(quotaService).increment("morgenpost", 2, 0);
+        verify(quotaService, never()).increment(anyString(), eq(0), anyInt());
+    }
+}
@@ -1,30 +1,47 @@
 package de.funkedigital.autotagging.JUnits;
 
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
 import de.funkedigital.autotagging.escenic.services.EscenicService;
 import de.funkedigital.autotagging.entities.repo.FailedArticleEntity;
+import de.funkedigital.autotagging.repositories.DeadArticleRepository;
 import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
 import de.funkedigital.autotagging.repositories.FailedArticleRepository;
 import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.semantic.entities.KeywordStore;
+import de.funkedigital.autotagging.semantic.entities.UnicornStore;
+import de.funkedigital.autotagging.semantic.exceptions.RestClientException;
 import de.funkedigital.autotagging.semantic.services.SemanticService;
 import de.funkedigital.autotagging.semantic.services.UnicornService;
 import de.funkedigital.autotagging.services.FailedArticleService;
+import de.funkedigital.autotagging.services.QuotaService;
+import org.apache.commons.lang3.ArrayUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -51,6 +68,15 @@ public class FailedArticlesServiceTest {
     @Mock
     private EscenicService escenicService;
 
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private CircuitBreakers circuitBreakers;
+
+    @Mock
+    private DeadArticleRepository deadArticleRepository;
+
     @InjectMocks
     private FailedArticleService failedArticleService = new FailedArticleService();
 
@@ -71,6 +97,10 @@ public class FailedArticlesServiceTest {
             add("bmo");
         }};
 
+        ReflectionTestUtils.setField(failedArticleService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(failedArticleService, "backoff", 60000L);
+        ReflectionTestUtils.setField(failedArticleService, "maxBackoff", 100000L);
+
         failedArticleEntityRepository = new HashMap<>();
 
         failedArticleEntityRepository.put(publications.get(0), new FailedArticleEntity(publications.get(0), "/hao/"));
@@ -89,7 +119,7 @@ public class FailedArticlesServiceTest {
     public void testFailure1() {
         for (String pub : publications) {
             mock(pub);
-            when(failedArticleRepository.findTopArticle(pub))
+            when(failedArticleRepository.findTopEligibleArticle(eq(pub), any(Date.class)))
                     .thenThrow(new RuntimeException("Mocked DB down exception"));
             runService(pub);
         }
@@ -106,10 +136,74 @@ public class FailedArticlesServiceTest {
     }
 
 
+    @Test
+    public void testFailedRetryIsBackedOff() {
+        FailedArticleEntity failedArticle = failedArticleEntityRepository.get("hao");
+        ReflectionTestUtils.setField(failedArticle, "id", 1L);
+        ReflectionTestUtils.setField(failedArticle, "attempts", 1);
+        when(failedArticleRepository.findTopEligibleArticle(eq("hao"), any(Date.class))).thenReturn(failedArticle);
+        when(unicornService.analyzeArticle("/hao/")).thenThrow(new RuntimeException("Unicorn service failed"));
+
+        long start = System.currentTimeMillis();
+        runService("hao");
+
+        // Second attempt waits twice the backoff, the row is updated in place
+        ArgumentCaptor<Date> nextAttempt = ArgumentCaptor.forClass(Date.class);
+        verify(failedArticleRepository).scheduleRetry(eq(1L), eq(2), nextAttempt.capture());
+        assertTrue(nextAttempt.getValue().getTime() >= start + 100000);
+        verify(failedArticleRepository, never()).save(anyString(), anyString());
+        verify(deadArticleRepository, never()).save(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    public void testArticleIsMovedToDeadAfterMaxAttempts() {
+        FailedArticleEntity failedArticle = failedArticleEntityRepository.get("bmo");
+        ReflectionTestUtils.setField(failedArticle, "attempts", 2);
+        when(failedArticleRepository.findTopEligibleArticle(eq("bmo"), any(Date.class))).thenReturn(failedArticle);
+        when(unicornService.analyzeArticle("/bmo/")).thenThrow(new RuntimeException("Unicorn service failed"));
+
+        runService("bmo");
+
+        verify(deadArticleRepository).save("bmo", "/bmo/", 3);
+        verify(failedArticleRepository).delete(failedArticle, ArrayUtils.EMPTY_LONG_OBJECT_ARRAY);
+        verify(failedArticleRepository, never()).scheduleRetry(any(Long.class), anyInt(), any(Date.class));
+    }
+
+    @Test
+    public void testUpstreamFailureIsNotCounted() {
+        FailedArticleEntity failedArticle = failedArticleEntityRepository.get("bmo");
+        ReflectionTestUtils.setField(failedArticle, "id", 2L);
+        ReflectionTestUtils.setField(failedArticle, "attempts", 2);
+        when(failedArticleRepository.findTopEligibleArticle(eq("bmo"), any(Date.class))).thenReturn(failedArticle);
+        when(unicornService.analyzeArticle("/bmo/"))
+                .thenThrow(new RestClientException("Unicorn service is down", HttpStatus.SERVICE_UNAVAILABLE));
+
+        runService("bmo");
+
+        // Last attempt is not used up by the outage
+        verify(failedArticleRepository).scheduleRetry(eq(2L), eq(2), any(Date.class));
+        verify(deadArticleRepository, never()).save(anyString(), anyString(), anyInt());
+        verify(failedArticleRepository, never()).delete(failedArticle, ArrayUtils.EMPTY_LONG_OBJECT_ARRAY);
+    }
+
+    @Test
+    public void testExecutedRetryIsCountedOnce() {
+        FailedArticleEntity failedArticle = failedArticleEntityRepository.get("hao");
+        when(failedArticleRepository.findTopEligibleArticle(eq("hao"), any(Date.class))).thenReturn(failedArticle);
+        when(unicornService.analyzeArticle("/hao/")).thenReturn(new UnicornStore("/hao/:10"));
+        when(semanticService.returnKeywords("/hao/:10")).thenReturn(new KeywordStore());
+
+        runService("hao");
+
+        verify(executedArticleRepository).save("hao", "/hao/:10", "/hao/");
+        verify(quotaService).removeFailed("hao", failedArticle.getExecutionDate());
+        verify(quotaService).release(1);
+    }
+
     private void mock(String pub) {
         FailedArticleEntity failedArticle = failedArticleEntityRepository.get(pub);
 
-        when(failedArticleRepository.findTopArticle(pub))
+        when(failedArticleRepository.findTopEligibleArticle(eq(pub), any(Date.class)))
                 .thenReturn(failedArticle);
 
         when(unicornService.analyzeArticle(failedArticle.getUrl())).thenReturn(anyObject());
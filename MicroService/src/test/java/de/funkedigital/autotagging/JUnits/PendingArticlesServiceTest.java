@@ -1,14 +1,26 @@
 package de.funkedigital.autotagging.JUnits;
 
-import de.funkedigital.autotagging.escenic.services.EscenicService;
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.entities.repo.ArticleTransition;
 import de.funkedigital.autotagging.entities.repo.PendingArticleEntity;
-import de.funkedigital.autotagging.repositories.ExecutedArticleRepository;
-import de.funkedigital.autotagging.repositories.FailedArticleRepository;
+import de.funkedigital.autotagging.enums.ExecutionModeEnum;
+import de.funkedigital.autotagging.enums.RunResultEnum;
+import de.funkedigital.autotagging.escenic.services.EscenicService;
+import de.funkedigital.autotagging.exceptions.AutoTaggingException;
+import de.funkedigital.autotagging.exceptions.QuotaExceededException;
 import de.funkedigital.autotagging.repositories.PendingArticleRepository;
+import de.funkedigital.autotagging.semantic.entities.KeywordStore;
+import de.funkedigital.autotagging.semantic.entities.UnicornStore;
 import de.funkedigital.autotagging.semantic.services.SemanticService;
+import de.funkedigital.autotagging.semantic.services.UnicornService;
+import de.funkedigital.autotagging.services.ArticleTransitionService;
 import de.funkedigital.autotagging.services.PendingArticleService;
+import de.funkedigital.autotagging.services.QuotaService;
+import de.funkedigital.autotagging.utils.VirtualThreads;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -16,15 +28,32 @@ import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static org.mockito.Matchers.anyObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -34,13 +63,13 @@ public class PendingArticlesServiceTest {
     private static final Logger log = LoggerFactory.getLogger(PendingArticlesServiceTest.class);
 
     @Mock
-    private ExecutedArticleRepository executedArticleRepository;
+    private PendingArticleRepository pendingArticleRepository;
 
     @Mock
-    private PendingArticleRepository pendingArticleRepository;
+    private ArticleTransitionService articleTransitionService;
 
     @Mock
-    private FailedArticleRepository failedArticleRepository;
+    private UnicornService unicornService;
 
     @Mock
     private SemanticService semanticService;
@@ -48,6 +77,12 @@ public class PendingArticlesServiceTest {
     @Mock
     private EscenicService escenicService;
 
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private CircuitBreakers circuitBreakers;
+
     @InjectMocks
     private PendingArticleService pendingArticleService = new PendingArticleService();
 
@@ -55,13 +90,13 @@ public class PendingArticlesServiceTest {
 
     List<String> publications;
 
-    String keyword;
+    String assetId;
 
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
 
-        keyword = "KeywordStore";
+        assetId = "/hao/:10";
 
         publications = new ArrayList<String>() {{
             add("hao");
@@ -76,9 +111,30 @@ public class PendingArticlesServiceTest {
 
     @Test
     public void testSuccess() {
+        for (String pub : publications) {
+            PendingArticleEntity pendingArticle = mock(pub);
+            runService(pub);
+
+            ArticleTransition transition = transition(pub);
+            assertSame(pendingArticle, transition.getPendingArticle());
+            assertNotNull(transition.getExecutedArticle());
+            assertNull(transition.getFailedArticle());
+            // Reserved record is released once the transition is written
+            assertTrue(transition.isQuotaReserved());
+            assertNotEquals(RunResultEnum.Failed, pendingArticleService.getRunResult());
+        }
+    }
+
+    @Test
+    public void testBacklogOnlyIfArticleLeft() {
         for (String pub : publications) {
             mock(pub);
             runService(pub);
+            assertEquals(RunResultEnum.Processed, pendingArticleService.getRunResult());
+
+            when(pendingArticleRepository.hasClaimableArticles(pub)).thenReturn(true);
+            runService(pub);
+            assertEquals(RunResultEnum.Backlog, pendingArticleService.getRunResult());
         }
     }
 
@@ -86,19 +142,28 @@ public class PendingArticlesServiceTest {
     public void testFailure1() {
         for (String pub : publications) {
             mock(pub);
-            when(pendingArticleRepository.findTopArticle(pub))
+            when(pendingArticleRepository.claimArticles(eq(pub), anyString(), anyInt(), anyInt()))
                     .thenThrow(new RuntimeException("Mocked DB down exception"));
             runService(pub);
+
+            verify(articleTransitionService, never()).transition(any(ArticleTransition.class));
+            assertEquals(RunResultEnum.Failed, pendingArticleService.getRunResult());
         }
     }
 
     @Test
     public void testFailure2() {
         for (String pub : publications) {
-            mock(pub);
+            PendingArticleEntity pendingArticle = mock(pub);
             when(semanticService.returnKeywords(anyString()))
                     .thenThrow(new RuntimeException("Semantic service failed"));
             runService(pub);
+
+            ArticleTransition transition = transition(pub);
+            assertSame(pendingArticle, transition.getPendingArticle());
+            assertNull(transition.getExecutedArticle());
+            assertNotNull(transition.getFailedArticle());
+            assertEquals(RunResultEnum.Failed, pendingArticleService.getRunResult());
         }
     }
 
@@ -109,60 +174,142 @@ public class PendingArticlesServiceTest {
             when(semanticService.returnKeywords(anyString()))
                     .thenThrow(new RuntimeException("Semantic service failed"));
             doAnswer((i) -> {
-                throw new RuntimeException("failedArticleRepository save is failed");
-            }).when(failedArticleRepository).save(anyString(), anyString());
-
+                throw new RuntimeException("failed article transition is failed");
+            }).when(articleTransitionService).transition(any(ArticleTransition.class));
             runService(pub);
+
+            assertEquals(RunResultEnum.Failed, pendingArticleService.getRunResult());
         }
     }
 
     @Test
     public void testFailure4() {
         for (String pub : publications) {
-            mock(pub);
-            when(semanticService.returnKeywords(anyString()))
-                    .thenThrow(new RuntimeException("Semantic service failed"));
+            PendingArticleEntity pendingArticle = mock(pub);
+            doThrow(new QuotaExceededException("Quota exceeded")).when(quotaService).reserve();
+            runService(pub);
 
-            doAnswer((i) -> {
-                throw new RuntimeException("failedArticleRepository save is failed");
-            }).when(failedArticleRepository).save(anyString(), anyString());
+            // Article stays pending
+            verify(pendingArticleRepository).release(pendingArticle.getId());
+            verify(semanticService, never()).returnKeywords(anyString());
+            verify(articleTransitionService, never()).transition(any(ArticleTransition.class));
+        }
+    }
 
-            doAnswer((i) -> {
-                throw new RuntimeException("pendingArticleRepository delete is failed");
-            }).when(pendingArticleRepository).delete(Mockito.any(PendingArticleEntity.class));
+    @Test
+    public void testClaimIsRenewedWhileBatchRuns() {
+        ReflectionTestUtils.setField(pendingArticleService, "executionMode", ExecutionModeEnum.Parallel);
+        ReflectionTestUtils.setField(pendingArticleService, "parallelism", 2);
+        ReflectionTestUtils.setField(pendingArticleService, "batchSize", 2);
+        ReflectionTestUtils.setField(pendingArticleService, "leaseSeconds", 1);
+        String pub = publications.get(0);
+        mock(pub);
+        when(unicornService.analyzeArticle(anyString())).thenAnswer(i -> {
+            // Article takes longer than the lease
+            Thread.sleep(1200);
+            return new UnicornStore(assetId);
+        });
+
+        runService(pub);
+        pendingArticleService.stop();
+
+        ArgumentCaptor<String> claim = ArgumentCaptor.forClass(String.class);
+        verify(pendingArticleRepository).claimArticles(eq(pub), claim.capture(), eq(2), eq(1));
+        verify(pendingArticleRepository, atLeastOnce()).renew(eq(claim.getValue()), any(Date.class));
+        assertEquals(RunResultEnum.Processed, pendingArticleService.getRunResult());
+    }
 
-            runService(pub);
+    @Test
+    public void testClaimIsRenewedWhileShortArticlesExceedLease() {
+        ReflectionTestUtils.setField(pendingArticleService, "executionMode", ExecutionModeEnum.Parallel);
+        ReflectionTestUtils.setField(pendingArticleService, "parallelism", 1);
+        ReflectionTestUtils.setField(pendingArticleService, "batchSize", 6);
+        ReflectionTestUtils.setField(pendingArticleService, "leaseSeconds", 1);
+        String pub = publications.get(0);
+        mock(pub);
+        List<PendingArticleEntity> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(new PendingArticleEntity(pub, "/hao/" + i));
+        }
+        when(pendingArticleRepository.claimArticles(eq(pub), anyString(), anyInt(), anyInt())).thenReturn(batch);
+        when(unicornService.analyzeArticle(anyString())).thenAnswer(i -> {
+            // Every article is shorter than half of the lease, the batch is longer than the lease
+            Thread.sleep(300);
+            return new UnicornStore(assetId);
+        });
+
+        runService(pub);
+        pendingArticleService.stop();
+
+        ArgumentCaptor<String> claim = ArgumentCaptor.forClass(String.class);
+        verify(pendingArticleRepository).claimArticles(eq(pub), claim.capture(), eq(6), eq(1));
+        verify(pendingArticleRepository, atLeast(2)).renew(eq(claim.getValue()), any(Date.class));
+        assertEquals(RunResultEnum.Backlog, pendingArticleService.getRunResult());
+    }
+
+    @Test
+    public void testClaimIsRenewedWhileArticlesAreInPipeline() {
+        ReflectionTestUtils.setField(pendingArticleService, "executionMode", ExecutionModeEnum.Pipeline);
+        ReflectionTestUtils.setField(pendingArticleService, "unicornConcurrency", 1);
+        ReflectionTestUtils.setField(pendingArticleService, "semanticConcurrency", 1);
+        ReflectionTestUtils.setField(pendingArticleService, "escenicConcurrency", 1);
+        ReflectionTestUtils.setField(pendingArticleService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(pendingArticleService, "batchSize", 6);
+        ReflectionTestUtils.setField(pendingArticleService, "leaseSeconds", 1);
+        String pub = publications.get(0);
+        mock(pub);
+        List<PendingArticleEntity> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(new PendingArticleEntity(pub, "/hao/" + i));
         }
+        when(pendingArticleRepository.claimArticles(eq(pub), anyString(), anyInt(), anyInt())).thenReturn(batch);
+        when(unicornService.analyzeArticle(anyString())).thenAnswer(i -> {
+            // Articles wait in the queue of slow stage, longer than the lease
+            Thread.sleep(300);
+            return new UnicornStore(assetId);
+        });
+
+        runService(pub);
+        verify(articleTransitionService, timeout(5000).times(6)).transition(any(ArticleTransition.class));
+        pendingArticleService.stop();
+
+        ArgumentCaptor<String> claim = ArgumentCaptor.forClass(String.class);
+        verify(pendingArticleRepository).claimArticles(eq(pub), claim.capture(), eq(6), eq(1));
+        verify(pendingArticleRepository, atLeast(2)).renew(eq(claim.getValue()), any(Date.class));
+    }
+
+    @Test(expected = AutoTaggingException.class)
+    public void testVirtualModeFailsWithoutVirtualThreads() {
+        Assume.assumeFalse(VirtualThreads.isAvailable());
+        ReflectionTestUtils.setField(pendingArticleService, "executionMode", ExecutionModeEnum.Virtual);
+        pendingArticleService.setProperties(publications.get(0));
     }
 
-    private void mock(String pub) {
+    private PendingArticleEntity mock(String pub) {
+        Mockito.reset(pendingArticleRepository, articleTransitionService, unicornService, semanticService,
+                escenicService, quotaService);
         PendingArticleEntity pendingArticle = pendingArticleEntityRepository.get(pub);
 
-        when(pendingArticleRepository.findTopArticle(pub))
-                .thenReturn(pendingArticle);
+        when(pendingArticleRepository.claimArticles(eq(pub), anyString(), anyInt(), anyInt()))
+                .thenReturn(Collections.singletonList(pendingArticle));
 
-        when(semanticService.returnKeywords(pendingArticle.getUrl())).thenReturn(anyObject());
+        when(unicornService.analyzeArticle(pendingArticle.getUrl())).thenReturn(new UnicornStore(assetId));
 
-        doAnswer((i) -> {
-            log.info("escenicService push is success");
-            return null;
-        }).when(escenicService).pushKeywords(keyword, anyString());
+        when(semanticService.returnKeywords(assetId)).thenReturn(new KeywordStore());
 
         doAnswer((i) -> {
-            log.info("executedArticleRepository save is success");
+            log.info("escenicService push is success");
             return null;
-        }).when(executedArticleRepository).save(pendingArticle.getPublication(),
-                pendingArticle.getUrl(), pendingArticle.getUrl());
+        }).when(escenicService).pushKeywords(anyString(), anyString());
 
-        doAnswer((i) -> {
-            log.info("failedArticleRepository save is success");
-            return null;
-        }).when(failedArticleRepository).save(pendingArticle.getPublication(), pendingArticle.getUrl());
+        return pendingArticle;
+    }
 
-        doAnswer((i) -> {
-            log.info("pendingArticleRepository delete is success");
-            return null;
-        }).when(pendingArticleRepository).delete(pendingArticle);
+    private ArticleTransition transition(String pub) {
+        ArgumentCaptor<ArticleTransition> transition = ArgumentCaptor.forClass(ArticleTransition.class);
+        verify(articleTransitionService).transition(transition.capture());
+        assertEquals(pub, transition.getValue().getPublication());
+        return transition.getValue();
     }
 
     private void runService(String pub) {
@@ -0,0 +1,85 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.pipeline.Pipeline;
+import de.funkedigital.autotagging.pipeline.PipelineStage;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelineTest {
+
+    @Test
+    public void testAllStagesAndFailure() throws Exception {
+        int items = 50;
+        CountDownLatch latch = new CountDownLatch(items);
+        Map<Integer, Exception> completed = new ConcurrentHashMap<>();
+        List<Integer> lastStage = new CopyOnWriteArrayList<>();
+
+        Pipeline<int[]> pipeline = new Pipeline<int[]>((item, e) -> {
+            completed.put(item[0], e == null ? new Exception("none") : e);
+            latch.countDown();
+        })
+                .addStage(new PipelineStage<>("first", item -> item[1]++, 2, 1, null))
+                .addStage(new PipelineStage<>("second", item -> {
+                    if (item[0] % 10 == 0) {
+                        throw new IllegalStateException("failed " + item[0]);
+                    }
+                    item[1]++;
+                }, 3, 1, null))
+                .addStage(new PipelineStage<>("third", item -> lastStage.add(item[0] + item[1]), 1, 1, null));
+
+        for (int i = 0; i < items; i++) {
+            pipeline.submit(new int[]{i, 0});
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(items, completed.size());
+        assertEquals(45, lastStage.size());
+        assertTrue(completed.get(10) instanceof IllegalStateException);
+        assertEquals("none", completed.get(11).getMessage());
+        assertTrue(lastStage.contains(11 + 2));
+        assertEquals(3, pipeline.getDetails().size());
+    }
+
+    @Test
+    public void testShutdownCompletesItemsInStage() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        Map<Integer, Exception> completed = new ConcurrentHashMap<>();
+
+        Pipeline<int[]> pipeline = new Pipeline<int[]>((item, e) -> {
+            completed.put(item[0], e == null ? new Exception("none") : e);
+            latch.countDown();
+        })
+                .addStage(new PipelineStage<>("first", item -> {
+                    started.countDown();
+                    release.await();
+                }, 1, 1, null))
+                .addStage(new PipelineStage<>("second", item -> item[1]++, 1, 1, null));
+
+        pipeline.submit(new int[]{1, 0});
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        pipeline.shutdown();
+        release.countDown();
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(completed.get(1) instanceof RejectedExecutionException);
+        try {
+            pipeline.submit(new int[]{2, 0});
+            fail("Shut down pipeline accepted item");
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, completed.size());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.interceptors.QuotaInterceptor;
+import de.funkedigital.autotagging.services.QuotaService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.annotation.AsyncResult;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class QuotaInterceptorTest {
+
+    @Mock
+    private QuotaService quotaService;
+
+    @InjectMocks
+    private QuotaInterceptor quotaInterceptor = new QuotaInterceptor();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testInsertedArticlesAreCounted() {
+        quotaInterceptor.afterExecutedSave("morgenpost", "asset", "/article1/", new AsyncResult<>(true));
+        quotaInterceptor.afterFailedSave("morgenpost", "/article2/", new AsyncResult<>(true));
+
+        verify(quotaService).increment("morgenpost", 1, 0);
+        verify(quotaService).increment("morgenpost", 0, 1);
+    }
+
+    @Test
+    public void testDuplicatesAreNotCounted() {
+        quotaInterceptor.afterExecutedSave("morgenpost", "asset", "/article1/", new AsyncResult<>(false));
+        quotaInterceptor.afterFailedSave("morgenpost", "/article2/", new AsyncResult<>(false));
+
+        verify(quotaService, never()).increment(anyString(), anyInt(), anyInt());
+    }
+}
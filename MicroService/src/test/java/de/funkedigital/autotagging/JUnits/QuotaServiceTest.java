@@ -0,0 +1,126 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.exceptions.QuotaExceededException;
+import de.funkedigital.autotagging.repositories.ArticleCounterRepository;
+import de.funkedigital.autotagging.services.QuotaService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QuotaServiceTest {
+
+    @Mock
+    private ArticleCounterRepository articleCounterRepository;
+
+    @InjectMocks
+    private QuotaService quotaService = new QuotaService();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(quotaService, "maxRecordsPerMonth", 10L);
+        Map<String, Long> counters = new HashMap<>();
+        counters.put("morgenpost", 5L);
+        counters.put("abendblatt", 3L);
+        when(articleCounterRepository.findByMonth(any(Date.class))).thenReturn(counters);
+    }
+
+    @Test
+    public void testCountIsReadOnceAndIncremented() {
+        assertEquals(8, quotaService.getCount());
+        quotaService.increment("morgenpost", 1, 0);
+        quotaService.recorded(1);
+
+        assertEquals(10, quotaService.getCount());
+        assertTrue(quotaService.isExceeded());
+        verify(articleCounterRepository, times(1)).findByMonth(any(Date.class));
+        verify(articleCounterRepository).increment(any(Date.class), anyString(), anyInt(), anyInt());
+    }
+
+    @Test(expected = QuotaExceededException.class)
+    public void testReserveFailsOnceExceeded() {
+        quotaService.reserve();
+        quotaService.recorded(2);
+        quotaService.reserve();
+    }
+
+    @Test
+    public void testReserveIsAtomic() throws Exception {
+        int workers = 10;
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    quotaService.reserve();
+                    reserved.incrementAndGet();
+                } catch (QuotaExceededException e) {
+                    // quota is used up
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 8 of 10 are counted, only 2 records are left
+        assertEquals(2, reserved.get());
+        assertTrue(quotaService.isExceeded());
+
+        // Saved articles replace the reservations
+        quotaService.recorded(2);
+        quotaService.release(2);
+        assertEquals(10, quotaService.getCount());
+    }
+
+    @Test
+    public void testRemoveFailedOfCurrentMonth() {
+        assertEquals(8, quotaService.getCount());
+        quotaService.removeFailed("morgenpost", new Date());
+
+        assertEquals(7, quotaService.getCount());
+        verify(articleCounterRepository).increment(any(Date.class), eq("morgenpost"), eq(0), eq(-1));
+    }
+
+    @Test
+    public void testCountIsKeptIfCountersCannotBeRead() {
+        quotaService.refresh();
+        when(articleCounterRepository.findByMonth(any(Date.class))).thenThrow(new RuntimeException("DB is down"));
+        quotaService.refresh();
+
+        assertEquals(8, quotaService.getCount());
+        assertFalse(quotaService.isExceeded());
+    }
+}
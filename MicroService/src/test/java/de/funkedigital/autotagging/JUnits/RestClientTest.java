@@ -0,0 +1,74 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.circuitbreaker.CircuitBreakers;
+import de.funkedigital.autotagging.semantic.entities.json.SemanticResponse;
+import de.funkedigital.autotagging.semantic.exceptions.RestClientException;
+import de.funkedigital.autotagging.semantic.rest.RestClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class RestClientTest {
+
+    private static final String URL = "http://semantic/asset?id=escenic-10";
+
+    private RestClient<String, SemanticResponse> restClient;
+
+    private MockRestServiceServer server;
+
+    @Before
+    public void setup() {
+        restClient = new RestClient<>(new RestTemplateBuilder(), new SimpleClientHttpRequestFactory());
+        server = MockRestServiceServer.bindTo((RestTemplate) ReflectionTestUtils.getField(restClient, "restTemplate"))
+                .build();
+    }
+
+    @Test
+    public void testEmptyResponseIsNotFailureOfUpstream() {
+        server.expect(requestTo(URL)).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        RestClientException e = getRequest();
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatus());
+        assertFalse(CircuitBreakers.isFailure(e));
+    }
+
+    @Test
+    public void testUnreadableResponseIsNotFailureOfUpstream() {
+        server.expect(requestTo(URL)).andRespond(withSuccess("{no json", MediaType.APPLICATION_JSON));
+        RestClientException e = getRequest();
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatus());
+        assertFalse(CircuitBreakers.isFailure(e));
+    }
+
+    @Test
+    public void testServerErrorIsFailureOfUpstream() {
+        server.expect(requestTo(URL)).andRespond(withServerError());
+        RestClientException e = getRequest();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertTrue(CircuitBreakers.isFailure(e));
+    }
+
+    private RestClientException getRequest() {
+        try {
+            restClient.getRequest(URL, "user", "password", SemanticResponse[].class);
+            fail("Request succeeded");
+            return null;
+        } catch (RestClientException e) {
+            server.verify();
+            return e;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.enums.SchedulerModeEnum;
+import de.funkedigital.autotagging.enums.ServiceEnum;
+import de.funkedigital.autotagging.jobs.SchedulerJob;
+import de.funkedigital.autotagging.scheduler.Scheduler;
+import de.funkedigital.autotagging.scheduler.SchedulerPools;
+import de.funkedigital.autotagging.triggers.ServiceTrigger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class SchedulerPoolsTest {
+
+    private SchedulerPools schedulerPools = new SchedulerPools();
+
+    private Scheduler scheduler = new Scheduler();
+
+    @Before
+    public void setUp() {
+        scheduler.setPoolSize(1);
+        scheduler.initialize();
+        ReflectionTestUtils.setField(schedulerPools, "scheduler", scheduler);
+        ReflectionTestUtils.setField(schedulerPools, "mode", SchedulerModeEnum.Service);
+        ReflectionTestUtils.setField(schedulerPools, "loadPoolSize", 1);
+        ReflectionTestUtils.setField(schedulerPools, "pendingPoolSize", 2);
+        ReflectionTestUtils.setField(schedulerPools, "failedPoolSize", 1);
+        schedulerPools.init();
+    }
+
+    @After
+    public void tearDown() {
+        schedulerPools.destroy();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testSlowLoadDoesNotDelayPending() throws InterruptedException {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch pendingRuns = new CountDownLatch(2);
+        SchedulerJob load = new SchedulerJob(() -> {
+            loadStarted.countDown();
+            await(release);
+        }, new ServiceTrigger(1), ServiceEnum.LoadArticleService, "morgenpost");
+        SchedulerJob morgenpost = new SchedulerJob(pendingRuns::countDown, new ServiceTrigger(1),
+                ServiceEnum.PendingArticleService, "morgenpost");
+        SchedulerJob abendblatt = new SchedulerJob(pendingRuns::countDown, new ServiceTrigger(1),
+                ServiceEnum.PendingArticleService, "abendblatt");
+        try {
+            load.setFuture(schedulerPools.schedule(load));
+            morgenpost.setFuture(schedulerPools.schedule(morgenpost));
+            abendblatt.setFuture(schedulerPools.schedule(abendblatt));
+
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            assertTrue(pendingRuns.await(5, TimeUnit.SECONDS));
+            assertEquals(100, schedulerPools.get(ServiceEnum.LoadArticleService).getSaturation());
+        } finally {
+            release.countDown();
+            load.getFuture().cancel(true);
+            morgenpost.getFuture().cancel(true);
+            abendblatt.getFuture().cancel(true);
+        }
+    }
+
+    @Test
+    public void testPoolsPerServiceWithMetrics() {
+        assertNotSame(schedulerPools.get(ServiceEnum.LoadArticleService),
+                schedulerPools.get(ServiceEnum.PendingArticleService));
+        long poolSizes = schedulerPools.metrics().stream()
+                .filter(metric -> metric.getName().endsWith(".size"))
+                .map(Metric::getValue)
+                .mapToLong(Number::longValue)
+                .sum();
+        assertEquals(4, poolSizes);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.enums.UpstreamEnum;
+import de.funkedigital.autotagging.services.UpstreamLimiter;
+import de.funkedigital.autotagging.utils.VirtualThreads;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UpstreamLimiterTest {
+
+    private UpstreamLimiter upstreamLimiter = new UpstreamLimiter();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(upstreamLimiter, "unicornConcurrency", 3);
+        ReflectionTestUtils.setField(upstreamLimiter, "semanticConcurrency", 2);
+        ReflectionTestUtils.setField(upstreamLimiter, "escenicConcurrency", 2);
+        upstreamLimiter.init();
+    }
+
+    @Test
+    public void testCallsOfUpstreamAreLimited() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        ExecutorService executor = VirtualThreads.isAvailable()
+                ? VirtualThreads.newThreadPerTaskExecutor("test-") : Executors.newFixedThreadPool(20);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(executor.submit(() -> upstreamLimiter.call(UpstreamEnum.Unicorn, () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    Thread.sleep(5);
+                    return active.decrementAndGet();
+                })));
+            }
+            for (Future<Integer> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(maxActive.get() <= 3);
+        long calls = upstreamLimiter.metrics().stream()
+                .filter(metric -> metric.getName().equals("upstream.unicorn.calls"))
+                .mapToLong(metric -> metric.getValue().longValue())
+                .sum();
+        assertEquals(50, calls);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPermitIsReleasedOnFailure() throws Exception {
+        try {
+            upstreamLimiter.call(UpstreamEnum.Semantic, () -> {
+                throw new IllegalStateException("Semantic is down");
+            });
+        } finally {
+            assertEquals(0, upstreamLimiter.metrics().stream()
+                    .filter(metric -> metric.getName().equals("upstream.semantic.active"))
+                    .mapToInt(metric -> metric.getValue().intValue())
+                    .sum());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package de.funkedigital.autotagging.JUnits;
+
+import de.funkedigital.autotagging.entities.xml.Url;
+import de.funkedigital.autotagging.utils.UrlSetReader;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class UrlSetReaderTest {
+
+    private static final String SITEMAP = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">" +
+            "<url><loc>https://www.morgenpost.de/article1/one.html</loc><lastmod>2019-11-01</lastmod></url>" +
+            "<url><loc> https://www.morgenpost.de/article2/two,three.html </loc></url>" +
+            "<url><lastmod>2019-11-02</lastmod></url>" +
+            "</urlset>";
+
+    @Test
+    public void testReadAllUrls() throws Exception {
+        List<Url> urls = new ArrayList<>();
+        try (UrlSetReader reader = new UrlSetReader(new StringReader(SITEMAP))) {
+            while (reader.hasNext()) {
+                urls.add(reader.next());
+            }
+            assertFalse(reader.hasNext());
+        }
+
+        assertEquals(3, urls.size());
+        assertEquals("https://www.morgenpost.de/article1/one.html", urls.get(0).getLoc());
+        assertEquals("2019-11-01", urls.get(0).getLastmod());
+        assertEquals("https://www.morgenpost.de/article2/two,three.html", urls.get(1).getLoc());
+        assertEquals(null, urls.get(2).getLoc());
+    }
+
+    @Test
+    public void testEmptyUrlSet() throws Exception {
+        try (UrlSetReader reader = new UrlSetReader(new StringReader("<urlset/>"))) {
+            assertFalse(reader.hasNext());
+        }
+    }
+}